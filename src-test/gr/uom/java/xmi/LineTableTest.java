@@ -0,0 +1,89 @@
+package gr.uom.java.xmi;
+
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineTableTest {
+
+	@Test
+	public void testLineFeeds() {
+		assertSameLinesAndColumns("class A {\n\tint a;\n\n\tvoid m() {}\n}\n");
+	}
+
+	@Test
+	public void testCarriageReturnLineFeeds() {
+		assertSameLinesAndColumns("class A {\r\n\tint a;\r\n\r\n\tvoid m() {}\r\n}\r\n");
+	}
+
+	@Test
+	public void testCarriageReturns() {
+		assertSameLinesAndColumns("class A {\r\tint a;\r\r\tvoid m() {}\r}\r");
+	}
+
+	@Test
+	public void testMixedLineSeparators() {
+		assertSameLinesAndColumns("class A {\r\n\tint a;\n\tint b;\r\tvoid m() {}\r\n}\n");
+	}
+
+	@Test
+	public void testMissingTrailingLineSeparator() {
+		assertSameLinesAndColumns("class A {\n\tint a;\n}");
+		assertSameLinesAndColumns("class A {\r\n\tint a;\r\n}");
+	}
+
+	@Test
+	public void testSingleLine() {
+		assertSameLinesAndColumns("class A {}");
+		assertSameLinesAndColumns("class A {}\n");
+		assertSameLinesAndColumns("class A {}\r\n");
+	}
+
+	@Test
+	public void testTrailingBlankLinesAndComments() {
+		assertSameLinesAndColumns("class A {\n}\n\n\n");
+		assertSameLinesAndColumns("class A {\r\n}\r\n// end\r\n\r\n");
+	}
+
+	@Test
+	public void testEmptySource() {
+		assertSameLinesAndColumns("");
+		assertSameLinesAndColumns("\n");
+	}
+
+	@Test
+	public void testTablesOfTheSameUnitShareTheLineEnds() {
+		CompilationUnit cu = parse("class A {\n\tint a;\n}\n");
+		LineTable table = LineTable.of(cu, "src/A.java");
+		Assert.assertSame(table, LineTable.of(cu, "src/A.java"));
+		LineTable renamed = LineTable.of(cu, "src/B.java");
+		Assert.assertEquals("src/B.java", renamed.getFilePath());
+		Assert.assertEquals(table.getLineNumber(12), renamed.getLineNumber(12));
+	}
+
+	private static void assertSameLinesAndColumns(String source) {
+		CompilationUnit cu = parse(source);
+		LineTable table = LineTable.of(cu, "A.java");
+		//offsets before the source, within it, at its end and past it
+		for(int offset = -2; offset <= source.length() + 2; offset++) {
+			String message = "offset " + offset + " in " + source.replace("\r", "\\r").replace("\n", "\\n");
+			Assert.assertEquals(message, cu.getLineNumber(offset), table.getLineNumber(offset));
+			Assert.assertEquals(message, cu.getColumnNumber(offset), table.getColumnNumber(offset));
+		}
+	}
+
+	private static CompilationUnit parse(String source) {
+		ASTParser parser = ASTParser.newParser(AST.JLS15);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+		parser.setCompilerOptions(options);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+}
@@ -0,0 +1,62 @@
+package gr.uom.java.xmi;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.refactoringminer.api.Deadline;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+public class UMLModelASTReaderTest {
+
+	@Test
+	public void testParsingStopsAtTheDeadline() throws Exception {
+		Map<String, char[]> sources = new LinkedHashMap<String, char[]>();
+		sources.put("src/p/A.java", "package p;\nclass A {}\n".toCharArray());
+		sources.put("src/p/B.java", "package p;\nclass B {}\n".toCharArray());
+		Iterator<Map.Entry<String, char[]>> iterator = sources.entrySet().iterator();
+		Deadline deadline = Deadline.after(1, TimeUnit.HOURS);
+		Deadline.Binding binding = deadline.bind();
+		try {
+			Iterator<Map.Entry<String, char[]>> cancelling = new Iterator<Map.Entry<String, char[]>>() {
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				public Map.Entry<String, char[]> next() {
+					//the deadline expires while the first file is parsed
+					deadline.cancel();
+					return iterator.next();
+				}
+			};
+			UMLModelASTReader.ofSources(cancelling, Collections.singleton("src"), new SymbolTable());
+			Assert.fail("Expected the parsing to time out");
+		}
+		catch(RefactoringMinerTimedOutException e) {
+			//the second file is not read
+			Assert.assertTrue(iterator.hasNext());
+		}
+		finally {
+			binding.close();
+		}
+	}
+
+	@Test
+	public void testAllFilesAreParsedBeforeTheDeadline() throws Exception {
+		Map<String, char[]> sources = new LinkedHashMap<String, char[]>();
+		sources.put("src/p/A.java", "package p;\nclass A {}\n".toCharArray());
+		sources.put("src/p/B.java", "package p;\nclass B {}\n".toCharArray());
+		Deadline.Binding binding = Deadline.after(1, TimeUnit.HOURS).bind();
+		try {
+			UMLModel model = UMLModelASTReader.ofSources(sources.entrySet().iterator(), Collections.singleton("src"), new SymbolTable()).getUmlModel();
+			Assert.assertEquals(2, model.getClassList().size());
+		}
+		finally {
+			binding.close();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package gr.uom.java.xmi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UMLModelFootprintTest {
+	private static final String SOURCE =
+			"package p;\n" +
+			"import java.util.*;\n" +
+			"public class A<T extends Comparable<T>> implements Comparator<T> {\n" +
+			"	@Deprecated private final List<Map<String, T[]>> items = new ArrayList<>();\n" +
+			"	public int compare(T a, T b) { return a.compareTo(b); }\n" +
+			"	public Runnable task(final String... names) {\n" +
+			"		Comparator<String> c = (x, y) -> x.length() - y.length();\n" +
+			"		return new Runnable() {\n" +
+			"			public void run() {\n" +
+			"				for(String name : names) {\n" +
+			"					new Thread(new Runnable() { public void run() { System.out.println(name); } }).start();\n" +
+			"				}\n" +
+			"				try { items.clear(); } catch(IllegalStateException | UnsupportedOperationException e) { throw e; }\n" +
+			"			}\n" +
+			"		};\n" +
+			"	}\n" +
+			"	enum Kind { FIRST(1), SECOND(2); Kind(int i) {} }\n" +
+			"}\n";
+
+	@Test
+	public void testModelRetainsNoJdtObjects() {
+		Map<String, char[]> sources = new LinkedHashMap<String, char[]>();
+		sources.put("src/p/A.java", SOURCE.toCharArray());
+		UMLModel model = UMLModelASTReader.ofSources(sources, Collections.singleton("src/p")).getUmlModel();
+
+		UMLModelFootprint footprint = UMLModelFootprint.of(model);
+		Assert.assertEquals(footprint.getJdtReferences().toString(), 0, footprint.getJdtObjectCount());
+		Assert.assertTrue(footprint.getObjectCount() > 0);
+		Assert.assertTrue(footprint.getEstimatedBytes() > SOURCE.length());
+	}
+}
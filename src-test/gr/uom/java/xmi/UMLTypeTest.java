@@ -0,0 +1,38 @@
+package gr.uom.java.xmi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UMLTypeTest {
+
+	@Test
+	public void testTypesParsedFromStringsAreSharedAndUnmodifiable() {
+		LeafType type = UMLType.extractTypeObject("java.util.Map<String,List<Integer>>");
+		Assert.assertSame(type, UMLType.extractTypeObject("java.util.Map<String,List<Integer>>"));
+		Assert.assertEquals(2, type.getTypeArguments().size());
+		try {
+			type.setVarargs();
+			Assert.fail();
+		} catch(UnsupportedOperationException e) {
+			Assert.assertEquals(0, type.getArrayDimension());
+		}
+		try {
+			type.getTypeArguments().clear();
+			Assert.fail();
+		} catch(UnsupportedOperationException e) {
+			Assert.assertEquals(2, type.getTypeArguments().size());
+		}
+		try {
+			type.getTypeArguments().get(1).getTypeArguments().clear();
+			Assert.fail();
+		} catch(UnsupportedOperationException e) {
+			Assert.assertEquals("Map<String,List<Integer>>", type.toString());
+		}
+		try {
+			type.getAnnotations().add(null);
+			Assert.fail();
+		} catch(UnsupportedOperationException e) {
+			Assert.assertTrue(type.getAnnotations().isEmpty());
+		}
+	}
+}
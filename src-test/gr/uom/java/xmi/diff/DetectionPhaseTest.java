@@ -0,0 +1,110 @@
+package gr.uom.java.xmi.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.test.TestFixtures;
+
+import gr.uom.java.xmi.UMLModel;
+
+public class DetectionPhaseTest {
+	private static final String[] BEFORE = {
+			"src/p/Shape.java",
+			TestFixtures.SHAPE_BEFORE,
+			"src/p/Util.java",
+			"package p;\n" +
+			"public class Util {\n" +
+			"	public static String pad(String s, int n) {\n" +
+			"		StringBuilder sb = new StringBuilder(s);\n" +
+			"		while(sb.length() < n) {\n" +
+			"			sb.append(' ');\n" +
+			"		}\n" +
+			"		return sb.toString();\n" +
+			"	}\n" +
+			"}\n",
+			"src/q/Old.java",
+			"package q;\n" +
+			"public class Old {\n" +
+			"	private java.util.List<String> names = new java.util.ArrayList<String>();\n" +
+			"	public void add(String name) {\n" +
+			"		if(name != null && !names.contains(name)) {\n" +
+			"			names.add(name);\n" +
+			"		}\n" +
+			"	}\n" +
+			"	public int count() {\n" +
+			"		return names.size();\n" +
+			"	}\n" +
+			"}\n"
+	};
+	private static final String[] AFTER = {
+			"src/p/Shape.java",
+			TestFixtures.SHAPE_AFTER,
+			"src/p/Util.java",
+			"package p;\n" +
+			"public class Util {\n" +
+			"}\n",
+			"src/r/Names.java",
+			"package r;\n" +
+			"public class Names {\n" +
+			"	private java.util.List<String> names = new java.util.ArrayList<String>();\n" +
+			"	public void add(String name) {\n" +
+			"		if(name != null && !names.contains(name)) {\n" +
+			"			names.add(name);\n" +
+			"		}\n" +
+			"	}\n" +
+			"	public int count() {\n" +
+			"		return names.size();\n" +
+			"	}\n" +
+			"}\n"
+	};
+
+	@Test
+	public void testRestrictedRunsReportTheFilteredRefactoringsOfAFullRun() throws Exception {
+		List<Refactoring> all = detect(null);
+		Set<RefactoringType> detectedTypes = EnumSet.noneOf(RefactoringType.class);
+		for(Refactoring refactoring : all) {
+			detectedTypes.add(refactoring.getRefactoringType());
+		}
+		Assert.assertTrue(detectedTypes.toString(), detectedTypes.size() >= 6);
+
+		for(RefactoringType type : RefactoringType.values()) {
+			Set<RefactoringType> types = EnumSet.of(type);
+			Assert.assertEquals(type.toString(), describe(filter(all, types)), describe(filter(detect(types), types)));
+		}
+		Set<RefactoringType> classLevelTypes = EnumSet.of(RefactoringType.MOVE_CLASS, RefactoringType.MOVE_RENAME_CLASS, RefactoringType.RENAME_PACKAGE);
+		Assert.assertEquals(describe(filter(all, classLevelTypes)), describe(filter(detect(classLevelTypes), classLevelTypes)));
+	}
+
+	private static List<Refactoring> detect(Set<RefactoringType> types) throws Exception {
+		//the diff updates the models it compares, so each run reads them again
+		UMLModel before = TestFixtures.read(BEFORE);
+		UMLModel after = TestFixtures.read(AFTER);
+		return before.diff(after, Collections.<String, String>emptyMap(), types).getRefactorings();
+	}
+
+	private static List<Refactoring> filter(List<Refactoring> refactorings, Set<RefactoringType> types) {
+		List<Refactoring> filtered = new ArrayList<Refactoring>();
+		for(Refactoring refactoring : refactorings) {
+			if(types.contains(refactoring.getRefactoringType())) {
+				filtered.add(refactoring);
+			}
+		}
+		return filtered;
+	}
+
+	private static List<String> describe(List<Refactoring> refactorings) {
+		List<String> descriptions = new ArrayList<String>();
+		for(Refactoring refactoring : refactorings) {
+			descriptions.add(refactoring.toString());
+		}
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+}
@@ -0,0 +1,58 @@
+package org.refactoringminer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.refactoringminer.util.Metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class MetricsHttpHandlerTest {
+	private final Metrics metrics = new Metrics();
+	private HttpServer server;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/metrics", new MetricsHttpHandler(metrics));
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testMetricsAreServedInTheTextFormat() throws Exception {
+		metrics.increment("refactoringminer_commits_total");
+		metrics.registerGauge("refactoringminer_active_workers", () -> 2);
+		URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/metrics");
+		HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			Assert.assertEquals(200, connection.getResponseCode());
+			Assert.assertEquals("text/plain; version=0.0.4; charset=utf-8", connection.getContentType());
+			StringBuilder expected = new StringBuilder();
+			metrics.writeText(expected);
+			Assert.assertEquals(expected.toString(), IOUtils.toString(in, StandardCharsets.UTF_8));
+			Assert.assertEquals(
+					"# TYPE refactoringminer_commits_total counter\n" +
+					"refactoringminer_commits_total 1\n" +
+					"# TYPE refactoringminer_active_workers gauge\n" +
+					"refactoringminer_active_workers 2\n", expected.toString());
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+}
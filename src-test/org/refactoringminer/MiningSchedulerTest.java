@@ -0,0 +1,103 @@
+package org.refactoringminer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.test.TestFixtures;
+
+public class MiningSchedulerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private final List<String> deliveries = Collections.synchronizedList(new ArrayList<String>());
+	//the repository name and the position in its history of each commit
+	private final Map<String, String> labels = new ConcurrentHashMap<String, String>();
+
+	@Test
+	public void testCommitsAreDeliveredInOrder() throws Exception {
+		MiningScheduler.Job job = createRepository("a", 8);
+		MiningScheduler scheduler = new MiningScheduler(4, 60);
+		scheduler.run(Collections.singletonList(job), j -> new RecordingHandler("a"));
+
+		List<String> expected = new ArrayList<String>();
+		for (int i = 1; i <= 8; i++) {
+			expected.add("a" + i);
+		}
+		expected.add("a finished with 8 commits, 0 errors and 8 refactorings");
+		Assert.assertEquals(expected, deliveries);
+		Assert.assertEquals(8, scheduler.getProgress().getAnalyzedCommitCount());
+		Assert.assertEquals(0, scheduler.getProgress().getErrorCommitCount());
+	}
+
+	@Test
+	public void testRepositoriesTakeTurns() throws Exception {
+		List<MiningScheduler.Job> jobs = Arrays.asList(
+				createRepository("a", 3),
+				createRepository("b", 5),
+				createRepository("c", 3));
+		//a single worker takes the commits of the active repositories in turn, and c waits until a is done
+		MiningScheduler scheduler = new MiningScheduler(1, 60);
+		scheduler.setMaxActiveRepositories(2);
+		scheduler.run(jobs, job -> new RecordingHandler(new File(job.getRepositoryFolder()).getName()));
+
+		Assert.assertEquals(Arrays.asList(
+				"a1", "b1", "a2", "b2", "a3", "a finished with 3 commits, 0 errors and 3 refactorings",
+				"b3", "c1", "b4", "c2", "b5", "b finished with 5 commits, 0 errors and 5 refactorings",
+				"c3", "c finished with 3 commits, 0 errors and 3 refactorings"), deliveries);
+		Assert.assertEquals(3, scheduler.getProgress().getFinishedRepositoryCount());
+		Assert.assertEquals(11, scheduler.getProgress().getRefactoringCount());
+	}
+
+	/**
+	 * Creates a repository whose commits after the first one each rename the method of a class.
+	 * @return the job mining the commits after the first one
+	 */
+	private MiningScheduler.Job createRepository(String name, int commitCount) throws Exception {
+		File directory = folder.newFolder(name);
+		try (Git git = Git.init().setDirectory(directory).call()) {
+			//the commits of each repository have their own ids
+			TestFixtures.write(directory, "src/" + name + "/A.java", TestFixtures.classA(name, "m0"));
+			RevCommit root = TestFixtures.commit(git, "root");
+			for (int i = 1; i <= commitCount; i++) {
+				TestFixtures.write(directory, "src/" + name + "/A.java", TestFixtures.classA(name, "m" + i));
+				labels.put(TestFixtures.commit(git, "rename " + i).getId().getName(), name + i);
+			}
+			return new MiningScheduler.Job(directory.getPath(), root.getId().getName(), null);
+		}
+	}
+
+	private class RecordingHandler extends RefactoringHandler {
+		private final String name;
+
+		private RecordingHandler(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void handle(String commitId, List<Refactoring> refactorings) {
+			deliveries.add(labels.get(commitId));
+		}
+
+		@Override
+		public void handleException(String commitId, Exception e) {
+			deliveries.add(labels.get(commitId) + " failed with " + e);
+		}
+
+		@Override
+		public void onFinish(int refactoringsCount, int commitsCount, int errorCommitsCount) {
+			deliveries.add(name + " finished with " + commitsCount + " commits, " + errorCommitsCount + " errors and " + refactoringsCount + " refactorings");
+		}
+	}
+}
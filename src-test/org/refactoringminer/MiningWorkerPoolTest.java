@@ -0,0 +1,124 @@
+package org.refactoringminer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.test.TestFixtures;
+import org.refactoringminer.util.BinaryResultWriter;
+import org.refactoringminer.util.Metrics;
+
+public class MiningWorkerPoolTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A worker that crashes on the commits named crash-always, on the first attempt at the commits named crash-once,
+	 * and never answers for the commits named hang. The repository folder holds the markers of the first attempts.
+	 */
+	public static class FaultyWorker {
+		public static void main(String[] args) throws Exception {
+			FileOutputStream results = new FileOutputStream(FileDescriptor.out);
+			try (BinaryResultWriter writer = new BinaryResultWriter(results, null);
+					BufferedReader commits = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+				writer.flush();
+				String commitId;
+				while ((commitId = commits.readLine()) != null) {
+					if (commitId.equals("crash-always") || (commitId.equals("crash-once") && new File(args[0], commitId).createNewFile())) {
+						System.exit(1);
+					}
+					if (commitId.equals("hang")) {
+						Thread.sleep(Long.MAX_VALUE);
+					}
+					writer.writeCommit(null, commitId, Collections.<Refactoring>emptyList());
+					writer.flush();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCrashedAndHungWorkersAreReplacedAndTheirCommitsRetried() throws Exception {
+		long restarts = restarts();
+		MiningWorkerPool pool = new MiningWorkerPool(folder.getRoot().getPath(), 1, "64m", 1);
+		pool.setWorkerMainClass(FaultyWorker.class.getName());
+		pool.setKillGraceSeconds(0);
+		RecordingHandler handler = new RecordingHandler();
+		pool.detect(Arrays.asList("first", "crash-once", "crash-always", "hang", "last"), handler);
+
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("first", "crash-once", "last")), handler.analyzed.keySet());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("crash-always", "hang")), handler.errors.keySet());
+		Assert.assertTrue(handler.errors.get("crash-always"), handler.errors.get("crash-always").contains("exited with code 1"));
+		Assert.assertTrue(handler.errors.get("hang"), handler.errors.get("hang").contains("killed after 1 seconds"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("crash-always", "hang")), new HashSet<String>(pool.getQuarantinedCommits()));
+		//crash-once once, crash-always and hang in both attempts
+		Assert.assertEquals(5, restarts() - restarts);
+		Assert.assertEquals(Arrays.asList(5, 2, 0), handler.finished);
+	}
+
+	@Test
+	public void testTimedOutCommitsAreReportedAsErrors() throws Exception {
+		RevCommit root;
+		RevCommit commit;
+		try (Git git = Git.init().setDirectory(folder.getRoot()).call()) {
+			TestFixtures.write(folder.getRoot(), "src/p/A.java", TestFixtures.classA("p", "m"));
+			root = TestFixtures.commit(git, "root");
+			TestFixtures.write(folder.getRoot(), "src/p/A.java", TestFixtures.classA("p", "n"));
+			commit = TestFixtures.commit(git, "rename");
+		}
+		//a zero timeout expires before the files of the commit are loaded
+		MiningWorkerPool pool = new MiningWorkerPool(folder.getRoot().getPath(), 1, "256m", 0);
+		RecordingHandler handler = new RecordingHandler();
+		pool.detect(Arrays.asList(root.getId().getName(), commit.getId().getName()), handler);
+
+		Assert.assertEquals(Collections.singleton(root.getId().getName()), handler.analyzed.keySet());
+		Assert.assertEquals(RefactoringMinerTimedOutException.class, handler.failures.get(commit.getId().getName()).getClass());
+		Assert.assertTrue(pool.getQuarantinedCommits().isEmpty());
+	}
+
+	private static long restarts() {
+		return Metrics.getSharedInstance().snapshot().getCounter(MiningWorkerPool.WORKER_RESTARTS_METRIC);
+	}
+
+	private static class RecordingHandler extends RefactoringHandler {
+		private final Map<String, List<Refactoring>> analyzed = new LinkedHashMap<String, List<Refactoring>>();
+		private final Map<String, String> errors = new LinkedHashMap<String, String>();
+		private final Map<String, Exception> failures = new LinkedHashMap<String, Exception>();
+		private final List<Integer> finished = new ArrayList<Integer>();
+
+		@Override
+		public void handle(String commitId, List<Refactoring> refactorings) {
+			analyzed.put(commitId, refactorings);
+		}
+
+		@Override
+		public void handleException(String commitId, Exception e) {
+			errors.put(commitId, e.getMessage());
+			failures.put(commitId, e);
+		}
+
+		@Override
+		public void onFinish(int refactoringsCount, int commitsCount, int errorCommitsCount) {
+			finished.addAll(Arrays.asList(commitsCount, errorCommitsCount, refactoringsCount));
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.refactoringminer;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.test.TestFixtures;
+
+public class RefactoringMinerServiceTest {
+	private static final String GIT_URL = "https://github.com/example/corpus.git";
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private final AtomicInteger detections = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final RefactoringMinerService service = new RefactoringMinerService(4, 10, 10) {
+		@Override
+		protected void detect(String gitURL, String commitId, int timeout, RefactoringHandler handler) {
+			detections.incrementAndGet();
+			switch(commitId) {
+			case "timeout":
+				//like GitHistoryRefactoringMinerImpl.detectRefactorings
+				handler.handleException(commitId, new RefactoringMinerTimedOutException());
+				handler.handle(commitId, Collections.<Refactoring>emptyList());
+				break;
+			case "error":
+				handler.handleException(commitId, new IOException("GitHub API failure"));
+				handler.handle(commitId, Collections.<Refactoring>emptyList());
+				break;
+			case "blocked":
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				handler.handle(commitId, Collections.<Refactoring>emptyList());
+				break;
+			case "silent":
+				break;
+			default:
+				handler.handle(commitId, Collections.<Refactoring>emptyList());
+			}
+		}
+	};
+
+	@After
+	public void shutdown() {
+		release.countDown();
+		service.shutdown();
+	}
+
+	@Test
+	public void testAnalyzedCommitsAreCached() throws Exception {
+		Assert.assertEquals(Collections.emptyList(), service.detectAtCommit(GIT_URL, "analyzed", 10).get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(Collections.emptyList(), service.detectAtCommit(GIT_URL, "analyzed", 20).get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(1, detections.get());
+		Assert.assertEquals(1, service.getCacheHits());
+	}
+
+	@Test
+	public void testTimeoutsAreReportedAndNotCached() throws Exception {
+		Assert.assertTrue(failure(service.detectAtCommit(GIT_URL, "timeout", 10)) instanceof RefactoringMinerTimedOutException);
+		Assert.assertTrue(failure(service.detectAtCommit(GIT_URL, "timeout", 10)) instanceof RefactoringMinerTimedOutException);
+		Assert.assertEquals(2, detections.get());
+	}
+
+	@Test
+	public void testFailuresAreReportedAndNotCached() throws Exception {
+		Throwable failure = failure(service.detectAtCommit(GIT_URL, "error", 10));
+		Assert.assertTrue(failure instanceof IOException);
+		Assert.assertEquals("GitHub API failure", failure.getMessage());
+		failure(service.detectAtCommit(GIT_URL, "error", 10));
+		Assert.assertEquals(2, detections.get());
+	}
+
+	@Test
+	public void testDetectionsReportingNothingFail() throws Exception {
+		Throwable failure = failure(service.detectAtCommit(GIT_URL, "silent", 10));
+		Assert.assertTrue(failure instanceof IllegalStateException);
+		Assert.assertEquals(0, service.getCacheHits());
+	}
+
+	@Test
+	public void testOnlyRequestsWithTheSameTimeoutShareADetection() throws Exception {
+		CompletableFuture<List<Refactoring>> first = service.detectAtCommit(GIT_URL, "blocked", 10);
+		CompletableFuture<List<Refactoring>> second = service.detectAtCommit(GIT_URL, "blocked", 10);
+		CompletableFuture<List<Refactoring>> longer = service.detectAtCommit(GIT_URL, "blocked", 60);
+		Assert.assertSame(first, second);
+		Assert.assertNotSame(first, longer);
+		Assert.assertEquals(1, service.getCoalescedRequests());
+		release.countDown();
+		first.get(10, TimeUnit.SECONDS);
+		longer.get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(2, detections.get());
+	}
+
+	@Test
+	public void testLocalCommitsAreResolvedBeforeTheyAreCached() throws Exception {
+		Git git = Git.init().setDirectory(folder.getRoot()).call();
+		TestFixtures.write(folder.getRoot(), "src/p/A.java", TestFixtures.classA("p", "m"));
+		RevCommit root = TestFixtures.commit(git, "root");
+		TestFixtures.write(folder.getRoot(), "src/p/A.java", TestFixtures.classA("p", "n"));
+		RevCommit commit = TestFixtures.commit(git, "rename");
+		service.addRepository("corpus", git.getRepository());
+
+		List<Refactoring> refactorings = service.detectAtLocalCommit("corpus", "HEAD", 60).get(60, TimeUnit.SECONDS);
+		Assert.assertEquals(1, refactorings.size());
+		Assert.assertSame(refactorings, service.detectAtLocalCommit("corpus", commit.getId().abbreviate(8).name(), 60).get(10, TimeUnit.SECONDS));
+		Assert.assertSame(refactorings, service.detectAtLocalCommit("corpus", commit.getId().getName(), 60).get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(2, service.getCacheHits());
+
+		//a branch is answered with the refactorings of the commit it points to
+		git.branchCreate().setName("start").setStartPoint(root).call();
+		Assert.assertEquals(Collections.emptyList(), service.detectAtLocalCommit("corpus", "start", 60).get(10, TimeUnit.SECONDS));
+		try {
+			service.detectAtLocalCommit("corpus", "0123456789abcdef0123456789abcdef01234567", 60);
+			Assert.fail("Expected an unknown commit");
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("Unknown commit 0123456789abcdef0123456789abcdef01234567", e.getMessage());
+		}
+	}
+
+	private static Throwable failure(CompletableFuture<List<Refactoring>> future) throws Exception {
+		try {
+			future.get(10, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			return e.getCause();
+		}
+		Assert.fail("Expected the detection to fail");
+		return null;
+	}
+}
@@ -0,0 +1,53 @@
+package org.refactoringminer.api;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeadlineTest {
+
+	@Test
+	public void testExtendedDeadlineExpiresLater() {
+		Deadline expired = Deadline.after(0, TimeUnit.SECONDS);
+		Deadline extended = expired.extendedBy(1, TimeUnit.HOURS);
+		Assert.assertTrue(expired.isExpired());
+		Assert.assertFalse(extended.isExpired());
+		Assert.assertTrue(extended.getRemainingNanos() > TimeUnit.MINUTES.toNanos(59));
+		Assert.assertTrue(Deadline.after(0, TimeUnit.SECONDS).extendedBy(0, TimeUnit.SECONDS).isExpired());
+	}
+
+	@Test
+	public void testCancellingADeadlineCancelsItsExtension() {
+		Deadline deadline = Deadline.after(1, TimeUnit.HOURS);
+		Deadline extended = deadline.extendedBy(1, TimeUnit.HOURS);
+		deadline.cancel();
+		Assert.assertTrue(extended.isExpired());
+		Assert.assertEquals(0, extended.getRemainingNanos());
+	}
+
+	@Test
+	public void testTheBoundDeadlineIsRestored() throws Exception {
+		Deadline outer = Deadline.after(1, TimeUnit.HOURS);
+		Deadline.Binding outerBinding = outer.bind();
+		try {
+			Deadline.Binding innerBinding = Deadline.after(0, TimeUnit.SECONDS).bind();
+			try {
+				Deadline.check();
+				Assert.fail("Expected the inner deadline to have expired");
+			}
+			catch(RefactoringMinerTimedOutException e) {
+				//expected
+			}
+			finally {
+				innerBinding.close();
+			}
+			Assert.assertSame(outer, Deadline.current());
+			Deadline.check();
+		}
+		finally {
+			outerBinding.close();
+		}
+		Assert.assertNull(Deadline.current());
+	}
+}
@@ -0,0 +1,74 @@
+package org.refactoringminer.api;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MiningScopeTest {
+
+	@Test
+	public void testPathGlobs() {
+		MiningScope scope = MiningScope.ofPaths("module-a/**", "tools/*.java");
+		Assert.assertTrue(scope.contains("module-a/src/main/java/a/A.java"));
+		Assert.assertTrue(scope.contains("tools/Tool.java"));
+		Assert.assertFalse(scope.contains("tools/nested/Tool.java"));
+		Assert.assertFalse(scope.contains("module-b/src/main/java/a/A.java"));
+		Assert.assertFalse(scope.contains("other/module-a/A.java"));
+	}
+
+	@Test
+	public void testPackagePrefixes() {
+		MiningScope scope = MiningScope.ofPackages("org.example.core");
+		Assert.assertTrue(scope.contains("org/example/core/A.java"));
+		Assert.assertTrue(scope.contains("src/org/example/core/A.java"));
+		Assert.assertTrue(scope.contains("module-a/src/main/java/org/example/core/A.java"));
+		Assert.assertTrue(scope.contains("module-a/src/test/java/org/example/core/sub/ATest.java"));
+		//a package prefix matches whole package names
+		Assert.assertFalse(scope.contains("src/org/example/corex/A.java"));
+		Assert.assertFalse(scope.contains("src/org/example/A.java"));
+		//only right below a source folder
+		Assert.assertFalse(scope.contains("src/main/resources/templates/org/example/core/A.java"));
+		Assert.assertFalse(scope.contains("src/com/vendor/org/example/core/A.java"));
+		//the file name is not part of the package
+		Assert.assertFalse(scope.contains("src/org/example/core.java"));
+	}
+
+	@Test
+	public void testChangesOutsideTheScopeAreNotAnalyzed() {
+		MiningScope scope = MiningScope.ofPaths("a/**");
+		MiningScope.ChangeFilter changeFilter = scope.changeFilter(Arrays.asList("b/Moved.java"), Arrays.asList("a/Moved.java"));
+		Assert.assertTrue(changeFilter.accepts("a/Changed.java", "a/Changed.java"));
+		Assert.assertTrue(changeFilter.accepts("a/Moved.java", null));
+		Assert.assertFalse(changeFilter.accepts(null, "b/Moved.java"));
+		Assert.assertFalse(changeFilter.accepts("b/Changed.java", "b/Changed.java"));
+	}
+
+	@Test
+	public void testContextModeAnalyzesTheFilesOfMovesAcrossTheScope() {
+		MiningScope scope = MiningScope.ofPaths("a/**").withContext();
+		Assert.assertTrue(scope.isContextMode());
+		MiningScope.ChangeFilter changeFilter = scope.changeFilter(
+				Arrays.asList("a/MovedIn.java", "b/MovedOut.java", "b/Unrelated.java", "c/Renamed.java"),
+				Arrays.asList("b/MovedIn.java", "a/MovedOut.java", "b/Removed.java", "b/Renamed.java"));
+		//renames across the scope boundary are accepted through their path in the scope
+		Assert.assertTrue(changeFilter.accepts("a/Old.java", "b/Old.java"));
+		//classes moved into and out of the scope
+		Assert.assertTrue(changeFilter.accepts("b/MovedIn.java", null));
+		Assert.assertTrue(changeFilter.accepts(null, "b/MovedOut.java"));
+		//unrelated changes outside the scope
+		Assert.assertFalse(changeFilter.accepts(null, "b/Unrelated.java"));
+		Assert.assertFalse(changeFilter.accepts("b/Removed.java", null));
+		Assert.assertFalse(changeFilter.accepts("b/Renamed.java", "c/Renamed.java"));
+		Assert.assertFalse(changeFilter.accepts("b/Changed.java", "b/Changed.java"));
+	}
+
+	@Test
+	public void testWithoutContextNoFileOutsideTheScopeIsAnalyzed() {
+		MiningScope scope = new MiningScope(Collections.<String>emptyList(), Arrays.asList("org.example"), false);
+		MiningScope.ChangeFilter changeFilter = scope.changeFilter(Arrays.asList("lib/Moved.java"), Arrays.asList("src/org/example/Moved.java"));
+		Assert.assertTrue(changeFilter.accepts("src/org/example/Moved.java", null));
+		Assert.assertFalse(changeFilter.accepts(null, "lib/Moved.java"));
+	}
+}
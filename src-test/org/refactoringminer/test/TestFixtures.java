@@ -0,0 +1,128 @@
+package org.refactoringminer.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+
+/**
+ * The temporary repositories and the models shared by the tests.
+ */
+public final class TestFixtures {
+	public static final String SHAPE_BEFORE =
+			"package p;\n" +
+			"public class Shape {\n" +
+			"	private int width;\n" +
+			"	private int height;\n" +
+			"	private String label;\n" +
+			"	public int compute(int x) {\n" +
+			"		int result = width * height * x;\n" +
+			"		return result;\n" +
+			"	}\n" +
+			"	public void print(java.io.PrintStream out) {\n" +
+			"		out.println(\"Shape\");\n" +
+			"		out.println(\"width: \" + width);\n" +
+			"		out.println(\"height: \" + height);\n" +
+			"		out.println(\"label: \" + label);\n" +
+			"		out.println(\"area: \" + compute(1));\n" +
+			"	}\n" +
+			"}\n";
+
+	/**
+	 * The Shape class after a rename of compute and its variables, the extraction of printHeader, and the move of Util.pad.
+	 */
+	public static final String SHAPE_AFTER =
+			"package p;\n" +
+			"public class Shape {\n" +
+			"	private int width;\n" +
+			"	private int height;\n" +
+			"	private String label;\n" +
+			"	public int calculate(final int factor) {\n" +
+			"		int area = width * height * factor;\n" +
+			"		return area;\n" +
+			"	}\n" +
+			"	public void print(java.io.PrintStream out) {\n" +
+			"		printHeader(out);\n" +
+			"		out.println(\"label: \" + label);\n" +
+			"		out.println(\"area: \" + calculate(1));\n" +
+			"	}\n" +
+			"	private void printHeader(java.io.PrintStream out) {\n" +
+			"		out.println(\"Shape\");\n" +
+			"		out.println(\"width: \" + width);\n" +
+			"		out.println(\"height: \" + height);\n" +
+			"	}\n" +
+			"	public static String pad(String s, int n) {\n" +
+			"		StringBuilder sb = new StringBuilder(s);\n" +
+			"		while(sb.length() < n) {\n" +
+			"			sb.append(' ');\n" +
+			"		}\n" +
+			"		return sb.toString();\n" +
+			"	}\n" +
+			"}\n";
+
+	private TestFixtures() {
+	}
+
+	/**
+	 * A class whose method the repositories of the tests rename from one commit to the next.
+	 */
+	public static String classA(String packageName, String methodName) {
+		return "package " + packageName + ";\n" +
+				"public class A {\n" +
+				"	private int count;\n" +
+				"	public int " + methodName + "(int step) {\n" +
+				"		count += step;\n" +
+				"		return count * 2;\n" +
+				"	}\n" +
+				"}\n";
+	}
+
+	/**
+	 * Reads the model of the files in the src folder.
+	 * @param files the path of each file followed by its source
+	 */
+	public static UMLModel read(String... files) {
+		Map<String, char[]> sources = new LinkedHashMap<String, char[]>();
+		for(int i=0; i<files.length; i+=2) {
+			sources.put(files[i], files[i+1].toCharArray());
+		}
+		return UMLModelASTReader.ofSources(sources, Collections.singleton("src")).getUmlModel();
+	}
+
+	public static void write(File directory, String path, String content) throws IOException {
+		File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static void delete(File directory, String path) throws IOException {
+		Files.delete(new File(directory, path).toPath());
+	}
+
+	/**
+	 * Commits every change of the working tree, including the deleted files.
+	 * @return the commit, parsed with its parent like in GitHistoryRefactoringMinerImpl.detectAtCommit
+	 */
+	public static RevCommit commit(Git git, String message) throws Exception {
+		git.add().addFilepattern(".").call();
+		git.add().setUpdate(true).addFilepattern(".").call();
+		RevCommit commit = git.commit().setMessage(message).setAuthor("author", "author@example.com").setCommitter("author", "author@example.com").call();
+		try (RevWalk walk = new RevWalk(git.getRepository())) {
+			RevCommit parsedCommit = walk.parseCommit(commit);
+			if (parsedCommit.getParentCount() > 0) {
+				walk.parseCommit(parsedCommit.getParent(0));
+			}
+			return parsedCommit;
+		}
+	}
+}
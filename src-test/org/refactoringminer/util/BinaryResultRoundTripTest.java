@@ -0,0 +1,141 @@
+package org.refactoringminer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Assert;
+import org.junit.Test;
+import org.refactoringminer.api.DetachedRefactoring;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.test.TestFixtures;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.diff.CodeRange;
+
+public class BinaryResultRoundTripTest {
+	private static final String REPOSITORY = "https://github.com/example/corpus.git";
+
+	@Test
+	public void testDetectedRefactoringsAreReadBackUnchanged() throws Exception {
+		List<Refactoring> refactorings = detect();
+		Assert.assertFalse(refactorings.isEmpty());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (BinaryResultWriter writer = new BinaryResultWriter(bytes, REPOSITORY)) {
+			writer.handle("1111111111111111111111111111111111111111", refactorings);
+		}
+
+		try (BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			BinaryResultReader.Commit commit = reader.readCommit();
+			Assert.assertEquals(REPOSITORY, commit.getRepository());
+			Assert.assertEquals("1111111111111111111111111111111111111111", commit.getCommitId());
+			Assert.assertNull(commit.getError());
+			assertSameRefactorings(refactorings, commit.getRefactorings());
+			Assert.assertNull(reader.readCommit());
+		}
+	}
+
+	@Test
+	public void testRepeatedStringsAreReadFromThePool() throws Exception {
+		List<Refactoring> refactorings = Arrays.<Refactoring>asList(
+				renameMethod("src/p/A.java", "p.A", "m", "n", null),
+				renameMethod("src/p/A.java", "p.A", "n", "o", "o()"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int firstCommitSize;
+		int secondCommitSize;
+		try (BinaryResultWriter writer = new BinaryResultWriter(bytes, REPOSITORY)) {
+			writer.flush();
+			int headerSize = bytes.size();
+			writer.handle("1111111111111111111111111111111111111111", refactorings);
+			writer.flush();
+			firstCommitSize = bytes.size() - headerSize;
+			writer.writeCommit("https://github.com/example/other.git", "2222222222222222222222222222222222222222", refactorings);
+			writer.handle("3333333333333333333333333333333333333333", refactorings);
+			writer.flush();
+			secondCommitSize = bytes.size() - headerSize - firstCommitSize;
+		}
+		//the file paths, class names and refactoring names are only written with the first commit
+		Assert.assertTrue(firstCommitSize + " " + secondCommitSize, secondCommitSize < 2 * firstCommitSize);
+
+		try (BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			List<String> repositories = new ArrayList<String>();
+			for(BinaryResultReader.Commit commit = reader.readCommit(); commit != null; commit = reader.readCommit()) {
+				repositories.add(commit.getRepository());
+				assertSameRefactorings(refactorings, commit.getRefactorings());
+			}
+			Assert.assertEquals(Arrays.asList(REPOSITORY, "https://github.com/example/other.git", REPOSITORY), repositories);
+		}
+	}
+
+	@Test
+	public void testErrorRecords() throws Exception {
+		List<Refactoring> refactorings = Collections.<Refactoring>singletonList(renameMethod("src/p/A.java", "p.A", "m", "n", "n()"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (BinaryResultWriter writer = new BinaryResultWriter(bytes, REPOSITORY)) {
+			writer.writeError(REPOSITORY, "1111111111111111111111111111111111111111", "java.io.IOException", "Analysis failed");
+			writer.handle("2222222222222222222222222222222222222222", refactorings);
+			writer.writeError(REPOSITORY, "3333333333333333333333333333333333333333", "org.refactoringminer.api.RefactoringMinerTimedOutException", null);
+		}
+
+		try (BinaryResultReader reader = new BinaryResultReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			BinaryResultReader.Commit failed = reader.readCommit();
+			Assert.assertEquals(REPOSITORY, failed.getRepository());
+			Assert.assertEquals("1111111111111111111111111111111111111111", failed.getCommitId());
+			Assert.assertEquals("java.io.IOException", failed.getErrorType());
+			Assert.assertEquals("Analysis failed", failed.getError());
+			Assert.assertTrue(failed.getRefactorings().isEmpty());
+			BinaryResultReader.Commit analyzed = reader.readCommit();
+			Assert.assertNull(analyzed.getErrorType());
+			Assert.assertNull(analyzed.getError());
+			assertSameRefactorings(refactorings, analyzed.getRefactorings());
+			BinaryResultReader.Commit timedOut = reader.readCommit();
+			Assert.assertEquals("org.refactoringminer.api.RefactoringMinerTimedOutException", timedOut.getErrorType());
+			Assert.assertEquals("", timedOut.getError());
+			Assert.assertNull(reader.readCommit());
+		}
+
+		//the commits with an error are left out of the JSON
+		StringBuilder json = new StringBuilder();
+		BinaryResultReader.toJSON(new ByteArrayInputStream(bytes.toByteArray()), json);
+		Assert.assertFalse(json.toString().contains("1111111111111111111111111111111111111111"));
+		Assert.assertTrue(json.toString().contains("2222222222222222222222222222222222222222"));
+		Assert.assertTrue(json.toString().contains(refactorings.get(0).toJSON()));
+	}
+
+	private static void assertSameRefactorings(List<Refactoring> expected, List<Refactoring> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for(int i=0; i<expected.size(); i++) {
+			Refactoring refactoring = expected.get(i);
+			Assert.assertEquals(DetachedRefactoring.of(refactoring), actual.get(i));
+			Assert.assertEquals(refactoring.getName(), actual.get(i).getName());
+			//the JSON has every property of the code ranges
+			Assert.assertEquals(refactoring.toJSON(), actual.get(i).toJSON());
+		}
+	}
+
+	private static Refactoring renameMethod(String filePath, String className, String oldName, String newName, String codeElement) {
+		CodeRange before = new CodeRange(filePath, 3, 5, 2, 3, CodeElementType.METHOD_DECLARATION);
+		before.setDescription("original method declaration").setCodeElement(codeElement);
+		CodeRange after = new CodeRange(filePath, 3, 5, 2, 3, CodeElementType.METHOD_DECLARATION);
+		after.setDescription("renamed method declaration").setCodeElement(codeElement);
+		Set<ImmutablePair<String, String>> involvedClasses = new LinkedHashSet<ImmutablePair<String, String>>();
+		involvedClasses.add(new ImmutablePair<String, String>(filePath, className));
+		return new DetachedRefactoring(RefactoringType.RENAME_METHOD, RefactoringType.RENAME_METHOD.getDisplayName(),
+				"Rename Method " + oldName + "() renamed to " + newName + "() in class " + className,
+				Collections.singletonList(before), Collections.singletonList(after), involvedClasses, involvedClasses);
+	}
+
+	private static List<Refactoring> detect() throws Exception {
+		UMLModel before = TestFixtures.read("src/p/Shape.java", TestFixtures.SHAPE_BEFORE);
+		UMLModel after = TestFixtures.read("src/p/Shape.java", TestFixtures.SHAPE_AFTER);
+		return before.diff(after).getRefactorings();
+	}
+}
@@ -0,0 +1,124 @@
+package org.refactoringminer.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.refactoringminer.api.Churn;
+import org.refactoringminer.api.CommitChangeSet;
+import org.refactoringminer.api.MiningScope;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.test.TestFixtures;
+
+public class GitServiceImplTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testChurnOnlyCountsFilesInTheScope() throws Exception {
+		try (Git git = Git.init().setDirectory(folder.getRoot()).call()) {
+			TestFixtures.write(folder.getRoot(), "a/Moved.java", "class Moved {\n\tint one;\n\tint two;\n}\n");
+			TestFixtures.write(folder.getRoot(), "a/Changed.java", "class Changed {\n}\n");
+			TestFixtures.write(folder.getRoot(), "b/Other.java", "class Other {\n}\n");
+			TestFixtures.commit(git, "parent");
+			TestFixtures.delete(folder.getRoot(), "a/Moved.java");
+			TestFixtures.write(folder.getRoot(), "b/Moved.java", "interface Moved {\n\tvoid run();\n}\n");
+			TestFixtures.write(folder.getRoot(), "a/Changed.java", "class Changed {\n\tint added;\n}\n");
+			TestFixtures.write(folder.getRoot(), "b/Other.java", "class Other {\n\tint first;\n\tint second;\n}\n");
+			RevCommit commit = TestFixtures.commit(git, "commit");
+
+			GitServiceImpl gitService = new GitServiceImpl();
+			CommitChangeSet changeSet = gitService.changeSet(git.getRepository(), commit, MiningScope.ofPaths("a/**"), true);
+			Assert.assertEquals(new HashSet<String>(Arrays.asList("a/Moved.java", "a/Changed.java")), new HashSet<String>(changeSet.getFilesBefore()));
+			Assert.assertEquals(Collections.singletonList("a/Changed.java"), changeSet.getFilesCurrent());
+			Assert.assertEquals(1, changeSet.getChurn().getLinesAdded());
+			Assert.assertEquals(4, changeSet.getChurn().getLinesRemoved());
+
+			//the added file with the name of the deleted one is analyzed, but it is outside the scope
+			CommitChangeSet contextChangeSet = gitService.changeSet(git.getRepository(), commit, MiningScope.ofPaths("a/**").withContext(), true);
+			Assert.assertEquals(new HashSet<String>(Arrays.asList("b/Moved.java", "a/Changed.java")), new HashSet<String>(contextChangeSet.getFilesCurrent()));
+			Assert.assertEquals(1, contextChangeSet.getChurn().getLinesAdded());
+			Assert.assertEquals(4, contextChangeSet.getChurn().getLinesRemoved());
+
+			CommitChangeSet unscopedChangeSet = gitService.changeSet(git.getRepository(), commit, null, true);
+			Assert.assertEquals(3, unscopedChangeSet.getFilesCurrent().size());
+			Assert.assertEquals(6, unscopedChangeSet.getChurn().getLinesAdded());
+			Assert.assertEquals(4, unscopedChangeSet.getChurn().getLinesRemoved());
+
+			//the miner reports the churn of the same change set
+			GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+			miner.setMiningScope(MiningScope.ofPaths("a/**"));
+			Churn churn = miner.churnAtCommit(git.getRepository(), commit.getId().getName(), new RefactoringHandler() {});
+			Assert.assertEquals(1, churn.getLinesAdded());
+			Assert.assertEquals(4, churn.getLinesRemoved());
+		}
+	}
+
+	@Test
+	public void testFilesMovedWithoutChangesArePairedByBlobId() throws Exception {
+		try (Git git = Git.init().setDirectory(folder.getRoot()).call()) {
+			TestFixtures.write(folder.getRoot(), "a/A.java", "class A {\n}\n");
+			TestFixtures.write(folder.getRoot(), "a/B.java", "class A {\n}\n");
+			TestFixtures.write(folder.getRoot(), "a/notes.txt", "notes\n");
+			TestFixtures.commit(git, "parent");
+			TestFixtures.delete(folder.getRoot(), "a/A.java");
+			TestFixtures.delete(folder.getRoot(), "a/B.java");
+			TestFixtures.delete(folder.getRoot(), "a/notes.txt");
+			TestFixtures.write(folder.getRoot(), "b/B.java", "class A {\n}\n");
+			TestFixtures.write(folder.getRoot(), "b/A.java", "class A {\n}\n");
+			TestFixtures.write(folder.getRoot(), "b/notes.txt", "notes\n");
+			RevCommit commit = TestFixtures.commit(git, "commit");
+
+			long exactRenames = renames(GitServiceImpl.EXACT_RENAMES_METRIC);
+			CommitChangeSet changeSet = new GitServiceImpl().changeSet(git.getRepository(), commit, null, false);
+			//identical files are paired by their names, and the files that are not java files are not paired
+			Map<String, String> expected = new HashMap<String, String>();
+			expected.put("a/A.java", "b/A.java");
+			expected.put("a/B.java", "b/B.java");
+			Assert.assertEquals(expected, changeSet.getRenamedFilesHint());
+			Assert.assertEquals(2, renames(GitServiceImpl.EXACT_RENAMES_METRIC) - exactRenames);
+		}
+	}
+
+	@Test
+	public void testFilesMovedWithChangesAreNotPairedOverTheRenameLimit() throws Exception {
+		try (Git git = Git.init().setDirectory(folder.getRoot()).call()) {
+			TestFixtures.write(folder.getRoot(), "a/Same.java", "class Same {\n\tint one;\n\tint two;\n\tint three;\n}\n");
+			TestFixtures.write(folder.getRoot(), "a/First.java", "class First {\n\tint one;\n\tint two;\n\tint three;\n\tint four;\n\tint five;\n}\n");
+			TestFixtures.write(folder.getRoot(), "a/Second.java", "class Second {\n\tint six;\n\tint seven;\n\tint eight;\n\tint nine;\n\tint ten;\n}\n");
+			TestFixtures.commit(git, "parent");
+			TestFixtures.delete(folder.getRoot(), "a/Same.java");
+			TestFixtures.delete(folder.getRoot(), "a/First.java");
+			TestFixtures.delete(folder.getRoot(), "a/Second.java");
+			TestFixtures.write(folder.getRoot(), "b/Same.java", "class Same {\n\tint one;\n\tint two;\n\tint three;\n}\n");
+			TestFixtures.write(folder.getRoot(), "b/First.java", "class First {\n\tint one;\n\tint two;\n\tint three;\n\tint four;\n\tint five;\n\tint added;\n}\n");
+			TestFixtures.write(folder.getRoot(), "b/Second.java", "class Second {\n\tint six;\n\tint seven;\n\tint eight;\n\tint nine;\n\tint ten;\n\tint added;\n}\n");
+			RevCommit commit = TestFixtures.commit(git, "commit");
+
+			GitServiceImpl gitService = new GitServiceImpl();
+			Assert.assertEquals(3, gitService.changeSet(git.getRepository(), commit, null, false).getRenamedFilesHint().size());
+
+			long limitExceeded = renames(GitServiceImpl.RENAME_LIMIT_EXCEEDED_METRIC);
+			gitService.setRenameLimit(1);
+			CommitChangeSet changeSet = gitService.changeSet(git.getRepository(), commit, null, false);
+			//the identical file is still paired, and the changed ones are analyzed as added and deleted files
+			Assert.assertEquals(Collections.singletonMap("a/Same.java", "b/Same.java"), changeSet.getRenamedFilesHint());
+			Assert.assertEquals(3, changeSet.getFilesBefore().size());
+			Assert.assertEquals(3, changeSet.getFilesCurrent().size());
+			Assert.assertEquals(1, renames(GitServiceImpl.RENAME_LIMIT_EXCEEDED_METRIC) - limitExceeded);
+		}
+	}
+
+	private static long renames(String metric) {
+		return Metrics.getSharedInstance().snapshot().getCounter(metric);
+	}
+}
@@ -0,0 +1,135 @@
+package org.refactoringminer.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.refactoringminer.api.DetachedRefactoring;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * Compares the streamed JSON with the output of the previous implementation, which built it with {@link JsonStringEncoder}.
+ */
+public class JsonStringEscaperTest {
+	private static final String SPECIAL_CHARACTERS = "quote \" backslash \\ slash / tab \t newline \n return \r"
+			+ " controls \u0000\u0001\b\f\u001f delete \u007f non-ASCII \u00e9\u00df\u4e2d\u6587 \ud83d\ude00 separator \u2028";
+
+	@Test
+	public void testEveryCharacterIsEscapedLikeJsonStringEncoder() throws Exception {
+		for(int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+			String s = "a" + (char)c + "b";
+			StringBuilder escaped = new StringBuilder();
+			JsonStringEscaper.appendEscaped(escaped, s);
+			Assert.assertEquals("char " + c, legacyEscape(s), escaped.toString());
+		}
+		StringBuilder escaped = new StringBuilder();
+		JsonStringEscaper.appendEscaped(escaped, SPECIAL_CHARACTERS);
+		Assert.assertEquals(legacyEscape(SPECIAL_CHARACTERS), escaped.toString());
+	}
+
+	@Test
+	public void testCodeRangeJsonIsUnchanged() {
+		CodeRange codeRange = codeRange("src/p/A.java", "method declaration", "public void m() { String s = \"" + SPECIAL_CHARACTERS + "\"; }");
+		Assert.assertEquals(legacyJSON(codeRange), codeRange.toString());
+		CodeRange withoutCodeElement = codeRange("src/p/A.java", "method declaration", null);
+		Assert.assertEquals(legacyJSON(withoutCodeElement), withoutCodeElement.toString());
+		CodeRange withoutDescription = codeRange("src/p/A.java", null, null);
+		Assert.assertEquals(legacyJSON(withoutDescription), withoutDescription.toString());
+	}
+
+	@Test
+	public void testRefactoringJsonIsUnchanged() throws Exception {
+		Refactoring refactoring = new DetachedRefactoring(RefactoringType.RENAME_METHOD, RefactoringType.RENAME_METHOD.getDisplayName(),
+				"Rename Method\tm() renamed to n() in class p.A " + SPECIAL_CHARACTERS,
+				Arrays.asList(codeRange("src/p/A.java", "original method declaration", "m() \"" + SPECIAL_CHARACTERS + "\""),
+						codeRange("src/p/A.java", "original method invocation", null)),
+				Collections.singletonList(codeRange("src/p/A.java", "renamed method declaration", "n()")),
+				Collections.emptySet(), Collections.emptySet());
+		Assert.assertEquals(legacyJSON(refactoring), refactoring.toJSON());
+		StringBuilder appended = new StringBuilder("[");
+		refactoring.toJSON(appended);
+		Assert.assertEquals("[" + legacyJSON(refactoring), appended.toString());
+		Refactoring withoutLocations = new DetachedRefactoring(RefactoringType.MOVE_SOURCE_FOLDER, RefactoringType.MOVE_SOURCE_FOLDER.getDisplayName(),
+				"Move Source Folder src to source", Collections.<CodeRange>emptyList(), Collections.<CodeRange>emptyList(),
+				Collections.emptySet(), Collections.emptySet());
+		Assert.assertEquals(legacyJSON(withoutLocations), withoutLocations.toJSON());
+	}
+
+	private static CodeRange codeRange(String filePath, String description, String codeElement) {
+		CodeRange codeRange = new CodeRange(filePath, 3, 5, 2, 3, CodeElementType.METHOD_DECLARATION);
+		codeRange.setDescription(description).setCodeElement(codeElement);
+		return codeRange;
+	}
+
+	private static String legacyEscape(String s) {
+		StringBuilder sb = new StringBuilder();
+		JsonStringEncoder.getInstance().quoteAsString(s, sb);
+		return sb.toString();
+	}
+
+	/**
+	 * The previous Refactoring.toJSON, which appended the code range lists with their toString.
+	 */
+	private static String legacyJSON(Refactoring refactoring) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{").append("\n");
+		sb.append("\t").append("\"").append("type").append("\"").append(": ").append("\"").append(refactoring.getName()).append("\"").append(",").append("\n");
+		sb.append("\t").append("\"").append("description").append("\"").append(": ").append("\"");
+		JsonStringEncoder.getInstance().quoteAsString(refactoring.toString().replace('\t', ' '), sb);
+		sb.append("\"").append(",").append("\n");
+		sb.append("\t").append("\"").append("leftSideLocations").append("\"").append(": ").append(legacyJSON(refactoring.leftSide())).append(",").append("\n");
+		sb.append("\t").append("\"").append("rightSideLocations").append("\"").append(": ").append(legacyJSON(refactoring.rightSide())).append("\n");
+		sb.append("}");
+		return sb.toString();
+	}
+
+	private static String legacyJSON(List<CodeRange> codeRanges) {
+		StringBuilder sb = new StringBuilder("[");
+		for(int i=0; i<codeRanges.size(); i++) {
+			if(i > 0) {
+				sb.append(", ");
+			}
+			sb.append(legacyJSON(codeRanges.get(i)));
+		}
+		return sb.append("]").toString();
+	}
+
+	/**
+	 * The previous CodeRange.toString, which escaped only the code element.
+	 */
+	private static String legacyJSON(CodeRange codeRange) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{").append("\n");
+		legacyStringProperty(sb, "filePath", codeRange.getFilePath(), false);
+		legacyIntProperty(sb, "startLine", codeRange.getStartLine(), false);
+		legacyIntProperty(sb, "endLine", codeRange.getEndLine(), false);
+		legacyIntProperty(sb, "startColumn", codeRange.getStartColumn(), false);
+		legacyIntProperty(sb, "endColumn", codeRange.getEndColumn(), false);
+		legacyStringProperty(sb, "codeElementType", codeRange.getCodeElementType().name(), false);
+		legacyStringProperty(sb, "description", codeRange.getDescription(), false);
+		legacyStringProperty(sb, "codeElement", codeRange.getCodeElement() != null ? legacyEscape(codeRange.getCodeElement()) : null, true);
+		sb.append("}");
+		return sb.toString();
+	}
+
+	private static void legacyStringProperty(StringBuilder sb, String propertyName, String value, boolean last) {
+		if(value != null)
+			sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + "\"" + value + "\"");
+		else
+			sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + value);
+		sb.append(last ? "\n" : ",\n");
+	}
+
+	private static void legacyIntProperty(StringBuilder sb, String propertyName, int value, boolean last) {
+		sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + value);
+		sb.append(last ? "\n" : ",\n");
+	}
+}
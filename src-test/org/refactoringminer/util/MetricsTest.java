@@ -0,0 +1,129 @@
+package org.refactoringminer.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsTest {
+
+	@Test
+	public void testCountersAndGaugesText() throws Exception {
+		Metrics metrics = new Metrics();
+		metrics.increment("refactoringminer_commits_total");
+		metrics.add("refactoringminer_commits_total", 2);
+		metrics.add("refactoringminer_renames_total{detection=\"similarity\"}", 4);
+		metrics.add("refactoringminer_renames_total{detection=\"exact\"}", 5);
+		metrics.registerGauge("refactoringminer_active_workers", () -> 2);
+		//a gauge registered again replaces the previous one
+		metrics.registerGauge("refactoringminer_active_workers", () -> 3);
+
+		StringBuilder text = new StringBuilder();
+		metrics.writeText(text);
+		Assert.assertEquals(
+				"# TYPE refactoringminer_commits_total counter\n" +
+				"refactoringminer_commits_total 3\n" +
+				"# TYPE refactoringminer_renames_total counter\n" +
+				"refactoringminer_renames_total{detection=\"exact\"} 5\n" +
+				"refactoringminer_renames_total{detection=\"similarity\"} 4\n" +
+				"# TYPE refactoringminer_active_workers gauge\n" +
+				"refactoringminer_active_workers 3\n", text.toString());
+		Assert.assertEquals(3, metrics.snapshot().getCounter("refactoringminer_commits_total"));
+		Assert.assertEquals(0, metrics.snapshot().getCounter("refactoringminer_unknown_total"));
+	}
+
+	@Test
+	public void testRegisteredCountersAreWrittenAsCounters() throws Exception {
+		Metrics metrics = new Metrics();
+		AtomicLong cacheHits = new AtomicLong(7);
+		metrics.registerCounter("refactoringminer_service_cache_hits_total", cacheHits::get);
+		metrics.registerGauge("refactoringminer_service_cached_commits", () -> 4);
+		cacheHits.incrementAndGet();
+
+		StringBuilder text = new StringBuilder();
+		metrics.writeText(text);
+		Assert.assertEquals(
+				"# TYPE refactoringminer_service_cache_hits_total counter\n" +
+				"refactoringminer_service_cache_hits_total 8\n" +
+				"# TYPE refactoringminer_service_cached_commits gauge\n" +
+				"refactoringminer_service_cached_commits 4\n", text.toString());
+		Assert.assertEquals(8, metrics.snapshot().getCounter("refactoringminer_service_cache_hits_total"));
+	}
+
+	@Test
+	public void testHistogramText() throws Exception {
+		Metrics metrics = new Metrics();
+		String name = "refactoringminer_phase_seconds{phase=\"parsing\"}";
+		metrics.recordNanos(name, TimeUnit.MILLISECONDS.toNanos(3));
+		metrics.recordNanos(name, TimeUnit.MILLISECONDS.toNanos(1500));
+		//a latency equal to a bound falls in the next bucket, and the longest ones in the unbounded bucket
+		metrics.recordNanos(name, TimeUnit.MILLISECONDS.toNanos(2000));
+		metrics.recordNanos(name, TimeUnit.SECONDS.toNanos(200));
+
+		StringBuilder text = new StringBuilder();
+		metrics.writeText(text);
+		Assert.assertEquals(
+				"# TYPE refactoringminer_phase_seconds histogram\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.001\"} 0\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.002\"} 0\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.005\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.01\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.02\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.05\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.1\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.2\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"0.5\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"1.0\"} 1\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"2.0\"} 2\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"5.0\"} 3\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"10.0\"} 3\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"20.0\"} 3\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"60.0\"} 3\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"120.0\"} 3\n" +
+				"refactoringminer_phase_seconds_bucket{phase=\"parsing\",le=\"+Inf\"} 4\n" +
+				"refactoringminer_phase_seconds_sum{phase=\"parsing\"} 203.503\n" +
+				"refactoringminer_phase_seconds_count{phase=\"parsing\"} 4\n", text.toString());
+
+		Metrics.HistogramSnapshot histogram = metrics.snapshot().getHistogram(name);
+		Assert.assertEquals(4, histogram.getCount());
+		Assert.assertEquals(5, histogram.getPercentileMillis(25));
+		Assert.assertEquals(2000, histogram.getPercentileMillis(50));
+		Assert.assertEquals(5000, histogram.getPercentileMillis(75));
+		Assert.assertEquals(200000, histogram.getPercentileMillis(100));
+	}
+
+	@Test
+	public void testUnlabeledHistogramText() throws Exception {
+		Metrics metrics = new Metrics();
+		metrics.recordNanos("refactoringminer_commit_seconds", TimeUnit.MILLISECONDS.toNanos(250));
+		StringBuilder text = new StringBuilder();
+		metrics.writeText(text);
+		Assert.assertTrue(text.toString(), text.toString().startsWith(
+				"# TYPE refactoringminer_commit_seconds histogram\n" +
+				"refactoringminer_commit_seconds_bucket{le=\"0.001\"} 0\n"));
+		Assert.assertTrue(text.toString(), text.toString().contains("refactoringminer_commit_seconds_bucket{le=\"0.5\"} 1\n"));
+		Assert.assertTrue(text.toString(), text.toString().endsWith(
+				"refactoringminer_commit_seconds_sum 0.25\n" +
+				"refactoringminer_commit_seconds_count 1\n"));
+	}
+
+	@Test
+	public void testPhaseTimerRecordsThePhasesThatRan() throws Exception {
+		Metrics metrics = new Metrics();
+		PhaseTimer timer = PhaseTimer.start();
+		Assert.assertNull(PhaseTimer.switchTo(PhaseTimer.Phase.PARSING));
+		Thread.sleep(2);
+		Assert.assertEquals(PhaseTimer.Phase.PARSING, PhaseTimer.switchTo(PhaseTimer.Phase.OUTPUT));
+		timer.stop(metrics);
+		//the timer is removed from the thread
+		Assert.assertNull(PhaseTimer.switchTo(PhaseTimer.Phase.PARSING));
+
+		Assert.assertTrue(timer.getElapsedNanos(PhaseTimer.Phase.PARSING) >= TimeUnit.MILLISECONDS.toNanos(2));
+		Metrics.Snapshot snapshot = metrics.snapshot();
+		Assert.assertEquals(1, snapshot.getHistogram(PhaseTimer.PHASE_METRIC + "{phase=\"parsing\"}").getCount());
+		Assert.assertEquals(1, snapshot.getHistogram(PhaseTimer.PHASE_METRIC + "{phase=\"output\"}").getCount());
+		Assert.assertNull(snapshot.getHistogram(PhaseTimer.PHASE_METRIC + "{phase=\"body_mapping\"}"));
+		Assert.assertEquals(1, snapshot.getHistogram(PhaseTimer.COMMIT_METRIC).getCount());
+	}
+}
@@ -0,0 +1,137 @@
+package org.refactoringminer.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class RawFileFetcherTest {
+	private HttpServer server;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger activeRequests = new AtomicInteger();
+	private final AtomicInteger maxActiveRequests = new AtomicInteger();
+	private volatile CountDownLatch release = new CountDownLatch(0);
+
+	@Before
+	public void startServer() throws IOException {
+		//stands in for raw.githubusercontent.com: every path returns its own name, except the missing ones
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+			maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+			try {
+				release.await(10, TimeUnit.SECONDS);
+				respond(exchange);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				activeRequests.decrementAndGet();
+				exchange.close();
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+	}
+
+	private static void respond(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		if(path.startsWith("/missing")) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		byte[] body = path.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	private URL url(String path) throws IOException {
+		return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+	}
+
+	@Test
+	public void testFetch() throws Exception {
+		RawFileFetcher fetcher = new RawFileFetcher(4, 2);
+		byte[] contents = fetcher.fetch(url("/owner/repo/sha/A.java")).get(10, TimeUnit.SECONDS);
+		Assert.assertEquals("/owner/repo/sha/A.java", new String(contents, StandardCharsets.UTF_8));
+		Assert.assertEquals(1, fetcher.getRequestCount());
+		Assert.assertEquals(contents.length, fetcher.getBytesFetched());
+	}
+
+	@Test
+	public void testConcurrentFetchesOfSameURLAreCoalesced() throws Exception {
+		RawFileFetcher fetcher = new RawFileFetcher(4, 2);
+		release = new CountDownLatch(1);
+		CompletableFuture<byte[]> first = fetcher.fetch(url("/A.java"));
+		CompletableFuture<byte[]> second = fetcher.fetch(url("/A.java"));
+		release.countDown();
+		Assert.assertArrayEquals(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+		Assert.assertEquals(1, requests.get());
+		Assert.assertEquals(1, fetcher.getCoalescedCount());
+	}
+
+	@Test
+	public void testRequestsPerHostAreBounded() throws Exception {
+		RawFileFetcher fetcher = new RawFileFetcher(8, 2);
+		release = new CountDownLatch(1);
+		List<CompletableFuture<byte[]>> futures = new ArrayList<CompletableFuture<byte[]>>();
+		for(int i=0; i<10; i++) {
+			futures.add(fetcher.fetch(url("/File" + i + ".java")));
+		}
+		while(activeRequests.get() < 2) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(8, fetcher.getQueuedCount());
+		release.countDown();
+		for(int i=0; i<futures.size(); i++) {
+			Assert.assertEquals("/File" + i + ".java", new String(futures.get(i).get(10, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+		}
+		Assert.assertEquals(10, requests.get());
+		Assert.assertEquals(2, maxActiveRequests.get());
+		Assert.assertEquals(0, fetcher.getQueuedCount());
+	}
+
+	@Test
+	public void testFailedFetch() throws Exception {
+		RawFileFetcher fetcher = new RawFileFetcher(4, 2);
+		try {
+			fetcher.fetch(url("/missing/A.java")).get(10, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof FileNotFoundException);
+		}
+		Assert.assertEquals(1, fetcher.getFailureCount());
+		//a failed download is not reused by later fetches
+		try {
+			fetcher.fetch(url("/missing/A.java")).get(10, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertEquals(2, requests.get());
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.refactoringminer.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SnapshotCacheTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testTheSharedCacheBelongsToTheProcess() {
+		File directory = SnapshotCache.getSharedInstance().getDirectory();
+		Assert.assertEquals(new File(System.getProperty("java.io.tmpdir")), directory.getParentFile());
+		Assert.assertTrue(directory.getName(), directory.getName().endsWith("-" + ProcessHandle.current().pid()));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedFilesAreEvicted() throws Exception {
+		SnapshotCache cache = new SnapshotCache(folder.newFolder("cache"), 10);
+		cache.putMetadata("a.json", bytes("aaaa"));
+		cache.putMetadata("b.json", bytes("bbbb"));
+		Assert.assertEquals("aaaa", new String(cache.getMetadata("a.json"), StandardCharsets.UTF_8));
+		cache.putMetadata("c.json", bytes("cccc"));
+		Assert.assertNull(cache.getMetadata("b.json"));
+		Assert.assertNotNull(cache.getMetadata("a.json"));
+		Assert.assertNotNull(cache.getMetadata("c.json"));
+		Assert.assertEquals(8, cache.getSize());
+		Assert.assertFalse(new File(cache.getDirectory(), "b.json").exists());
+	}
+
+	@Test
+	public void testOpenArchivesAreNotEvicted() throws Exception {
+		File archive = archive("repository-1111/src/A.java", "class A {}");
+		SnapshotCache cache = new SnapshotCache(folder.newFolder("cache"), 1);
+		try (SnapshotCache.Snapshot snapshot = cache.open("1111", archive.toURI().toURL().toString())) {
+			cache.putMetadata("m.json", bytes("metadata"));
+			Assert.assertNull(cache.getMetadata("m.json"));
+			Assert.assertEquals("class A {}", new String(snapshot.read("src/A.java"), StandardCharsets.UTF_8));
+		}
+		//evicted once closed
+		Assert.assertEquals(0, cache.getSize());
+		Assert.assertFalse(new File(cache.getDirectory(), "1111.zip").exists());
+	}
+
+	@Test
+	public void testExistingFilesAreCounted() throws Exception {
+		File directory = folder.newFolder("cache");
+		new SnapshotCache(directory, 100).putMetadata("a.json", bytes("aaaa"));
+		SnapshotCache cache = new SnapshotCache(directory, 100);
+		Assert.assertEquals(4, cache.getSize());
+		Assert.assertNotNull(cache.getMetadata("a.json"));
+	}
+
+	private File archive(String entryName, String contents) throws Exception {
+		File archive = folder.newFile("archive.zip");
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+			out.putNextEntry(new ZipEntry(entryName));
+			out.write(bytes(contents));
+			out.closeEntry();
+		}
+		return archive;
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,6 +1,11 @@
 package gr.uom.java.xmi;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.jdt.core.dom.ASTVisitor;
@@ -9,12 +14,74 @@ import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 public class AnonymousClassDeclarationVisitor extends ASTVisitor {
 
 	private Set<AnonymousClassDeclaration> anonymousClassDeclarations = new LinkedHashSet<AnonymousClassDeclaration>();
+	private Node root = new Node(null, null, 0);
+	private Deque<Node> enclosingNodes = new ArrayDeque<Node>();
+
 	public boolean visit(AnonymousClassDeclaration node) {
 		anonymousClassDeclarations.add(node);
+		Node parent = enclosingNodes.isEmpty() ? root : enclosingNodes.peek();
+		enclosingNodes.push(parent.addChild(node));
 		return super.visit(node);
 	}
 
+	public void endVisit(AnonymousClassDeclaration node) {
+		enclosingNodes.pop();
+	}
+
 	public Set<AnonymousClassDeclaration> getAnonymousClassDeclarations() {
 		return anonymousClassDeclarations;
 	}
+
+	/**
+	 * @return the anonymous class declarations nested in their enclosing anonymous class declarations,
+	 * with every nested declaration preceding its enclosing declaration
+	 */
+	public List<Node> getPostorderNodes() {
+		List<Node> nodes = new ArrayList<Node>(anonymousClassDeclarations.size());
+		for(Node child : root.children) {
+			child.addPostorder(nodes);
+		}
+		return nodes;
+	}
+
+	public static class Node {
+		private final AnonymousClassDeclaration declaration;
+		private final Node parent;
+		//1-based position among the declarations with the same enclosing declaration
+		private final int index;
+		private List<Node> children = Collections.emptyList();
+
+		private Node(AnonymousClassDeclaration declaration, Node parent, int index) {
+			this.declaration = declaration;
+			this.parent = parent;
+			this.index = index;
+		}
+
+		private Node addChild(AnonymousClassDeclaration declaration) {
+			if(children.isEmpty()) {
+				children = new ArrayList<Node>(2);
+			}
+			Node child = new Node(declaration, this, children.size() + 1);
+			children.add(child);
+			return child;
+		}
+
+		private void addPostorder(List<Node> nodes) {
+			for(Node child : children) {
+				child.addPostorder(nodes);
+			}
+			nodes.add(this);
+		}
+
+		public AnonymousClassDeclaration getDeclaration() {
+			return declaration;
+		}
+
+		/**
+		 * @return the positions of the enclosing declarations and this declaration separated by dots, e.g. 2.1
+		 */
+		public String getBinaryName() {
+			return parent.declaration != null ? parent.getBinaryName() + "." + index : String.valueOf(index);
+		}
+	}
 }
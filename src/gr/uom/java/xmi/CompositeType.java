@@ -18,7 +18,7 @@ public class CompositeType extends UMLType {
 	}
 
 	@Override
-	public int hashCode() {
+	protected int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((leftType == null) ? 0 : leftType.hashCode());
@@ -49,12 +49,12 @@ public class CompositeType extends UMLType {
 	}
 
 	@Override
-	public String toString() {
+	protected String buildString() {
 		return leftType.toString() + "." + rightType.toString();
 	}
 
 	@Override
-	public String toQualifiedString() {
+	protected String buildQualifiedString() {
 		return leftType.toQualifiedString() + "." + rightType.toQualifiedString();
 	}
 
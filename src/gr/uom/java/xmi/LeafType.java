@@ -5,7 +5,6 @@ import java.util.regex.Pattern;
 public class LeafType extends UMLType {
 	private String classType;
 	private String nonQualifiedClassType;
-	private volatile int hashCode = 0;
 	private static final Pattern CAMEL_CASE_SPLIT_PATTERN = Pattern.compile("(?<!(^|[A-Z]))(?=[A-Z])|(?<!^)(?=[A-Z][a-z])");
 	
 	public LeafType(String type) {
@@ -124,20 +123,17 @@ public class LeafType extends UMLType {
 	}
 
 	@Override
-	public int hashCode() {
-		if(hashCode == 0) {
-			int result = 17;
-			result = 37*result + classType.hashCode();
-			if(isParameterized())
-				result = 37*result + typeArgumentsToString().hashCode();
-			result = 37*result + getArrayDimension();
-			hashCode = result;
-		}
-		return hashCode;
+	protected int computeHashCode() {
+		int result = 17;
+		result = 37*result + classType.hashCode();
+		if(isParameterized())
+			result = 37*result + typeArgumentsToString().hashCode();
+		result = 37*result + getArrayDimension();
+		return result;
 	}
 
 	@Override
-	public String toString() {
+	protected String buildString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append(nonQualifiedClassType);
 		sb.append(typeArgumentsAndArrayDimensionToString());
@@ -145,7 +141,7 @@ public class LeafType extends UMLType {
 	}
 
 	@Override
-	public String toQualifiedString() {
+	protected String buildQualifiedString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append(classType);
 		sb.append(typeArgumentsAndArrayDimensionToString());
@@ -0,0 +1,104 @@
+package gr.uom.java.xmi;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * The line ends of a parsed source file, shared by all the {@link LocationInfo} instances created from it,
+ * so that lines and columns can be computed from offsets only when they are requested.
+ * The lookups reproduce {@link CompilationUnit#getLineNumber(int)} and {@link CompilationUnit#getColumnNumber(int)}.
+ */
+public class LineTable {
+	private static final String PROPERTY = LineTable.class.getName();
+	private final String filePath;
+	//lineEnds[i] is the offset of the line separator ending line i+1
+	private final int[] lineEnds;
+	private final int sourceEnd;
+
+	private LineTable(String filePath, int[] lineEnds, int sourceEnd) {
+		this.filePath = filePath;
+		this.lineEnds = lineEnds;
+		this.sourceEnd = sourceEnd;
+	}
+
+	/**
+	 * @return the line table of the compilation unit, which is built on first use and attached to the compilation unit
+	 */
+	public static LineTable of(CompilationUnit cu, String filePath) {
+		LineTable table = (LineTable)cu.getProperty(PROPERTY);
+		if(table == null) {
+			table = new LineTable(filePath, lineEnds(cu), cu.getStartPosition() + cu.getLength());
+			cu.setProperty(PROPERTY, table);
+		}
+		else if(!table.filePath.equals(filePath)) {
+			return new LineTable(filePath, table.lineEnds, table.sourceEnd);
+		}
+		return table;
+	}
+
+	private static int[] lineEnds(CompilationUnit cu) {
+		int sourceEnd = cu.getStartPosition() + cu.getLength();
+		int lastLine = sourceEnd > 0 ? cu.getLineNumber(sourceEnd - 1) : 1;
+		if(lastLine == 1) {
+			//a single line may still end with a separator, which only changes the result for negative offsets
+			return cu.getLineNumber(-1) == 1 ? new int[0] : new int[] {sourceEnd - 1};
+		}
+		//the separator ending the last line, if any, does not change any lookup within the source range
+		int[] lineEnds = new int[lastLine - 1];
+		for(int line = 2; line <= lastLine; line++) {
+			lineEnds[line - 2] = cu.getPosition(line, 0) - 1;
+		}
+		return lineEnds;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	/**
+	 * @return the 1-based line of the offset, or -1 if the offset is outside the source
+	 */
+	public int getLineNumber(int offset) {
+		int length = lineEnds.length;
+		if(length == 0) {
+			return offset >= sourceEnd ? -1 : 1;
+		}
+		if(offset < 0) {
+			return -1;
+		}
+		if(offset <= lineEnds[0]) {
+			return 1;
+		}
+		if(offset > lineEnds[length - 1]) {
+			return offset >= sourceEnd ? -1 : length + 1;
+		}
+		int low = 0;
+		int high = length - 1;
+		//invariant lineEnds[low] < offset <= lineEnds[high]
+		while(low + 1 < high) {
+			int mid = (low + high) >>> 1;
+			if(offset <= lineEnds[mid]) {
+				high = mid;
+			}
+			else {
+				low = mid;
+			}
+		}
+		return low + 2;
+	}
+
+	/**
+	 * @return the 0-based column of the offset, or -1 if the offset is outside the source
+	 */
+	public int getColumnNumber(int offset) {
+		int line = getLineNumber(offset);
+		if(line == -1) {
+			return -1;
+		}
+		if(line == 1) {
+			return offset >= sourceEnd ? -1 : offset;
+		}
+		int lineStart = lineEnds[line - 2] + 1;
+		int lineEnd = line == lineEnds.length + 1 ? sourceEnd - 1 : lineEnds[line - 1];
+		return lineStart > lineEnd ? -1 : offset - lineStart;
+	}
+}
@@ -28,7 +28,7 @@ public class ListCompositeType extends UMLType {
 	}
 
 	@Override
-	public int hashCode() {
+	protected int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((kind == null) ? 0 : kind.hashCode());
@@ -56,7 +56,7 @@ public class ListCompositeType extends UMLType {
 	}
 
 	@Override
-	public String toString() {
+	protected String buildString() {
 		StringBuilder sb = new StringBuilder();
 		for(int i = 0; i < types.size(); i++) {
 			sb.append(types.get(i).toString());
@@ -67,7 +67,7 @@ public class ListCompositeType extends UMLType {
 	}
 
 	@Override
-	public String toQualifiedString() {
+	protected String buildQualifiedString() {
 		StringBuilder sb = new StringBuilder();
 		for(int i = 0; i < types.size(); i++) {
 			sb.append(types.get(i).toQualifiedString());
@@ -6,41 +6,20 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import gr.uom.java.xmi.diff.CodeRange;
 
 public class LocationInfo {
-	private String filePath;
+	private LineTable lineTable;
 	private int startOffset;
-	private int endOffset; 
 	private int length;
-	private int startLine;
-	private int startColumn;
-	private int endLine;
-	private int endColumn;
 	private CodeElementType codeElementType;
 	
 	public LocationInfo(CompilationUnit cu, String filePath, ASTNode node, CodeElementType codeElementType) {
-		this.filePath = filePath;
+		this.lineTable = LineTable.of(cu, filePath);
 		this.codeElementType = codeElementType;
 		this.startOffset = node.getStartPosition();
 		this.length = node.getLength();
-		this.endOffset = startOffset + length;
-		
-		//lines are 1-based
-		this.startLine = cu.getLineNumber(startOffset);
-		this.endLine = cu.getLineNumber(endOffset);
-		//columns are 0-based
-		this.startColumn = cu.getColumnNumber(startOffset);
-		//convert to 1-based
-		if(this.startColumn > 0) {
-			this.startColumn += 1;
-		}
-		this.endColumn = cu.getColumnNumber(endOffset);
-		//convert to 1-based
-		if(this.endColumn > 0) {
-			this.endColumn += 1;
-		}
 	}
 
 	public String getFilePath() {
-		return filePath;
+		return lineTable.getFilePath();
 	}
 
 	public int getStartOffset() {
@@ -48,27 +27,33 @@ public class LocationInfo {
 	}
 
 	public int getEndOffset() {
-		return endOffset;
+		return startOffset + length;
 	}
 
 	public int getLength() {
 		return length;
 	}
 
+	//lines are 1-based
 	public int getStartLine() {
-		return startLine;
+		return lineTable.getLineNumber(startOffset);
 	}
 
 	public int getStartColumn() {
-		return startColumn;
+		return toOneBased(lineTable.getColumnNumber(startOffset));
 	}
 
 	public int getEndLine() {
-		return endLine;
+		return lineTable.getLineNumber(getEndOffset());
 	}
 
 	public int getEndColumn() {
-		return endColumn;
+		return toOneBased(lineTable.getColumnNumber(getEndOffset()));
+	}
+
+	//columns are 0-based, convert to 1-based
+	private static int toOneBased(int column) {
+		return column > 0 ? column + 1 : column;
 	}
 
 	public CodeElementType getCodeElementType() {
@@ -82,33 +67,29 @@ public class LocationInfo {
 	}
 
 	public boolean subsumes(LocationInfo other) {
-		return this.filePath.equals(other.filePath) &&
+		return this.getFilePath().equals(other.getFilePath()) &&
 				this.startOffset <= other.startOffset &&
-				this.endOffset >= other.endOffset;
+				this.getEndOffset() >= other.getEndOffset();
 	}
 
 	public boolean sameLine(LocationInfo other) {
-		return this.filePath.equals(other.filePath) &&
-				this.startLine == other.startLine &&
-				this.endLine == other.endLine;
+		return this.getFilePath().equals(other.getFilePath()) &&
+				this.getStartLine() == other.getStartLine() &&
+				this.getEndLine() == other.getEndLine();
 	}
 
 	public boolean nextLine(LocationInfo other) {
-		return this.filePath.equals(other.filePath) &&
-				this.startLine == other.endLine + 1;
+		return this.getFilePath().equals(other.getFilePath()) &&
+				this.getStartLine() == other.getEndLine() + 1;
 	}
 
 	@Override
 	public int hashCode() {
+		//equal locations have the same offsets and file path, and hashing them needs no line lookups
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + endColumn;
-		result = prime * result + endLine;
-		result = prime * result + endOffset;
-		result = prime * result + ((filePath == null) ? 0 : filePath.hashCode());
+		result = prime * result + getFilePath().hashCode();
 		result = prime * result + length;
-		result = prime * result + startColumn;
-		result = prime * result + startLine;
 		result = prime * result + startOffset;
 		return result;
 	}
@@ -122,24 +103,22 @@ public class LocationInfo {
 		if (getClass() != obj.getClass())
 			return false;
 		LocationInfo other = (LocationInfo) obj;
-		if (endColumn != other.endColumn)
-			return false;
-		if (endLine != other.endLine)
+		if (startOffset != other.startOffset)
 			return false;
-		if (endOffset != other.endOffset)
+		if (length != other.length)
 			return false;
-		if (filePath == null) {
-			if (other.filePath != null)
-				return false;
-		} else if (!filePath.equals(other.filePath))
+		if (lineTable == other.lineTable)
+			return true;
+		//the same offsets may be on different lines in the files of the parent and child commits
+		if (!getFilePath().equals(other.getFilePath()))
 			return false;
-		if (length != other.length)
+		if (getStartLine() != other.getStartLine())
 			return false;
-		if (startColumn != other.startColumn)
+		if (getStartColumn() != other.getStartColumn())
 			return false;
-		if (startLine != other.startLine)
+		if (getEndLine() != other.getEndLine())
 			return false;
-		if (startOffset != other.startOffset)
+		if (getEndColumn() != other.getEndColumn())
 			return false;
 		return true;
 	}
@@ -0,0 +1,46 @@
+package gr.uom.java.xmi;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Canonical instances of the identifiers, type names and file paths stored in UML models.
+ * Expressions and statements are not canonicalized, since their source texts are rarely repeated and would only grow the table.
+ * A table is attached to each parsed {@link CompilationUnit}, so that every model element created from it
+ * can canonicalize its strings without an additional constructor argument.
+ * Sharing one table between the models of both sides of a commit makes most of the string comparisons
+ * between them succeed on reference equality, which {@link String#equals(Object)} checks first.
+ * <p>
+ * A table is not thread-safe, and should be discarded once its models are built.
+ */
+public class SymbolTable {
+	private static final String PROPERTY = SymbolTable.class.getName();
+	private final Map<String, String> symbols = new HashMap<String, String>();
+
+	public String intern(String symbol) {
+		if(symbol == null) {
+			return null;
+		}
+		String canonical = symbols.putIfAbsent(symbol, symbol);
+		return canonical != null ? canonical : symbol;
+	}
+
+	public int size() {
+		return symbols.size();
+	}
+
+	public void attachTo(CompilationUnit cu) {
+		cu.setProperty(PROPERTY, this);
+	}
+
+	/**
+	 * @return the canonical instance of the given symbol in the table attached to the compilation unit,
+	 * or the symbol itself if the compilation unit has no table
+	 */
+	public static String intern(CompilationUnit cu, String symbol) {
+		SymbolTable table = (SymbolTable)cu.getProperty(PROPERTY);
+		return table != null ? table.intern(symbol) : symbol;
+	}
+}
@@ -22,7 +22,7 @@ public class UMLAnnotation implements Serializable, LocationInfoProvider {
 	private Map<String, AbstractExpression> memberValuePairs = new LinkedHashMap<>();
 	
 	public UMLAnnotation(CompilationUnit cu, String filePath, Annotation annotation) {
-		this.typeName = annotation.getTypeName().getFullyQualifiedName();
+		this.typeName = SymbolTable.intern(cu, annotation.getTypeName().getFullyQualifiedName());
 		this.locationInfo = new LocationInfo(cu, filePath, annotation, CodeElementType.ANNOTATION);
 		if(annotation instanceof SingleMemberAnnotation) {
 			SingleMemberAnnotation singleMemberAnnotation = (SingleMemberAnnotation)annotation;
@@ -33,7 +33,7 @@ public class UMLAnnotation implements Serializable, LocationInfoProvider {
 			List<MemberValuePair> pairs = normalAnnotation.values();
 			for(MemberValuePair pair : pairs) {
 				AbstractExpression value = new AbstractExpression(cu, filePath, pair.getValue(), CodeElementType.NORMAL_ANNOTATION_MEMBER_VALUE_PAIR);
-				memberValuePairs.put(pair.getName().getIdentifier(), value);
+				memberValuePairs.put(SymbolTable.intern(cu, pair.getName().getIdentifier()), value);
 			}
 		}
 	}
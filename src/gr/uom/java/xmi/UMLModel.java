@@ -10,7 +10,9 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
+import org.refactoringminer.api.Deadline;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.api.RefactoringType;
 
 public class UMLModel {
 	private Set<String> repositoryDirectories;
@@ -112,7 +114,25 @@ public class UMLModel {
     }
 
 	public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints) throws RefactoringMinerTimedOutException {
+		return this.diff(umlModel, renamedFileHints, null);
+	}
+
+	/**
+	 * @param refactoringTypesToConsider the refactoring types of interest, or null to detect all types.
+	 * Detection phases that cannot contribute to these types are skipped.
+	 */
+	public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints, Set<RefactoringType> refactoringTypesToConsider) throws RefactoringMinerTimedOutException {
+		return this.diff(umlModel, renamedFileHints, refactoringTypesToConsider, null);
+	}
+
+	/**
+	 * @param budget the time allowed for mapping the bodies of the operations, or null for no limit
+	 * @see UMLModelDiff#setBudget(Deadline)
+	 */
+	public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints, Set<RefactoringType> refactoringTypesToConsider, Deadline budget) throws RefactoringMinerTimedOutException {
     	UMLModelDiff modelDiff = new UMLModelDiff(this, umlModel);
+    	modelDiff.setRefactoringTypesToConsider(refactoringTypesToConsider);
+    	modelDiff.setBudget(budget);
     	for(UMLClass umlClass : classList) {
     		if(!umlModel.classList.contains(umlClass))
     			modelDiff.reportRemovedClass(umlClass);
@@ -142,6 +162,7 @@ public class UMLModel {
     	}
     	modelDiff.checkForRealizationChanges();
     	for(UMLClass umlClass : classList) {
+    		Deadline.check();
     		if(umlModel.classList.contains(umlClass)) {
     			UMLClassDiff classDiff = new UMLClassDiff(umlClass, umlModel.getClass(umlClass), modelDiff);
     			classDiff.process();
@@ -6,7 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -17,9 +17,6 @@ import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.TreeNode;
-
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
@@ -51,6 +48,8 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.TypeParameter;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.refactoringminer.api.Deadline;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
 
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.decomposition.OperationBody;
@@ -60,36 +59,89 @@ public class UMLModelASTReader {
 	private static final String FREE_MARKER_GENERATED = "generated using freemarker";
 	private static final String systemFileSeparator = Matcher.quoteReplacement(File.separator);
 	private UMLModel umlModel;
+	private SymbolTable symbolTable;
 
 	public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories) {
 		this.umlModel = new UMLModel(repositoryDirectories);
-		processJavaFileContents(javaFileContents);
+		this.symbolTable = new SymbolTable();
+		processJavaFileContents(toCharArrays(javaFileContents));
+	}
+
+	private UMLModelASTReader(Set<String> repositoryDirectories, SymbolTable symbolTable) {
+		this.umlModel = new UMLModel(repositoryDirectories);
+		this.symbolTable = symbolTable;
+	}
+
+	/**
+	 * Creates a reader from file contents that are already decoded, which are given to the parser without being copied.
+	 */
+	public static UMLModelASTReader ofSources(Map<String, char[]> javaFileContents, Set<String> repositoryDirectories) {
+		return ofSources(javaFileContents, repositoryDirectories, new SymbolTable());
+	}
+
+	/**
+	 * Same as {@link #ofSources(Map, Set)}, but canonicalizes the strings of the model with the given symbol table,
+	 * which can be shared with the model of the other side of a commit.
+	 */
+	public static UMLModelASTReader ofSources(Map<String, char[]> javaFileContents, Set<String> repositoryDirectories, SymbolTable symbolTable) {
+		UMLModelASTReader reader = new UMLModelASTReader(repositoryDirectories, symbolTable);
+		reader.processJavaFileContents(javaFileContents);
+		return reader;
+	}
+
+	/**
+	 * Same as {@link #ofSources(Map, Set, SymbolTable)}, but takes the files one at a time from an iterator, which
+	 * can decode each file only when it is requested and drop it afterwards, since the reader keeps no reference
+	 * to the contents of a file once it is parsed. The iterator is consumed until it has no more files.
+	 * @throws RefactoringMinerTimedOutException if the deadline of the current thread expires before all files are parsed
+	 */
+	public static UMLModelASTReader ofSources(Iterator<Map.Entry<String, char[]>> javaFileContents, Set<String> repositoryDirectories, SymbolTable symbolTable) throws RefactoringMinerTimedOutException {
+		UMLModelASTReader reader = new UMLModelASTReader(repositoryDirectories, symbolTable);
+		ASTParser parser = ASTParser.newParser(AST.JLS15);
+		while(javaFileContents.hasNext()) {
+			Deadline.check();
+			Map.Entry<String, char[]> javaFileContent = javaFileContents.next();
+			reader.processJavaFileContent(parser, javaFileContent.getKey(), javaFileContent.getValue());
+		}
+		return reader;
+	}
+
+	private static Map<String, char[]> toCharArrays(Map<String, String> javaFileContents) {
+		Map<String, char[]> javaFileChars = new LinkedHashMap<String, char[]>();
+		for(Map.Entry<String, String> entry : javaFileContents.entrySet()) {
+			javaFileChars.put(entry.getKey(), entry.getValue().toCharArray());
+		}
+		return javaFileChars;
 	}
 
-	private void processJavaFileContents(Map<String, String> javaFileContents) {
+	private void processJavaFileContents(Map<String, char[]> javaFileContents) {
 		ASTParser parser = ASTParser.newParser(AST.JLS15);
 		for(String filePath : javaFileContents.keySet()) {
-			Map<String, String> options = JavaCore.getOptions();
-			options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
-			options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
-			options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
-			parser.setCompilerOptions(options);
-			parser.setResolveBindings(false);
-			parser.setKind(ASTParser.K_COMPILATION_UNIT);
-			parser.setStatementsRecovery(true);
-			String javaFileContent = javaFileContents.get(filePath);
-			parser.setSource(javaFileContent.toCharArray());
-			if(javaFileContent.contains(FREE_MARKER_GENERATED) &&
-					!javaFileContent.contains("private static final String FREE_MARKER_GENERATED = \"generated using freemarker\";")) {
-				continue;
-			}
-			try {
-				CompilationUnit compilationUnit = (CompilationUnit)parser.createAST(null);
-				processCompilationUnit(filePath, compilationUnit, javaFileContent);
-			}
-			catch(Exception e) {
-				//e.printStackTrace();
-			}
+			processJavaFileContent(parser, filePath, javaFileContents.get(filePath));
+		}
+	}
+
+	private void processJavaFileContent(ASTParser parser, String filePath, char[] javaFileContent) {
+		Map<String, String> options = JavaCore.getOptions();
+		options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_8);
+		options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
+		options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_8);
+		parser.setCompilerOptions(options);
+		parser.setResolveBindings(false);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setStatementsRecovery(true);
+		parser.setSource(javaFileContent);
+		if(contains(javaFileContent, FREE_MARKER_GENERATED) &&
+				!contains(javaFileContent, "private static final String FREE_MARKER_GENERATED = \"generated using freemarker\";")) {
+			return;
+		}
+		try {
+			CompilationUnit compilationUnit = (CompilationUnit)parser.createAST(null);
+			symbolTable.attachTo(compilationUnit);
+			processCompilationUnit(symbolTable.intern(filePath), compilationUnit, javaFileContent);
+		}
+		catch(Exception e) {
+			//e.printStackTrace();
 		}
 	}
 
@@ -108,7 +160,22 @@ public class UMLModelASTReader {
 			}
 		}
 		this.umlModel = new UMLModel(repositoryDirectories);
-		processJavaFileContents(javaFileContents);
+		this.symbolTable = new SymbolTable();
+		processJavaFileContents(toCharArrays(javaFileContents));
+	}
+
+	private static boolean contains(char[] content, String text) {
+		int last = content.length - text.length();
+		for(int i=0; i<=last; i++) {
+			int j = 0;
+			while(j < text.length() && content[i+j] == text.charAt(j)) {
+				j++;
+			}
+			if(j == text.length()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	private static List<String> getJavaFilePaths(File folder) throws IOException {
@@ -125,19 +192,19 @@ public class UMLModelASTReader {
 		return this.umlModel;
 	}
 
-	protected void processCompilationUnit(String sourceFilePath, CompilationUnit compilationUnit, String javaFileContent) {
+	protected void processCompilationUnit(String sourceFilePath, CompilationUnit compilationUnit, char[] javaFileContent) {
 		List<UMLComment> comments = extractInternalComments(compilationUnit, sourceFilePath, javaFileContent);
 		PackageDeclaration packageDeclaration = compilationUnit.getPackage();
 		String packageName = null;
 		if(packageDeclaration != null)
-			packageName = packageDeclaration.getName().getFullyQualifiedName();
+			packageName = symbolTable.intern(packageDeclaration.getName().getFullyQualifiedName());
 		else
 			packageName = "";
 		
 		List<ImportDeclaration> imports = compilationUnit.imports();
 		List<String> importedTypes = new ArrayList<String>();
 		for(ImportDeclaration importDeclaration : imports) {
-			importedTypes.add(importDeclaration.getName().getFullyQualifiedName());
+			importedTypes.add(symbolTable.intern(importDeclaration.getName().getFullyQualifiedName()));
 		}
 		List<AbstractTypeDeclaration> topLevelTypeDeclarations = compilationUnit.types();
         for(AbstractTypeDeclaration abstractTypeDeclaration : topLevelTypeDeclarations) {
@@ -152,7 +219,7 @@ public class UMLModelASTReader {
         }
 	}
 
-	private List<UMLComment> extractInternalComments(CompilationUnit cu, String sourceFile, String javaFileContent) {
+	private List<UMLComment> extractInternalComments(CompilationUnit cu, String sourceFile, char[] javaFileContent) {
 		List<Comment> astComments = cu.getCommentList();
 		List<UMLComment> comments = new ArrayList<UMLComment>();
 		for(Comment comment : astComments) {
@@ -166,7 +233,7 @@ public class UMLModelASTReader {
 			if(locationInfo != null) {
 				int start = comment.getStartPosition();
 				int end = start + comment.getLength();
-				String text = javaFileContent.substring(start, end);
+				String text = new String(javaFileContent, start, end - start);
 				UMLComment umlComment = new UMLComment(text, locationInfo);
 				comments.add(umlComment);
 			}
@@ -214,7 +281,7 @@ public class UMLModelASTReader {
 		if(javadoc != null && javadoc.containsIgnoreCase(FREE_MARKER_GENERATED)) {
 			return;
 		}
-		String className = enumDeclaration.getName().getFullyQualifiedName();
+		String className = symbolTable.intern(enumDeclaration.getName().getFullyQualifiedName());
 		LocationInfo locationInfo = generateLocationInfo(cu, sourceFile, enumDeclaration, CodeElementType.TYPE_DECLARATION);
 		UMLClass umlClass = new UMLClass(packageName, className, locationInfo, enumDeclaration.isPackageMemberTypeDeclaration(), importedTypes);
 		umlClass.setJavadoc(javadoc);
@@ -281,7 +348,7 @@ public class UMLModelASTReader {
 		if(javadoc != null && javadoc.containsIgnoreCase(FREE_MARKER_GENERATED)) {
 			return;
 		}
-		String className = typeDeclaration.getName().getFullyQualifiedName();
+		String className = symbolTable.intern(typeDeclaration.getName().getFullyQualifiedName());
 		LocationInfo locationInfo = generateLocationInfo(cu, sourceFile, typeDeclaration, CodeElementType.TYPE_DECLARATION);
 		UMLClass umlClass = new UMLClass(packageName, className, locationInfo, typeDeclaration.isPackageMemberTypeDeclaration(), importedTypes);
 		umlClass.setJavadoc(javadoc);
@@ -294,7 +361,7 @@ public class UMLModelASTReader {
 		
     	List<TypeParameter> typeParameters = typeDeclaration.typeParameters();
 		for(TypeParameter typeParameter : typeParameters) {
-			UMLTypeParameter umlTypeParameter = new UMLTypeParameter(typeParameter.getName().getFullyQualifiedName());
+			UMLTypeParameter umlTypeParameter = new UMLTypeParameter(symbolTable.intern(typeParameter.getName().getFullyQualifiedName()));
 			List<Type> typeBounds = typeParameter.typeBounds();
 			for(Type type : typeBounds) {
 				umlTypeParameter.addTypeBound(UMLType.extractTypeObject(cu, sourceFile, type, 0));
@@ -366,63 +433,53 @@ public class UMLModelASTReader {
 			String packageName, String sourceFile, String className, UMLClass umlClass, List<String> importedTypes) {
 		AnonymousClassDeclarationVisitor visitor = new AnonymousClassDeclarationVisitor();
     	typeDeclaration.accept(visitor);
-    	Set<AnonymousClassDeclaration> anonymousClassDeclarations = visitor.getAnonymousClassDeclarations();
-    	
-    	DefaultMutableTreeNode root = new DefaultMutableTreeNode();
-    	for(AnonymousClassDeclaration anonymous : anonymousClassDeclarations) {
-    		insertNode(anonymous, root);
-    	}
     	
     	List<UMLAnonymousClass> createdAnonymousClasses = new ArrayList<UMLAnonymousClass>();
-    	Enumeration enumeration = root.postorderEnumeration();
-    	while(enumeration.hasMoreElements()) {
-    		DefaultMutableTreeNode node = (DefaultMutableTreeNode)enumeration.nextElement();
-    		if(node.getUserObject() != null) {
-    			AnonymousClassDeclaration anonymous = (AnonymousClassDeclaration)node.getUserObject();
-    			boolean operationFound = false;
-    			UMLOperation matchingOperation = null;
-    			UMLAttribute matchingAttribute = null;
-    			List<UMLComment> comments = null;
-				for(UMLOperation operation : umlClass.getOperations()) {
-    				if(operation.getLocationInfo().getStartOffset() <= anonymous.getStartPosition() &&
-    						operation.getLocationInfo().getEndOffset() >= anonymous.getStartPosition()+anonymous.getLength()) {
-    					comments  = operation.getComments();
-    					operationFound = true;
-    					matchingOperation = operation;
-    					break;
-    				}
-    			}
-    			if(!operationFound) {
-	    			for(UMLAttribute attribute : umlClass.getAttributes()) {
-	    				if(attribute.getLocationInfo().getStartOffset() <= anonymous.getStartPosition() &&
-	    						attribute.getLocationInfo().getEndOffset() >= anonymous.getStartPosition()+anonymous.getLength()) {
-	    					comments = attribute.getComments();
-	    					matchingAttribute = attribute;
-	    					break;
-	    				}
-	    			}
+    	for(AnonymousClassDeclarationVisitor.Node node : visitor.getPostorderNodes()) {
+    		AnonymousClassDeclaration anonymous = node.getDeclaration();
+    		boolean operationFound = false;
+    		UMLOperation matchingOperation = null;
+    		UMLAttribute matchingAttribute = null;
+    		List<UMLComment> comments = null;
+			for(UMLOperation operation : umlClass.getOperations()) {
+    			if(operation.getLocationInfo().getStartOffset() <= anonymous.getStartPosition() &&
+    					operation.getLocationInfo().getEndOffset() >= anonymous.getStartPosition()+anonymous.getLength()) {
+    				comments  = operation.getComments();
+    				operationFound = true;
+    				matchingOperation = operation;
+    				break;
     			}
-    			if(matchingOperation != null || matchingAttribute != null) {
-	    			String anonymousBinaryName = getAnonymousBinaryName(node);
-	    			String anonymousCodePath = getAnonymousCodePath(node);
-	    			UMLAnonymousClass anonymousClass = processAnonymousClassDeclaration(cu, anonymous, packageName + "." + className, anonymousBinaryName, anonymousCodePath, sourceFile, comments
-							, importedTypes);
-	    			umlClass.addAnonymousClass(anonymousClass);
-	    			if(matchingOperation != null) {
-	    				matchingOperation.addAnonymousClass(anonymousClass);
-	    			}
-	    			if(matchingAttribute != null) {
-	    				matchingAttribute.addAnonymousClass(anonymousClass);
+    		}
+    		if(!operationFound) {
+	    		for(UMLAttribute attribute : umlClass.getAttributes()) {
+	    			if(attribute.getLocationInfo().getStartOffset() <= anonymous.getStartPosition() &&
+	    					attribute.getLocationInfo().getEndOffset() >= anonymous.getStartPosition()+anonymous.getLength()) {
+	    				comments = attribute.getComments();
+	    				matchingAttribute = attribute;
+	    				break;
 	    			}
-	    			for(UMLOperation operation : anonymousClass.getOperations()) {
-	    				for(UMLAnonymousClass createdAnonymousClass : createdAnonymousClasses) {
-	    					if(operation.getLocationInfo().subsumes(createdAnonymousClass.getLocationInfo())) {
-	    						operation.addAnonymousClass(createdAnonymousClass);
-	    					}
+	    		}
+    		}
+    		if(matchingOperation != null || matchingAttribute != null) {
+	    		String anonymousBinaryName = node.getBinaryName();
+	    		String anonymousCodePath = getAnonymousCodePath(anonymous);
+	    		UMLAnonymousClass anonymousClass = processAnonymousClassDeclaration(cu, anonymous, packageName + "." + className, anonymousBinaryName, anonymousCodePath, sourceFile, comments
+						, importedTypes);
+	    		umlClass.addAnonymousClass(anonymousClass);
+	    		if(matchingOperation != null) {
+	    			matchingOperation.addAnonymousClass(anonymousClass);
+	    		}
+	    		if(matchingAttribute != null) {
+	    			matchingAttribute.addAnonymousClass(anonymousClass);
+	    		}
+	    		for(UMLOperation operation : anonymousClass.getOperations()) {
+	    			for(UMLAnonymousClass createdAnonymousClass : createdAnonymousClasses) {
+	    				if(operation.getLocationInfo().subsumes(createdAnonymousClass.getLocationInfo())) {
+	    					operation.addAnonymousClass(createdAnonymousClass);
 	    				}
 	    			}
-	    			createdAnonymousClasses.add(anonymousClass);
-    			}
+	    		}
+	    		createdAnonymousClasses.add(anonymousClass);
     		}
     	}
 	}
@@ -456,7 +513,7 @@ public class UMLModelASTReader {
 
 	private UMLOperation processMethodDeclaration(CompilationUnit cu, MethodDeclaration methodDeclaration, String packageName, boolean isInterfaceMethod, String sourceFile, List<UMLComment> comments) {
 		UMLJavadoc javadoc = generateJavadoc(cu, methodDeclaration, sourceFile);
-		String methodName = methodDeclaration.getName().getFullyQualifiedName();
+		String methodName = symbolTable.intern(methodDeclaration.getName().getFullyQualifiedName());
 		LocationInfo locationInfo = generateLocationInfo(cu, sourceFile, methodDeclaration, CodeElementType.METHOD_DECLARATION);
 		UMLOperation umlOperation = new UMLOperation(methodName, locationInfo);
 		umlOperation.setJavadoc(javadoc);
@@ -499,7 +556,7 @@ public class UMLModelASTReader {
 		
 		List<TypeParameter> typeParameters = methodDeclaration.typeParameters();
 		for(TypeParameter typeParameter : typeParameters) {
-			UMLTypeParameter umlTypeParameter = new UMLTypeParameter(typeParameter.getName().getFullyQualifiedName());
+			UMLTypeParameter umlTypeParameter = new UMLTypeParameter(symbolTable.intern(typeParameter.getName().getFullyQualifiedName()));
 			List<Type> typeBounds = typeParameter.typeBounds();
 			for(Type type : typeBounds) {
 				umlTypeParameter.addTypeBound(UMLType.extractTypeObject(cu, sourceFile, type, 0));
@@ -535,7 +592,7 @@ public class UMLModelASTReader {
 		List<SingleVariableDeclaration> parameters = methodDeclaration.parameters();
 		for(SingleVariableDeclaration parameter : parameters) {
 			Type parameterType = parameter.getType();
-			String parameterName = parameter.getName().getFullyQualifiedName();
+			String parameterName = symbolTable.intern(parameter.getName().getFullyQualifiedName());
 			UMLType type = UMLType.extractTypeObject(cu, sourceFile, parameterType, parameter.getExtraDimensions());
 			UMLParameter umlParameter = new UMLParameter(parameterName, type, "in", parameter.isVarargs());
 			VariableDeclaration variableDeclaration = new VariableDeclaration(cu, sourceFile, parameter, parameter.isVarargs());
@@ -554,7 +611,7 @@ public class UMLModelASTReader {
 	private void processEnumConstantDeclaration(CompilationUnit cu, EnumConstantDeclaration enumConstantDeclaration, String sourceFile, UMLClass umlClass, List<UMLComment> comments) {
 		UMLJavadoc javadoc = generateJavadoc(cu, enumConstantDeclaration, sourceFile);
 		LocationInfo locationInfo = generateLocationInfo(cu, sourceFile, enumConstantDeclaration, CodeElementType.ENUM_CONSTANT_DECLARATION);
-		UMLEnumConstant enumConstant = new UMLEnumConstant(enumConstantDeclaration.getName().getIdentifier(), UMLType.extractTypeObject(umlClass.getName()), locationInfo);
+		UMLEnumConstant enumConstant = new UMLEnumConstant(symbolTable.intern(enumConstantDeclaration.getName().getIdentifier()), UMLType.extractTypeObject(umlClass.getName()), locationInfo);
 		VariableDeclaration variableDeclaration = new VariableDeclaration(cu, sourceFile, enumConstantDeclaration);
 		enumConstant.setVariableDeclaration(variableDeclaration);
 		enumConstant.setJavadoc(javadoc);
@@ -578,7 +635,7 @@ public class UMLModelASTReader {
 		List<VariableDeclarationFragment> fragments = fieldDeclaration.fragments();
 		for(VariableDeclarationFragment fragment : fragments) {
 			UMLType type = UMLType.extractTypeObject(cu, sourceFile, fieldType, fragment.getExtraDimensions());
-			String fieldName = fragment.getName().getFullyQualifiedName();
+			String fieldName = symbolTable.intern(fragment.getName().getFullyQualifiedName());
 			LocationInfo locationInfo = generateLocationInfo(cu, sourceFile, fragment, CodeElementType.FIELD_DECLARATION);
 			UMLAttribute umlAttribute = new UMLAttribute(fieldName, type, locationInfo);
 			VariableDeclaration variableDeclaration = new VariableDeclaration(cu, sourceFile, fragment);
@@ -644,24 +701,7 @@ public class UMLModelASTReader {
 		return anonymousClass;
 	}
 	
-	private void insertNode(AnonymousClassDeclaration childAnonymous, DefaultMutableTreeNode root) {
-		Enumeration enumeration = root.postorderEnumeration();
-		DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(childAnonymous);
-		
-		DefaultMutableTreeNode parentNode = root;
-		while(enumeration.hasMoreElements()) {
-			DefaultMutableTreeNode currentNode = (DefaultMutableTreeNode)enumeration.nextElement();
-			AnonymousClassDeclaration currentAnonymous = (AnonymousClassDeclaration)currentNode.getUserObject();
-			if(currentAnonymous != null && isParent(childAnonymous, currentAnonymous)) {
-				parentNode = currentNode;
-				break;
-			}
-		}
-		parentNode.add(childNode);
-	}
-
-	private String getAnonymousCodePath(DefaultMutableTreeNode node) {
-		AnonymousClassDeclaration anonymous = (AnonymousClassDeclaration)node.getUserObject();
+	private String getAnonymousCodePath(AnonymousClassDeclaration anonymous) {
 		String name = "";
 		ASTNode parent = anonymous.getParent();
 		while(parent != null) {
@@ -708,32 +748,6 @@ public class UMLModelASTReader {
 		return name.toString();
 	}
 
-	private String getAnonymousBinaryName(DefaultMutableTreeNode node) {
-		StringBuilder name = new StringBuilder();
-		TreeNode[] path = node.getPath();
-		for(int i=0; i<path.length; i++) {
-			DefaultMutableTreeNode tmp = (DefaultMutableTreeNode)path[i];
-			if(tmp.getUserObject() != null) {
-				DefaultMutableTreeNode parent = (DefaultMutableTreeNode)tmp.getParent();
-				int index = parent.getIndex(tmp);
-				name.append(index+1);
-				if(i < path.length-1)
-					name.append(".");
-			}
-		}
-		return name.toString();
-	}
-	
-	private boolean isParent(ASTNode child, ASTNode parent) {
-		ASTNode current = child;
-		while(current.getParent() != null) {
-			if(current.getParent().equals(parent))
-				return true;
-			current = current.getParent();
-		}
-		return false;
-	}
-
 	private LocationInfo generateLocationInfo(CompilationUnit cu, String sourceFile, ASTNode node, CodeElementType codeElementType) {
 		return new LocationInfo(cu, sourceFile, node, codeElementType);
 	}
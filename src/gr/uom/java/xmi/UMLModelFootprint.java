@@ -0,0 +1,211 @@
+package gr.uom.java.xmi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The objects reachable from a {@link UMLModel} and an estimate of their size, assuming a 64-bit JVM with
+ * compressed references. The collections of the JDK are measured through their public API, so their internal
+ * arrays and entries are approximated.
+ * <p>
+ * The footprint also records the JDT objects reachable from the model, which should be none: once the model is
+ * built, the compilation units it was read from must be collectable.
+ */
+public class UMLModelFootprint {
+	private static final int OBJECT_HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+	private static final int HASH_ENTRY = 32;
+	private static final String JDT_PACKAGE = "org.eclipse.jdt.";
+	private static final Map<Class<?>, List<Field>> fieldCache = new ConcurrentHashMap<Class<?>, List<Field>>();
+
+	private long objectCount;
+	private long estimatedBytes;
+	private long jdtObjectCount;
+	private List<String> jdtReferences = new ArrayList<String>();
+
+	private UMLModelFootprint() {
+	}
+
+	public static UMLModelFootprint of(UMLModel model) {
+		UMLModelFootprint footprint = new UMLModelFootprint();
+		footprint.measure(model);
+		return footprint;
+	}
+
+	public long getObjectCount() {
+		return objectCount;
+	}
+
+	public long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	public long getJdtObjectCount() {
+		return jdtObjectCount;
+	}
+
+	/**
+	 * @return the distinct fields through which JDT objects are reached, e.g. {@code AnonymousClassDeclarationObject.astNode}
+	 */
+	public List<String> getJdtReferences() {
+		return jdtReferences;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d objects, %.1f MB", objectCount, estimatedBytes / (1024.0 * 1024.0));
+	}
+
+	private void measure(Object root) {
+		Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		Deque<Object> stack = new ArrayDeque<Object>();
+		visited.add(root);
+		stack.push(root);
+		while(!stack.isEmpty()) {
+			Object object = stack.pop();
+			objectCount++;
+			List<Object> references = new ArrayList<Object>();
+			estimatedBytes += visit(object, references);
+			for(Object reference : references) {
+				if(reference != null && visited.add(reference)) {
+					stack.push(reference);
+				}
+			}
+		}
+	}
+
+	private long visit(Object object, List<Object> references) {
+		Class<?> type = object.getClass();
+		if(type.isArray()) {
+			int length = Array.getLength(object);
+			Class<?> componentType = type.getComponentType();
+			if(componentType.isPrimitive()) {
+				return align(ARRAY_HEADER + (long)length * primitiveSize(componentType));
+			}
+			for(int i=0; i<length; i++) {
+				references.add(Array.get(object, i));
+			}
+			return align(ARRAY_HEADER + (long)length * REFERENCE);
+		}
+		if(object instanceof String) {
+			//compact strings store one byte per character, unless they contain non-Latin-1 characters
+			return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + ((String)object).length());
+		}
+		if(object instanceof Class || object instanceof Enum) {
+			return 0;
+		}
+		if(type.getName().startsWith(JDT_PACKAGE)) {
+			jdtObjectCount++;
+			return shallowSize(type);
+		}
+		if(type.getName().startsWith("java.")) {
+			if(object instanceof Collection) {
+				Collection<?> collection = (Collection<?>)object;
+				references.addAll(collection);
+				return shallowSize(type) + containerSize(collection instanceof Set, collection.size());
+			}
+			if(object instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>)object;
+				for(Map.Entry<?, ?> entry : map.entrySet()) {
+					references.add(entry.getKey());
+					references.add(entry.getValue());
+				}
+				return shallowSize(type) + containerSize(true, map.size());
+			}
+		}
+		long size = OBJECT_HEADER;
+		for(Class<?> c = type; c != null; c = c.getSuperclass()) {
+			for(Field field : fields(c)) {
+				Class<?> fieldType = field.getType();
+				if(fieldType.isPrimitive()) {
+					size += primitiveSize(fieldType);
+				}
+				else {
+					size += REFERENCE;
+					if(field.canAccess(object)) {
+						Object value = getValue(field, object);
+						if(value != null && value.getClass().getName().startsWith(JDT_PACKAGE)) {
+							String reference = field.getDeclaringClass().getSimpleName() + "." + field.getName();
+							if(!jdtReferences.contains(reference)) {
+								jdtReferences.add(reference);
+							}
+						}
+						references.add(value);
+					}
+				}
+			}
+		}
+		return align(size);
+	}
+
+	private static long shallowSize(Class<?> type) {
+		long size = OBJECT_HEADER;
+		for(Class<?> c = type; c != null; c = c.getSuperclass()) {
+			for(Field field : c.getDeclaredFields()) {
+				if(!Modifier.isStatic(field.getModifiers())) {
+					size += field.getType().isPrimitive() ? primitiveSize(field.getType()) : REFERENCE;
+				}
+			}
+		}
+		return align(size);
+	}
+
+	private static long containerSize(boolean hashed, int size) {
+		if(hashed) {
+			//a table sized for the default load factor, and one node per entry
+			long capacity = Math.max(16, Long.highestOneBit(Math.max(1, (long)(size / 0.75f)) * 2 - 1));
+			return size == 0 ? 0 : align(ARRAY_HEADER + capacity * REFERENCE) + size * HASH_ENTRY;
+		}
+		return size == 0 ? 0 : align(ARRAY_HEADER + (long)size * REFERENCE);
+	}
+
+	private static List<Field> fields(Class<?> type) {
+		List<Field> fields = fieldCache.get(type);
+		if(fields == null) {
+			fields = new ArrayList<Field>();
+			for(Field field : type.getDeclaredFields()) {
+				if(!Modifier.isStatic(field.getModifiers())) {
+					//the fields of JDK classes are not accessible, so only their size is counted
+					field.trySetAccessible();
+					fields.add(field);
+				}
+			}
+			fieldCache.put(type, fields);
+		}
+		return fields;
+	}
+
+	private static Object getValue(Field field, Object object) {
+		try {
+			return field.get(object);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static int primitiveSize(Class<?> type) {
+		if(type == long.class || type == double.class)
+			return 8;
+		if(type == int.class || type == float.class)
+			return 4;
+		if(type == short.class || type == char.class)
+			return 2;
+		return 1;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+}
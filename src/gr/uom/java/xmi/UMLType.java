@@ -2,7 +2,10 @@ package gr.uom.java.xmi;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.core.dom.AnnotatableType;
 import org.eclipse.jdt.core.dom.Annotation;
@@ -22,10 +25,19 @@ import gr.uom.java.xmi.diff.CodeRange;
 import gr.uom.java.xmi.diff.StringDistance;
 
 public abstract class UMLType implements Serializable, LocationInfoProvider {
+	private static final int MAX_CANONICAL_TYPES = 10000;
+	private static final Map<String, LeafType> canonicalTypes = new ConcurrentHashMap<String, LeafType>();
 	private LocationInfo locationInfo;
 	private int arrayDimension;
 	private List<UMLType> typeArguments = new ArrayList<UMLType>();
 	protected List<UMLAnnotation> annotations = new ArrayList<UMLAnnotation>();
+	//string forms and hash code are computed on first use, and reset when the array dimension or type arguments change
+	private transient volatile String string;
+	private transient volatile String qualifiedString;
+	private transient volatile String typeArgumentsString;
+	private transient volatile int hashCode;
+	//set on the instances returned by extractTypeObject(String), which are shared by all threads and models
+	private transient boolean shared;
 
 	public LocationInfo getLocationInfo() {
 		return locationInfo;
@@ -48,10 +60,30 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 	}
 
 	public void setVarargs() {
+		if(shared) {
+			throw new UnsupportedOperationException("The shared type " + this + " cannot be modified");
+		}
 		arrayDimension++;
+		resetCache();
+	}
+
+	private void resetCache() {
+		string = null;
+		qualifiedString = null;
+		typeArgumentsString = null;
+		hashCode = 0;
 	}
 
 	protected String typeArgumentsToString() {
+		String typeArgumentsString = this.typeArgumentsString;
+		if(typeArgumentsString == null) {
+			typeArgumentsString = buildTypeArgumentsString();
+			this.typeArgumentsString = typeArgumentsString;
+		}
+		return typeArgumentsString;
+	}
+
+	private String buildTypeArgumentsString() {
 		StringBuilder sb = new StringBuilder();
 		if(typeArguments.isEmpty()) {
 			sb.append("");
@@ -135,11 +167,40 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 	}
 
 	public abstract boolean equals(Object o);
-	public abstract int hashCode();
-	public abstract String toString();
-	public abstract String toQualifiedString();
+	protected abstract int computeHashCode();
+	protected abstract String buildString();
+	protected abstract String buildQualifiedString();
 	public abstract String getClassType();
 
+	@Override
+	public final int hashCode() {
+		int hashCode = this.hashCode;
+		if(hashCode == 0) {
+			hashCode = computeHashCode();
+			this.hashCode = hashCode;
+		}
+		return hashCode;
+	}
+
+	@Override
+	public final String toString() {
+		String string = this.string;
+		if(string == null) {
+			string = buildString();
+			this.string = string;
+		}
+		return string;
+	}
+
+	public final String toQualifiedString() {
+		String qualifiedString = this.qualifiedString;
+		if(qualifiedString == null) {
+			qualifiedString = buildQualifiedString();
+			this.qualifiedString = qualifiedString;
+		}
+		return qualifiedString;
+	}
+
 	public boolean equalsQualified(UMLType type) {
 		if(this.getClass() == type.getClass()) {
 			return this.equals(type);
@@ -173,7 +234,34 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 		return normalized;
 	}
 
+	/**
+	 * @return a shared instance of the type, which has no location and annotations and cannot be modified:
+	 * its type argument and annotation lists are unmodifiable, and {@link #setVarargs()} fails
+	 */
 	public static LeafType extractTypeObject(String qualifiedName) {
+		LeafType typeObject = canonicalTypes.get(qualifiedName);
+		if(typeObject == null) {
+			typeObject = parseTypeObject(qualifiedName);
+			share(typeObject);
+			if(canonicalTypes.size() >= MAX_CANONICAL_TYPES) {
+				canonicalTypes.clear();
+			}
+			LeafType existing = canonicalTypes.putIfAbsent(qualifiedName, typeObject);
+			if(existing != null) {
+				typeObject = existing;
+			}
+		}
+		return typeObject;
+	}
+
+	private static void share(UMLType typeObject) {
+		//the type arguments were created by extractTypeObject(String), so they are already shared
+		typeObject.typeArguments = Collections.unmodifiableList(typeObject.typeArguments);
+		typeObject.annotations = Collections.unmodifiableList(typeObject.annotations);
+		typeObject.shared = true;
+	}
+
+	private static LeafType parseTypeObject(String qualifiedName) {
 		int arrayDimension = 0;
 		List<UMLType> typeArgumentDecomposition = new ArrayList<UMLType>();
 		if(qualifiedName.endsWith("[]")) {
@@ -236,12 +324,13 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 		UMLType umlType = extractTypeObject(cu, filePath, type);
 		umlType.locationInfo = new LocationInfo(cu, filePath, type, CodeElementType.TYPE);
 		umlType.arrayDimension += extraDimensions;
+		umlType.resetCache();
 		return umlType;
 	}
 
 	private static UMLType extractTypeObject(CompilationUnit cu, String filePath, Type type) {
 		if(type.isPrimitiveType() || type.isSimpleType()) {
-			LeafType leafType = extractTypeObject(type.toString());
+			LeafType leafType = parseTypeObject(SymbolTable.intern(cu, type.toString()));
 			AnnotatableType annotatableType = (AnnotatableType)type;
 			List<Annotation> annotations = annotatableType.annotations();
 			for(Annotation annotation : annotations) {
@@ -252,7 +341,7 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 		else if(type instanceof QualifiedType) {
 			QualifiedType qualified = (QualifiedType)type;
 			UMLType leftType = extractTypeObject(cu, filePath, qualified.getQualifier());
-			LeafType rightType = extractTypeObject(qualified.getName().getFullyQualifiedName());
+			LeafType rightType = parseTypeObject(SymbolTable.intern(cu, qualified.getName().getFullyQualifiedName()));
 			AnnotatableType annotatableType = (AnnotatableType)qualified;
 			List<Annotation> annotations = annotatableType.annotations();
 			for(Annotation annotation : annotations) {
@@ -262,8 +351,8 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 		}
 		else if(type instanceof NameQualifiedType) {
 			NameQualifiedType nameQualified = (NameQualifiedType)type;
-			LeafType leftType = extractTypeObject(nameQualified.getQualifier().getFullyQualifiedName());
-			LeafType rightType = extractTypeObject(nameQualified.getName().getFullyQualifiedName());
+			LeafType leftType = parseTypeObject(SymbolTable.intern(cu, nameQualified.getQualifier().getFullyQualifiedName()));
+			LeafType rightType = parseTypeObject(SymbolTable.intern(cu, nameQualified.getName().getFullyQualifiedName()));
 			AnnotatableType annotatableType = (AnnotatableType)nameQualified;
 			List<Annotation> annotations = annotatableType.annotations();
 			for(Annotation annotation : annotations) {
@@ -292,6 +381,7 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 			ArrayType array = (ArrayType)type;
 			UMLType arrayType = extractTypeObject(cu, filePath, array.getElementType());
 			arrayType.arrayDimension = array.getDimensions();
+			arrayType.resetCache();
 			return arrayType;
 		}
 		else if(type instanceof ParameterizedType) {
@@ -301,6 +391,7 @@ public abstract class UMLType implements Serializable, LocationInfoProvider {
 			for(Type argument : typeArguments) {
 				container.typeArguments.add(extractTypeObject(cu, filePath, argument));
 			}
+			container.resetCache();
 			return container;
 		}
 		else if(type instanceof UnionType) {
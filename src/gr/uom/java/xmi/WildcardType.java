@@ -10,7 +10,7 @@ public class WildcardType extends UMLType {
 	}
 
 	@Override
-	public int hashCode() {
+	protected int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((bound == null) ? 0 : bound.hashCode());
@@ -38,7 +38,7 @@ public class WildcardType extends UMLType {
 	}
 
 	@Override
-	public String toString() {
+	protected String buildString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("?");
 		if(bound != null) {
@@ -52,7 +52,7 @@ public class WildcardType extends UMLType {
 	}
 
 	@Override
-	public String toQualifiedString() {
+	protected String buildQualifiedString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("?");
 		if(bound != null) {
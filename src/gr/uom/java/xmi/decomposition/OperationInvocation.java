@@ -2,6 +2,7 @@ package gr.uom.java.xmi.decomposition;
 
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.SymbolTable;
 import gr.uom.java.xmi.UMLAbstractClass;
 import gr.uom.java.xmi.UMLClass;
 import gr.uom.java.xmi.UMLOperation;
@@ -77,7 +78,7 @@ public class OperationInvocation extends AbstractCall {
 
 	public OperationInvocation(CompilationUnit cu, String filePath, MethodInvocation invocation) {
 		this.locationInfo = new LocationInfo(cu, filePath, invocation, CodeElementType.METHOD_INVOCATION);
-		this.methodName = invocation.getName().getIdentifier();
+		this.methodName = SymbolTable.intern(cu, invocation.getName().getIdentifier());
 		this.typeArguments = invocation.arguments().size();
 		this.arguments = new ArrayList<String>();
 		List<Expression> args = invocation.arguments();
@@ -121,7 +122,7 @@ public class OperationInvocation extends AbstractCall {
 
 	public OperationInvocation(CompilationUnit cu, String filePath, SuperMethodInvocation invocation) {
 		this.locationInfo = new LocationInfo(cu, filePath, invocation, CodeElementType.SUPER_METHOD_INVOCATION);
-		this.methodName = invocation.getName().getIdentifier();
+		this.methodName = SymbolTable.intern(cu, invocation.getName().getIdentifier());
 		this.typeArguments = invocation.arguments().size();
 		this.arguments = new ArrayList<String>();
 		this.expression = "super";
@@ -20,6 +20,7 @@ import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.LocationInfoProvider;
+import gr.uom.java.xmi.SymbolTable;
 import gr.uom.java.xmi.UMLAnnotation;
 import gr.uom.java.xmi.UMLType;
 import gr.uom.java.xmi.VariableDeclarationProvider;
@@ -74,7 +75,7 @@ public class VariableDeclaration implements LocationInfoProvider, VariableDeclar
 			}
 		}
 		this.locationInfo = new LocationInfo(cu, filePath, fragment, extractVariableDeclarationType(fragment));
-		this.variableName = fragment.getName().getIdentifier();
+		this.variableName = SymbolTable.intern(cu, fragment.getName().getIdentifier());
 		this.initializer = fragment.getInitializer() != null ? new AbstractExpression(cu, filePath, fragment.getInitializer(), CodeElementType.VARIABLE_DECLARATION_INITIALIZER) : null;
 		Type astType = extractType(fragment);
 		this.type = UMLType.extractTypeObject(cu, filePath, astType, fragment.getExtraDimensions());
@@ -105,7 +106,7 @@ public class VariableDeclaration implements LocationInfoProvider, VariableDeclar
 			}
 		}
 		this.locationInfo = new LocationInfo(cu, filePath, fragment, extractVariableDeclarationType(fragment));
-		this.variableName = fragment.getName().getIdentifier();
+		this.variableName = SymbolTable.intern(cu, fragment.getName().getIdentifier());
 		this.initializer = fragment.getInitializer() != null ? new AbstractExpression(cu, filePath, fragment.getInitializer(), CodeElementType.VARIABLE_DECLARATION_INITIALIZER) : null;
 		Type astType = extractType(fragment);
 		this.type = UMLType.extractTypeObject(cu, filePath, astType, fragment.getExtraDimensions());
@@ -135,7 +136,7 @@ public class VariableDeclaration implements LocationInfoProvider, VariableDeclar
 			}
 		}
 		this.locationInfo = new LocationInfo(cu, filePath, fragment, CodeElementType.ENUM_CONSTANT_DECLARATION);
-		this.variableName = fragment.getName().getIdentifier();
+		this.variableName = SymbolTable.intern(cu, fragment.getName().getIdentifier());
 		this.initializer = null;
 		if(fragment.getParent() instanceof EnumDeclaration) {
 			EnumDeclaration enumDeclaration = (EnumDeclaration)fragment.getParent();
@@ -1,7 +1,9 @@
 package gr.uom.java.xmi.decomposition;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -9,8 +11,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import javax.swing.tree.DefaultMutableTreeNode;
-
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
@@ -54,6 +54,8 @@ import org.eclipse.jdt.core.dom.TypeLiteral;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jdt.core.dom.WildcardType;
 
+import gr.uom.java.xmi.SymbolTable;
+
 public class Visitor extends ASTVisitor {
 	public static final Pattern METHOD_INVOCATION_PATTERN = Pattern.compile("!(\\w|\\.)*@\\w*");
 	public static final Pattern METHOD_SIGNATURE_PATTERN = Pattern.compile("(public|protected|private|static|\\s) +[\\w\\<\\>\\[\\]]+\\s+(\\w+) *\\([^\\)]*\\) *(\\{?|[^;])");
@@ -79,18 +81,22 @@ public class Visitor extends ASTVisitor {
 	private List<TernaryOperatorExpression> ternaryOperatorExpressions = new ArrayList<TernaryOperatorExpression>();
 	private List<LambdaExpressionObject> lambdas = new ArrayList<LambdaExpressionObject>();
 	private Set<ASTNode> builderPatternChains = new LinkedHashSet<ASTNode>();
-	private DefaultMutableTreeNode root = new DefaultMutableTreeNode();
-	private DefaultMutableTreeNode current = root;
+	//the anonymous class declarations enclosing the node being visited, innermost first
+	private Deque<AnonymousClassDeclarationObject> anonymousClassStack = new ArrayDeque<AnonymousClassDeclarationObject>();
 
 	public Visitor(CompilationUnit cu, String filePath) {
 		this.cu = cu;
 		this.filePath = filePath;
 	}
 
+	private String intern(String symbol) {
+		return SymbolTable.intern(cu, symbol);
+	}
+
 	public boolean visit(ArrayAccess node) {
 		arrayAccesses.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getArrayAccesses().add(node.toString());
 		}
 		return super.visit(node);
@@ -98,8 +104,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(PrefixExpression node) {
 		prefixExpressions.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getPrefixExpressions().add(node.toString());
 		}
 		return super.visit(node);
@@ -107,8 +113,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(PostfixExpression node) {
 		postfixExpressions.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getPostfixExpressions().add(node.toString());
 		}
 		return super.visit(node);
@@ -117,8 +123,8 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(ConditionalExpression node) {
 		TernaryOperatorExpression ternary = new TernaryOperatorExpression(cu, filePath, node);
 		ternaryOperatorExpressions.add(ternary);
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getTernaryOperatorExpressions().add(ternary);
 		}
 		return super.visit(node);
@@ -127,8 +133,8 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(InfixExpression node) {
 		infixExpressions.add(node.toString());
 		infixOperators.add(node.getOperator().toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getInfixExpressions().add(node.toString());
 			anonymous.getInfixOperators().add(node.getOperator().toString());
 		}
@@ -150,8 +156,8 @@ public class Visitor extends ASTVisitor {
 			list.add(creation);
 			creationMap.put(nodeAsString, list);
 		}
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			Map<String, List<ObjectCreation>> anonymousCreationMap = anonymous.getCreationMap();
 			if(anonymousCreationMap.containsKey(nodeAsString)) {
 				anonymousCreationMap.get(nodeAsString).add(creation);
@@ -176,8 +182,8 @@ public class Visitor extends ASTVisitor {
 			list.add(creation);
 			creationMap.put(nodeAsString, list);
 		}
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			Map<String, List<ObjectCreation>> anonymousCreationMap = anonymous.getCreationMap();
 			if(anonymousCreationMap.containsKey(nodeAsString)) {
 				anonymousCreationMap.get(nodeAsString).add(creation);
@@ -202,8 +208,8 @@ public class Visitor extends ASTVisitor {
 		if(!(node.getParent() instanceof LambdaExpression)) {
 			VariableDeclaration variableDeclaration = new VariableDeclaration(cu, filePath, node);
 			variableDeclarations.add(variableDeclaration);
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 				anonymous.getVariableDeclarations().add(variableDeclaration);
 			}
 		}
@@ -213,22 +219,21 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(SingleVariableDeclaration node) {
 		VariableDeclaration variableDeclaration = new VariableDeclaration(cu, filePath, node);
 		variableDeclarations.add(variableDeclaration);
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getVariableDeclarations().add(variableDeclaration);
 		}
 		return super.visit(node);
 	}
 
 	public boolean visit(AnonymousClassDeclaration node) {
-		DefaultMutableTreeNode childNode = insertNode(node);
-		AnonymousClassDeclarationObject childAnonymous = (AnonymousClassDeclarationObject)childNode.getUserObject();
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject currentAnonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		AnonymousClassDeclarationObject childAnonymous = new AnonymousClassDeclarationObject(cu, filePath, node);
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject currentAnonymous = anonymousClassStack.peek();
 			currentAnonymous.getAnonymousClassDeclarations().add(childAnonymous);
 		}
 		anonymousClassDeclarations.add(childAnonymous);
-		this.current = childNode;
+		anonymousClassStack.push(childAnonymous);
 		for(ASTNode parent : builderPatternChains) {
 			if(isParent(node, parent)) {
 				return false;
@@ -238,19 +243,19 @@ public class Visitor extends ASTVisitor {
 	}
 
 	public void endVisit(AnonymousClassDeclaration node) {
-		DefaultMutableTreeNode parentNode = deleteNode(node);
 		for(ASTNode parent : builderPatternChains) {
 			if(isParent(node, parent) || isParent(parent, node)) {
 				removeAnonymousData();
 				break;
 			}
 		}
-		this.current = parentNode;
+		AnonymousClassDeclarationObject childAnonymous = anonymousClassStack.pop();
+		childAnonymous.setAstNode(null);
 	}
 
 	private void removeAnonymousData() {
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			this.variables.removeAll(anonymous.getVariables());
 			this.types.removeAll(anonymous.getTypes());
 			for(String key : anonymous.getMethodInvocationMap().keySet()) {
@@ -273,56 +278,6 @@ public class Visitor extends ASTVisitor {
 		}
 	}
 
-	private DefaultMutableTreeNode deleteNode(AnonymousClassDeclaration childAnonymous) {
-		Enumeration enumeration = root.postorderEnumeration();
-		DefaultMutableTreeNode childNode = findNode(childAnonymous);
-		
-		DefaultMutableTreeNode parentNode = root;
-		while(enumeration.hasMoreElements()) {
-			DefaultMutableTreeNode currentNode = (DefaultMutableTreeNode)enumeration.nextElement();
-			AnonymousClassDeclarationObject currentAnonymous = (AnonymousClassDeclarationObject)currentNode.getUserObject();
-			if(currentAnonymous != null && isParent(childAnonymous, currentAnonymous.getAstNode())) {
-				parentNode = currentNode;
-				break;
-			}
-		}
-		parentNode.remove(childNode);
-		AnonymousClassDeclarationObject childAnonymousObject = (AnonymousClassDeclarationObject)childNode.getUserObject();
-		childAnonymousObject.setAstNode(null);
-		return parentNode;
-	}
-
-	private DefaultMutableTreeNode insertNode(AnonymousClassDeclaration childAnonymous) {
-		Enumeration enumeration = root.postorderEnumeration();
-		AnonymousClassDeclarationObject anonymousObject = new AnonymousClassDeclarationObject(cu, filePath, childAnonymous);
-		DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(anonymousObject);
-		
-		DefaultMutableTreeNode parentNode = root;
-		while(enumeration.hasMoreElements()) {
-			DefaultMutableTreeNode currentNode = (DefaultMutableTreeNode)enumeration.nextElement();
-			AnonymousClassDeclarationObject currentAnonymous = (AnonymousClassDeclarationObject)currentNode.getUserObject();
-			if(currentAnonymous != null && isParent(childAnonymous, currentAnonymous.getAstNode())) {
-				parentNode = currentNode;
-				break;
-			}
-		}
-		parentNode.add(childNode);
-		return childNode;
-	}
-
-	private DefaultMutableTreeNode findNode(AnonymousClassDeclaration anonymous) {
-		Enumeration enumeration = root.postorderEnumeration();
-		
-		while(enumeration.hasMoreElements()) {
-			DefaultMutableTreeNode currentNode = (DefaultMutableTreeNode)enumeration.nextElement();
-			AnonymousClassDeclarationObject currentAnonymous = (AnonymousClassDeclarationObject)currentNode.getUserObject();
-			if(currentAnonymous != null && currentAnonymous.getAstNode().equals(anonymous)) {
-				return currentNode;
-			}
-		}
-		return null;
-	}
-
 	private boolean isParent(ASTNode child, ASTNode parent) {
 		ASTNode current = child;
 		while(current.getParent() != null) {
@@ -335,8 +290,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(StringLiteral node) {
 		stringLiterals.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getStringLiterals().add(node.toString());
 		}
 		return super.visit(node);
@@ -344,8 +299,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(NumberLiteral node) {
 		numberLiterals.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getNumberLiterals().add(node.toString());
 		}
 		return super.visit(node);
@@ -353,8 +308,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(NullLiteral node) {
 		nullLiterals.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getNullLiterals().add(node.toString());
 		}
 		return super.visit(node);
@@ -362,8 +317,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(BooleanLiteral node) {
 		booleanLiterals.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getBooleanLiterals().add(node.toString());
 		}
 		return super.visit(node);
@@ -371,8 +326,8 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(TypeLiteral node) {
 		typeLiterals.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getTypeLiterals().add(node.toString());
 		}
 		return super.visit(node);
@@ -380,10 +335,10 @@ public class Visitor extends ASTVisitor {
 
 	public boolean visit(ThisExpression node) {
 		if(!(node.getParent() instanceof FieldAccess)) {
-			variables.add(node.toString());
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-				anonymous.getVariables().add(node.toString());
+			variables.add(intern(node.toString()));
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+				anonymous.getVariables().add(intern(node.toString()));
 			}
 		}
 		return super.visit(node);
@@ -392,10 +347,10 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(SimpleName node) {
 		if(node.getParent() instanceof FieldAccess && ((FieldAccess)node.getParent()).getExpression() instanceof ThisExpression) {
 			FieldAccess fieldAccess = (FieldAccess)node.getParent();
-			variables.add(fieldAccess.toString());
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-				anonymous.getVariables().add(fieldAccess.toString());
+			variables.add(intern(fieldAccess.toString()));
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+				anonymous.getVariables().add(intern(fieldAccess.toString()));
 			}
 		}
 		else if(node.getParent() instanceof MethodInvocation &&
@@ -433,66 +388,66 @@ public class Visitor extends ASTVisitor {
 			// skip names being part of qualified names
 		}
 		else {
-			variables.add(node.getIdentifier());
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-				anonymous.getVariables().add(node.getIdentifier());
+			variables.add(intern(node.getIdentifier()));
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+				anonymous.getVariables().add(intern(node.getIdentifier()));
 			}
 		}
 		return super.visit(node);
 	}
 	
 	public boolean visit(ArrayType node) {
-		types.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-			anonymous.getTypes().add(node.toString());
+		types.add(intern(node.toString()));
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+			anonymous.getTypes().add(intern(node.toString()));
 		}
 		return false;
 	}
 	
 	public boolean visit(ParameterizedType node) {
-		types.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-			anonymous.getTypes().add(node.toString());
+		types.add(intern(node.toString()));
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+			anonymous.getTypes().add(intern(node.toString()));
 		}
 		return false;
 	}
 	
 	public boolean visit(WildcardType node) {
-		types.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-			anonymous.getTypes().add(node.toString());
+		types.add(intern(node.toString()));
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+			anonymous.getTypes().add(intern(node.toString()));
 		}
 		return false;
 	}
 	
 	public boolean visit(QualifiedType node) {
-		types.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-			anonymous.getTypes().add(node.toString());
+		types.add(intern(node.toString()));
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+			anonymous.getTypes().add(intern(node.toString()));
 		}
 		return false;
 	}
 	
 	public boolean visit(PrimitiveType node) {
-		types.add(node.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-			anonymous.getTypes().add(node.toString());
+		types.add(intern(node.toString()));
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+			anonymous.getTypes().add(intern(node.toString()));
 		}
 		return false;
 	}
 	
 	public boolean visit(SimpleType node) {
 		Name name = node.getName();
-		types.add(name.getFullyQualifiedName());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-			anonymous.getTypes().add(name.getFullyQualifiedName());
+		types.add(intern(name.getFullyQualifiedName()));
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+			anonymous.getTypes().add(intern(name.getFullyQualifiedName()));
 		}
 		return false;
 	}
@@ -537,8 +492,8 @@ public class Visitor extends ASTVisitor {
 			list.add(invocation);
 			methodInvocationMap.put(methodInvocation, list);
 		}
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			Map<String, List<OperationInvocation>> anonymousMethodInvocationMap = anonymous.getMethodInvocationMap();
 			if(anonymousMethodInvocationMap.containsKey(methodInvocation)) {
 				anonymousMethodInvocationMap.get(methodInvocation).add(invocation);
@@ -600,8 +555,8 @@ public class Visitor extends ASTVisitor {
 			list.add(invocation);
 			methodInvocationMap.put(nodeAsString, list);
 		}
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			Map<String, List<OperationInvocation>> anonymousMethodInvocationMap = anonymous.getMethodInvocationMap();
 			if(anonymousMethodInvocationMap.containsKey(nodeAsString)) {
 				anonymousMethodInvocationMap.get(nodeAsString).add(invocation);
@@ -630,8 +585,8 @@ public class Visitor extends ASTVisitor {
 			list.add(invocation);
 			methodInvocationMap.put(nodeAsString, list);
 		}
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			Map<String, List<OperationInvocation>> anonymousMethodInvocationMap = anonymous.getMethodInvocationMap();
 			if(anonymousMethodInvocationMap.containsKey(nodeAsString)) {
 				anonymousMethodInvocationMap.get(nodeAsString).add(invocation);
@@ -660,8 +615,8 @@ public class Visitor extends ASTVisitor {
 			list.add(invocation);
 			methodInvocationMap.put(nodeAsString, list);
 		}
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			Map<String, List<OperationInvocation>> anonymousMethodInvocationMap = anonymous.getMethodInvocationMap();
 			if(anonymousMethodInvocationMap.containsKey(nodeAsString)) {
 				anonymousMethodInvocationMap.get(nodeAsString).add(invocation);
@@ -686,8 +641,8 @@ public class Visitor extends ASTVisitor {
 				(argument instanceof InfixExpression && invalidInfix((InfixExpression)argument)))
 			return;
 		this.arguments.add(argument.toString());
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getArguments().add(argument.toString());
 		}
 	}
@@ -695,23 +650,23 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(QualifiedName node) {
 		Name qualifier = node.getQualifier();
 		if(Character.isUpperCase(qualifier.getFullyQualifiedName().charAt(0))) {
-			types.add(qualifier.getFullyQualifiedName());
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-				anonymous.getTypes().add(qualifier.getFullyQualifiedName());
+			types.add(intern(qualifier.getFullyQualifiedName()));
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+				anonymous.getTypes().add(intern(qualifier.getFullyQualifiedName()));
 			}
-			variables.add(node.toString());
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-				anonymous.getVariables().add(node.toString());
+			variables.add(intern(node.toString()));
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+				anonymous.getVariables().add(intern(node.toString()));
 			}
 		}
 		else if(qualifier instanceof SimpleName && !(node.getParent() instanceof QualifiedName)) {
 			if(node.getName().getIdentifier().equals("length")) {
-				variables.add(node.toString());
-				if(current.getUserObject() != null) {
-					AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-					anonymous.getVariables().add(node.toString());
+				variables.add(intern(node.toString()));
+				if(!anonymousClassStack.isEmpty()) {
+					AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+					anonymous.getVariables().add(intern(node.toString()));
 				}
 			}
 			else {
@@ -727,20 +682,20 @@ public class Visitor extends ASTVisitor {
 						}
 					}
 					if(qualifierIsParameter) {
-						variables.add(node.toString());
-						if(current.getUserObject() != null) {
-							AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-							anonymous.getVariables().add(node.toString());
+						variables.add(intern(node.toString()));
+						if(!anonymousClassStack.isEmpty()) {
+							AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+							anonymous.getVariables().add(intern(node.toString()));
 						}
 					}
 				}
 				EnhancedForStatement enhancedFor = findParentEnhancedForStatement(node);
 				if(enhancedFor != null) {
 					if(enhancedFor.getParameter().getName().getIdentifier().equals(qualifierIdentifier)) {
-						variables.add(node.toString());
-						if(current.getUserObject() != null) {
-							AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-							anonymous.getVariables().add(node.toString());
+						variables.add(intern(node.toString()));
+						if(!anonymousClassStack.isEmpty()) {
+							AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+							anonymous.getVariables().add(intern(node.toString()));
 						}
 					}
 				}
@@ -774,10 +729,10 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(CastExpression node) {
 		Expression castExpression = node.getExpression();
 		if(castExpression instanceof SimpleName) {
-			variables.add(node.toString());
-			if(current.getUserObject() != null) {
-				AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
-				anonymous.getVariables().add(node.toString());
+			variables.add(intern(node.toString()));
+			if(!anonymousClassStack.isEmpty()) {
+				AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
+				anonymous.getVariables().add(intern(node.toString()));
 			}
 		}
 		return super.visit(node);
@@ -786,87 +741,106 @@ public class Visitor extends ASTVisitor {
 	public boolean visit(LambdaExpression node) {
 		LambdaExpressionObject lambda = new LambdaExpressionObject(cu, filePath, node);
 		lambdas.add(lambda);
-		if(current.getUserObject() != null) {
-			AnonymousClassDeclarationObject anonymous = (AnonymousClassDeclarationObject)current.getUserObject();
+		if(!anonymousClassStack.isEmpty()) {
+			AnonymousClassDeclarationObject anonymous = anonymousClassStack.peek();
 			anonymous.getLambdas().add(lambda);
 		}
 		return false;
 	}
 
 	public Map<String, List<OperationInvocation>> getMethodInvocationMap() {
-		return this.methodInvocationMap;
+		return compact(this.methodInvocationMap);
 	}
 
 	public List<VariableDeclaration> getVariableDeclarations() {
-		return variableDeclarations;
+		return compact(variableDeclarations);
 	}
 
 	public List<String> getTypes() {
-		return types;
+		return compact(types);
 	}
 
 	public List<AnonymousClassDeclarationObject> getAnonymousClassDeclarations() {
-		return anonymousClassDeclarations;
+		return compact(anonymousClassDeclarations);
 	}
 
 	public List<String> getStringLiterals() {
-		return stringLiterals;
+		return compact(stringLiterals);
 	}
 
 	public List<String> getNumberLiterals() {
-		return numberLiterals;
+		return compact(numberLiterals);
 	}
 
 	public List<String> getNullLiterals() {
-		return nullLiterals;
+		return compact(nullLiterals);
 	}
 
 	public List<String> getBooleanLiterals() {
-		return booleanLiterals;
+		return compact(booleanLiterals);
 	}
 
 	public List<String> getTypeLiterals() {
-		return typeLiterals;
+		return compact(typeLiterals);
 	}
 
 	public Map<String, List<ObjectCreation>> getCreationMap() {
-		return creationMap;
+		return compact(creationMap);
 	}
 
 	public List<String> getInfixExpressions() {
-		return infixExpressions;
+		return compact(infixExpressions);
 	}
 
 	public List<String> getInfixOperators() {
-		return infixOperators;
+		return compact(infixOperators);
 	}
 
 	public List<String> getArrayAccesses() {
-		return arrayAccesses;
+		return compact(arrayAccesses);
 	}
 
 	public List<String> getPrefixExpressions() {
-		return prefixExpressions;
+		return compact(prefixExpressions);
 	}
 
 	public List<String> getPostfixExpressions() {
-		return postfixExpressions;
+		return compact(postfixExpressions);
 	}
 
 	public List<String> getArguments() {
-		return this.arguments;
+		return compact(this.arguments);
 	}
 
 	public List<TernaryOperatorExpression> getTernaryOperatorExpressions() {
-		return ternaryOperatorExpressions;
+		return compact(ternaryOperatorExpressions);
 	}
 
 	public List<String> getVariables() {
-		return variables;
+		return compact(variables);
 	}
 
 	public List<LambdaExpressionObject> getLambdas() {
-		return lambdas;
+		return compact(lambdas);
+	}
+
+	//the collections are retained by the statement, so empty ones are replaced with a shared instance and the rest are trimmed
+	private static <T> List<T> compact(List<T> list) {
+		if(list.isEmpty()) {
+			return Collections.emptyList();
+		}
+		((ArrayList<T>)list).trimToSize();
+		return list;
+	}
+
+	private static <T> Map<String, List<T>> compact(Map<String, List<T>> map) {
+		if(map.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		for(List<T> list : map.values()) {
+			((ArrayList<T>)list).trimToSize();
+		}
+		return map;
 	}
 
 	private static boolean invalidArrayAccess(ArrayAccess e) {
@@ -1,15 +1,18 @@
 package gr.uom.java.xmi.diff;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.List;
 import java.util.Set;
 
-import com.fasterxml.jackson.core.io.JsonStringEncoder;
-
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.decomposition.AbstractCodeFragment;
 
-public class CodeRange {
+import org.refactoringminer.util.JsonStringEscaper;
+
+public class CodeRange implements Serializable {
+	private static final long serialVersionUID = 1L;
 	private String filePath;
 	private int startLine;
 	private int endLine;
@@ -89,47 +92,70 @@ public class CodeRange {
 
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		sb.append("{").append("\n");
-		encodeStringProperty(sb, "filePath", filePath, false);
-		encodeIntProperty(sb, "startLine", startLine, false);
-		encodeIntProperty(sb, "endLine", endLine, false);
-		encodeIntProperty(sb, "startColumn", startColumn, false);
-		encodeIntProperty(sb, "endColumn", endColumn, false);
-		encodeStringProperty(sb, "codeElementType", codeElementType.name(), false);
-		encodeStringProperty(sb, "description", description, false);
-		encodeStringProperty(sb, "codeElement", escapeQuotes(codeElement), true);
-		sb.append("}");
+		try {
+			toJSON(sb);
+		} catch (IOException e) {
+			//appending to a StringBuilder does not throw
+		}
 		return sb.toString();
 	}
 
-	private String escapeQuotes(String s) {
-		if(s != null) {
-			StringBuilder sb = new StringBuilder();
-			JsonStringEncoder encoder = JsonStringEncoder.getInstance();
-			encoder.quoteAsString(s, sb);
-			return sb.toString();
+	public void toJSON(Appendable out) throws IOException {
+		out.append("{").append("\n");
+		encodeStringProperty(out, "filePath", filePath, false, false);
+		encodeIntProperty(out, "startLine", startLine, false);
+		encodeIntProperty(out, "endLine", endLine, false);
+		encodeIntProperty(out, "startColumn", startColumn, false);
+		encodeIntProperty(out, "endColumn", endColumn, false);
+		encodeStringProperty(out, "codeElementType", codeElementType.name(), false, false);
+		encodeStringProperty(out, "description", description, false, false);
+		encodeStringProperty(out, "codeElement", codeElement, true, true);
+		out.append("}");
+	}
+
+	private void encodeStringProperty(Appendable out, String propertyName, String value, boolean escape, boolean last) throws IOException {
+		out.append("\t").append("\t").append("\"").append(propertyName).append("\"").append(": ");
+		if(value != null) {
+			out.append("\"");
+			if(escape)
+				JsonStringEscaper.appendEscaped(out, value);
+			else
+				out.append(value);
+			out.append("\"");
 		}
-		return s;
-	}
-
-	private void encodeStringProperty(StringBuilder sb, String propertyName, String value, boolean last) {
-		if(value != null)
-			sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + "\"" + value + "\"");
 		else
-			sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + value);
-		insertNewLine(sb, last);
+			out.append("null");
+		insertNewLine(out, last);
 	}
 
-	private void encodeIntProperty(StringBuilder sb, String propertyName, int value, boolean last) {
-		sb.append("\t").append("\t").append("\"" + propertyName + "\"" + ": " + value);
-		insertNewLine(sb, last);
+	private void encodeIntProperty(Appendable out, String propertyName, int value, boolean last) throws IOException {
+		out.append("\t").append("\t").append("\"").append(propertyName).append("\"").append(": ").append(Integer.toString(value));
+		insertNewLine(out, last);
 	}
 
-	private void insertNewLine(StringBuilder sb, boolean last) {
+	private void insertNewLine(Appendable out, boolean last) throws IOException {
 		if(last)
-			sb.append("\n");
+			out.append("\n");
 		else
-			sb.append(",").append("\n");
+			out.append(",").append("\n");
+	}
+
+	/**
+	 * Appends the code ranges in the same format as {@code List.toString()}.
+	 */
+	public static void toJSON(Appendable out, List<CodeRange> codeRanges) throws IOException {
+		out.append("[");
+		for(int i=0; i<codeRanges.size(); i++) {
+			if(i > 0) {
+				out.append(", ");
+			}
+			CodeRange codeRange = codeRanges.get(i);
+			if(codeRange != null)
+				codeRange.toJSON(out);
+			else
+				out.append("null");
+		}
+		out.append("]");
 	}
 
 	public static CodeRange computeRange(Set<AbstractCodeFragment> codeFragments) {
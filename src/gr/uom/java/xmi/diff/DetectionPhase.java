@@ -0,0 +1,90 @@
+package gr.uom.java.xmi.diff;
+
+import static org.refactoringminer.api.RefactoringType.*;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.refactoringminer.api.RefactoringType;
+
+/**
+ * The phases of {@link UMLModelDiff#getRefactorings()} in execution order, together with the
+ * refactoring types each phase can report. A phase only reads the state left behind by the phases
+ * preceding it, so when a set of refactoring types is requested, every phase after the last one
+ * that can report a requested type can be skipped without changing the result.
+ */
+public enum DetectionPhase {
+	CLASS_MATCHING(EnumSet.of(MOVE_CLASS, RENAME_CLASS, MOVE_RENAME_CLASS, MOVE_SOURCE_FOLDER,
+			RENAME_PACKAGE, MOVE_PACKAGE, SPLIT_PACKAGE, MERGE_PACKAGE)),
+	//class renames are also inferred from type change patterns, which requires the body of every class diff
+	CLASS_BODIES(EnumSet.complementOf(EnumSet.of(MOVE_CLASS, MOVE_SOURCE_FOLDER,
+			RENAME_PACKAGE, MOVE_PACKAGE, SPLIT_PACKAGE, MERGE_PACKAGE))),
+	EXTRACT_SUPERCLASS(OperationLevel.with(RefactoringType.EXTRACT_SUPERCLASS, EXTRACT_INTERFACE, EXTRACT_OPERATION,
+			PULL_UP_OPERATION, PULL_UP_ATTRIBUTE)),
+	EXTRACT_CLASS(OperationLevel.with(RefactoringType.EXTRACT_CLASS, EXTRACT_SUBCLASS, EXTRACT_OPERATION,
+			MOVE_OPERATION, MOVE_ATTRIBUTE, PUSH_DOWN_OPERATION, PUSH_DOWN_ATTRIBUTE)),
+	OPERATION_MOVES(OperationLevel.with(MOVE_OPERATION, MOVE_AND_RENAME_OPERATION, PULL_UP_OPERATION, PUSH_DOWN_OPERATION,
+			EXTRACT_OPERATION, EXTRACT_AND_MOVE_OPERATION, INLINE_OPERATION, MOVE_AND_INLINE_OPERATION)),
+	ATTRIBUTE_MOVES(EnumSet.of(MOVE_ATTRIBUTE, PULL_UP_ATTRIBUTE, PUSH_DOWN_ATTRIBUTE, CHANGE_ATTRIBUTE_ACCESS_MODIFIER,
+			ADD_ATTRIBUTE_ANNOTATION, REMOVE_ATTRIBUTE_ANNOTATION, MODIFY_ATTRIBUTE_ANNOTATION)),
+	METHOD_SIGNATURE_INFERENCE(OperationLevel.with(RENAME_METHOD));
+
+	private final Set<RefactoringType> reportedTypes;
+
+	private DetectionPhase(Set<RefactoringType> reportedTypes) {
+		this.reportedTypes = Collections.unmodifiableSet(reportedTypes);
+	}
+
+	public Set<RefactoringType> getReportedTypes() {
+		return reportedTypes;
+	}
+
+	public boolean reportsAnyOf(Set<RefactoringType> types) {
+		for(RefactoringType type : types) {
+			if(reportedTypes.contains(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the last phase that can report one of the given types, or null if none of the phases can
+	 */
+	public static DetectionPhase lastPhaseReportingAnyOf(Set<RefactoringType> types) {
+		DetectionPhase[] phases = values();
+		for(int i=phases.length-1; i>=0; i--) {
+			if(phases[i].reportsAnyOf(types)) {
+				return phases[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Refactoring types reported by operation signature diffs and operation body mappers,
+	 * which every phase creating new body mappers can report.
+	 */
+	private static class OperationLevel {
+		private static final Set<RefactoringType> TYPES = EnumSet.of(
+				RENAME_PARAMETER, ADD_PARAMETER, REMOVE_PARAMETER, REORDER_PARAMETER,
+				CHANGE_PARAMETER_TYPE, CHANGE_RETURN_TYPE, CHANGE_OPERATION_ACCESS_MODIFIER,
+				ADD_METHOD_ANNOTATION, REMOVE_METHOD_ANNOTATION, MODIFY_METHOD_ANNOTATION,
+				ADD_PARAMETER_ANNOTATION, REMOVE_PARAMETER_ANNOTATION, MODIFY_PARAMETER_ANNOTATION,
+				ADD_THROWN_EXCEPTION_TYPE, REMOVE_THROWN_EXCEPTION_TYPE, CHANGE_THROWN_EXCEPTION_TYPE,
+				ADD_METHOD_MODIFIER, REMOVE_METHOD_MODIFIER, ADD_PARAMETER_MODIFIER, REMOVE_PARAMETER_MODIFIER,
+				EXTRACT_VARIABLE, INLINE_VARIABLE, RENAME_VARIABLE, CHANGE_VARIABLE_TYPE,
+				MERGE_VARIABLE, MERGE_PARAMETER, SPLIT_VARIABLE, SPLIT_PARAMETER,
+				REPLACE_VARIABLE_WITH_ATTRIBUTE, REPLACE_ATTRIBUTE_WITH_VARIABLE,
+				PARAMETERIZE_VARIABLE, PARAMETERIZE_ATTRIBUTE, EXTRACT_ATTRIBUTE,
+				ADD_VARIABLE_ANNOTATION, REMOVE_VARIABLE_ANNOTATION, MODIFY_VARIABLE_ANNOTATION,
+				ADD_VARIABLE_MODIFIER, REMOVE_VARIABLE_MODIFIER);
+
+		private static Set<RefactoringType> with(RefactoringType ... types) {
+			Set<RefactoringType> set = EnumSet.copyOf(TYPES);
+			Collections.addAll(set, types);
+			return set;
+		}
+	}
+}
@@ -11,9 +11,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.refactoringminer.api.Deadline;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.util.PhaseTimer;
+import org.refactoringminer.util.PhaseTimer.Phase;
 import org.refactoringminer.util.PrefixSuffixUtils;
 
 import gr.uom.java.xmi.UMLAnnotation;
@@ -86,7 +89,27 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 		this.enumConstantDiffList = new ArrayList<UMLEnumConstantDiff>();
 	}
 
+	/**
+	 * Compares the members of the classes, unless none of the requested refactoring types depends on them,
+	 * or the budget of the model diff is exhausted.
+	 */
 	public void process() throws RefactoringMinerTimedOutException {
+		Phase previousPhase = PhaseTimer.switchTo(Phase.BODY_MAPPING);
+		try {
+			if(modelDiff != null) {
+				modelDiff.runPhase(DetectionPhase.CLASS_BODIES, this::processMembers);
+			}
+			else {
+				processMembers();
+			}
+		}
+		finally {
+			PhaseTimer.switchTo(previousPhase);
+		}
+	}
+
+	private void processMembers() throws RefactoringMinerTimedOutException {
+		Deadline.check();
 		processModifiers();
 		processAnnotations();
 		processEnumConstants();
@@ -276,6 +299,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 
 	protected void processOperations() throws RefactoringMinerTimedOutException {
 		for(UMLOperation operation : originalClass.getOperations()) {
+    		Deadline.check();
     		UMLOperation operationWithTheSameSignature = nextClass.operationWithTheSameSignatureIgnoringChangedTypes(operation);
 			if(operationWithTheSameSignature == null) {
 				this.removedOperations.add(operation);
@@ -1114,6 +1138,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 				UMLOperation removedOperation = removedOperationIterator.next();
 				TreeSet<UMLOperationBodyMapper> mapperSet = new TreeSet<UMLOperationBodyMapper>();
 				for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
+					Deadline.check();
 					UMLOperation addedOperation = addedOperationIterator.next();
 					int maxDifferenceInPosition;
 					if(removedOperation.hasTestAnnotation() && addedOperation.hasTestAnnotation()) {
@@ -1160,6 +1185,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 				UMLOperation addedOperation = addedOperationIterator.next();
 				TreeSet<UMLOperationBodyMapper> mapperSet = new TreeSet<UMLOperationBodyMapper>();
 				for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
+					Deadline.check();
 					UMLOperation removedOperation = removedOperationIterator.next();
 					int maxDifferenceInPosition;
 					if(removedOperation.hasTestAnnotation() && addedOperation.hasTestAnnotation()) {
@@ -1740,6 +1766,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 		for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
 			UMLOperation removedOperation = removedOperationIterator.next();
 			for(UMLOperationBodyMapper mapper : getOperationBodyMapperList()) {
+				Deadline.check();
 				InlineOperationDetection detection = new InlineOperationDetection(mapper, removedOperations, this, modelDiff);
 				List<InlineOperationRefactoring> refs = detection.check(removedOperation);
 				for(InlineOperationRefactoring refactoring : refs) {
@@ -1759,6 +1786,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 		for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
 			UMLOperation addedOperation = addedOperationIterator.next();
 			for(UMLOperationBodyMapper mapper : getOperationBodyMapperList()) {
+				Deadline.check();
 				ExtractOperationDetection detection = new ExtractOperationDetection(mapper, addedOperations, this, modelDiff);
 				List<ExtractOperationRefactoring> refs = detection.check(addedOperation);
 				for(ExtractOperationRefactoring refactoring : refs) {
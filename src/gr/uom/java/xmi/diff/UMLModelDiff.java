@@ -29,6 +29,7 @@ import gr.uom.java.xmi.decomposition.replacement.Replacement.ReplacementType;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -42,6 +43,7 @@ import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.refactoringminer.api.Deadline;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
@@ -69,6 +71,9 @@ public class UMLModelDiff {
    private List<Refactoring> refactorings;
    private Set<String> deletedFolderPaths;
    private Set<Pair<UMLOperation, UMLOperation>> processedOperationPairs = new HashSet<Pair<UMLOperation, UMLOperation>>();
+   private DetectionPhase lastRequiredPhase = DetectionPhase.METHOD_SIGNATURE_INFERENCE;
+   private Deadline budget;
+   private Set<DetectionPhase> incompletePhases = EnumSet.noneOf(DetectionPhase.class);
    
    public UMLModelDiff(UMLModel parentModel, UMLModel childModel) {
       this.parentModel = parentModel;
@@ -89,6 +94,80 @@ public class UMLModelDiff {
       this.deletedFolderPaths = new LinkedHashSet<String>();
    }
 
+   public void setRefactoringTypesToConsider(Set<RefactoringType> refactoringTypesToConsider) {
+	   if(refactoringTypesToConsider == null) {
+		   this.lastRequiredPhase = DetectionPhase.METHOD_SIGNATURE_INFERENCE;
+	   }
+	   else {
+		   DetectionPhase lastPhase = DetectionPhase.lastPhaseReportingAnyOf(refactoringTypesToConsider);
+		   //class matching always runs, since every other phase builds on the matched classes
+		   this.lastRequiredPhase = lastPhase != null ? lastPhase : DetectionPhase.CLASS_MATCHING;
+	   }
+   }
+
+   public boolean isPhaseRequired(DetectionPhase phase) {
+	   return phase.compareTo(lastRequiredPhase) <= 0;
+   }
+
+   /**
+    * Limits the time spent on the phases mapping the bodies of the operations, instead of failing the whole diff when
+    * its deadline expires. The class matching, the package refactorings and the method signature inference always run
+    * to completion, while the body mapping of a class, or a later phase, stops as soon as the budget is exhausted and
+    * the phases that did not run to completion are reported by {@link #getIncompletePhases()}.
+    * <p>
+    * The budget applies to the diff of the models and to {@link #getRefactorings()}. A deadline bound to the thread stops
+    * the whole diff instead, so it must expire later than the budget, and only serves as a hard limit on the phases that run to completion.
+    */
+   public void setBudget(Deadline budget) {
+	   this.budget = budget;
+   }
+
+   /**
+    * @return the phases that were stopped or skipped because the budget was exhausted, whose refactorings are missing from the results
+    */
+   public Set<DetectionPhase> getIncompletePhases() {
+	   return Collections.unmodifiableSet(incompletePhases);
+   }
+
+   public boolean isPhaseComplete(DetectionPhase phase) {
+	   return !incompletePhases.contains(phase);
+   }
+
+   interface PhaseBody {
+	   void run() throws RefactoringMinerTimedOutException;
+   }
+
+   /**
+    * Runs a required phase within the budget, keeping the results of the phase found before the budget was exhausted.
+    */
+   void runPhase(DetectionPhase phase, PhaseBody body) throws RefactoringMinerTimedOutException {
+	   if(!isPhaseRequired(phase)) {
+		   return;
+	   }
+	   if(budget == null) {
+		   body.run();
+		   return;
+	   }
+	   if(budget.isExpired()) {
+		   incompletePhases.add(phase);
+		   return;
+	   }
+	   Deadline.Binding binding = budget.bind();
+	   try {
+		   body.run();
+	   }
+	   catch(RefactoringMinerTimedOutException e) {
+		   if(!budget.isExpired()) {
+			   //the thread was interrupted
+			   throw e;
+		   }
+		   incompletePhases.add(phase);
+	   }
+	   finally {
+		   binding.close();
+	   }
+   }
+
    public UMLAbstractClass findClassInParentModel(String className) {
 	   for(UMLClass umlClass : parentModel.getClassList()) {
 		   if(umlClass.getName().equals(className)) {
@@ -460,6 +539,7 @@ public class UMLModelDiff {
 
    public void checkForMovedClasses(Map<String, String> renamedFileHints, Set<String> repositoryDirectories, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
 	   for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
+		   Deadline.check();
 		   UMLClass removedClass = removedClassIterator.next();
 		   TreeSet<UMLClassMoveDiff> diffSet = new TreeSet<UMLClassMoveDiff>(new ClassMoveComparator());
 		   for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
@@ -529,6 +609,7 @@ public class UMLModelDiff {
 
    public void checkForRenamedClasses(Map<String, String> renamedFileHints, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
       for(Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext();) {
+         Deadline.check();
          UMLClass removedClass = removedClassIterator.next();
          TreeSet<UMLClassRenameDiff> diffSet = new TreeSet<UMLClassRenameDiff>(new ClassRenameComparator());
          for(Iterator<UMLClass> addedClassIterator = addedClasses.iterator(); addedClassIterator.hasNext();) {
@@ -584,7 +665,7 @@ public class UMLModelDiff {
       return addedRealizations;
    }
 
-   private List<MoveAttributeRefactoring> checkForAttributeMovesIncludingRemovedClasses() {
+   private List<MoveAttributeRefactoring> checkForAttributeMovesIncludingRemovedClasses() throws RefactoringMinerTimedOutException {
       List<UMLAttribute> addedAttributes = getAddedAttributesInCommonClasses();
       /*for(UMLClass addedClass : addedClasses) {
     	  addedAttributes.addAll(addedClass.getAttributes());
@@ -596,7 +677,7 @@ public class UMLModelDiff {
       return checkForAttributeMoves(addedAttributes, removedAttributes);
    }
 
-   private List<MoveAttributeRefactoring> checkForAttributeMovesIncludingAddedClasses() {
+   private List<MoveAttributeRefactoring> checkForAttributeMovesIncludingAddedClasses() throws RefactoringMinerTimedOutException {
       List<UMLAttribute> addedAttributes = getAddedAttributesInCommonClasses();
       for(UMLClass addedClass : addedClasses) {
     	  addedAttributes.addAll(addedClass.getAttributes());
@@ -608,13 +689,13 @@ public class UMLModelDiff {
       return checkForAttributeMoves(addedAttributes, removedAttributes);
    }
 
-   private List<MoveAttributeRefactoring> checkForAttributeMovesBetweenCommonClasses() {
+   private List<MoveAttributeRefactoring> checkForAttributeMovesBetweenCommonClasses() throws RefactoringMinerTimedOutException {
       List<UMLAttribute> addedAttributes = getAddedAttributesInCommonClasses();
       List<UMLAttribute> removedAttributes = getRemovedAttributesInCommonClasses();
       return checkForAttributeMoves(addedAttributes, removedAttributes);
    }
 
-   private List<MoveAttributeRefactoring> checkForAttributeMovesBetweenRemovedAndAddedClasses() {
+   private List<MoveAttributeRefactoring> checkForAttributeMovesBetweenRemovedAndAddedClasses() throws RefactoringMinerTimedOutException {
 	   List<UMLAttribute> addedAttributes = new ArrayList<UMLAttribute>();
 	   for(UMLClass addedClass : addedClasses) {
 		   addedAttributes.addAll(addedClass.getAttributes());
@@ -626,10 +707,11 @@ public class UMLModelDiff {
 	   return checkForAttributeMoves(addedAttributes, removedAttributes);
    }
 
-   private List<MoveAttributeRefactoring> checkForAttributeMoves(List<UMLAttribute> addedAttributes, List<UMLAttribute> removedAttributes) {
+   private List<MoveAttributeRefactoring> checkForAttributeMoves(List<UMLAttribute> addedAttributes, List<UMLAttribute> removedAttributes) throws RefactoringMinerTimedOutException {
 	   List<MoveAttributeRefactoring> refactorings = new ArrayList<MoveAttributeRefactoring>();
 	   if(addedAttributes.size() <= removedAttributes.size()) {
 		   for(UMLAttribute addedAttribute : addedAttributes) {
+			   Deadline.check();
 			   List<MoveAttributeRefactoring> candidates = new ArrayList<MoveAttributeRefactoring>();
 			   for(UMLAttribute removedAttribute : removedAttributes) {
 				   MoveAttributeRefactoring candidate = processPairOfAttributes(addedAttribute, removedAttribute);
@@ -642,6 +724,7 @@ public class UMLModelDiff {
 	   }
 	   else {
 		   for(UMLAttribute removedAttribute : removedAttributes) {
+			   Deadline.check();
 			   List<MoveAttributeRefactoring> candidates = new ArrayList<MoveAttributeRefactoring>();
 			   for(UMLAttribute addedAttribute : addedAttributes) {
 				   MoveAttributeRefactoring candidate = processPairOfAttributes(addedAttribute, removedAttribute);
@@ -979,6 +1062,7 @@ public class UMLModelDiff {
    private List<ExtractClassRefactoring> identifyExtractClassRefactorings(List<? extends UMLClassBaseDiff> classDiffs) throws RefactoringMinerTimedOutException {
 	   List<ExtractClassRefactoring> refactorings = new ArrayList<ExtractClassRefactoring>();
 	   for(UMLClass addedClass : addedClasses) {
+		   Deadline.check();
 		   TreeSet<CandidateExtractClassRefactoring> candidates = new TreeSet<CandidateExtractClassRefactoring>();
 		   UMLType addedClassSuperType = addedClass.getSuperclass();
 		   if(!addedClass.isInterface()) {
@@ -1068,6 +1152,7 @@ public class UMLModelDiff {
    private List<ExtractSuperclassRefactoring> identifyExtractSuperclassRefactorings() throws RefactoringMinerTimedOutException {
       List<ExtractSuperclassRefactoring> refactorings = new ArrayList<ExtractSuperclassRefactoring>();
       for(UMLClass addedClass : addedClasses) {
+         Deadline.check();
          Set<UMLClass> subclassSet = new LinkedHashSet<UMLClass>();
          String addedClassName = addedClass.getName();
          for(UMLGeneralization addedGeneralization : addedGeneralizations) {
@@ -1395,10 +1480,14 @@ public class UMLModelDiff {
       }
       refactorings.addAll(getRenameClassRefactorings(renamePackageRefactorings));
       postProcessRenamedPackages(renamePackageRefactorings, refactorings);
+      if(!isPhaseRequired(DetectionPhase.CLASS_BODIES)) {
+    	  return filterOutDuplicateRefactorings(refactorings);
+      }
       refactorings.addAll(identifyConvertAnonymousClassToTypeRefactorings());
       Map<Replacement, Set<CandidateAttributeRefactoring>> renameMap = new LinkedHashMap<Replacement, Set<CandidateAttributeRefactoring>>();
       Map<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>> mergeMap = new LinkedHashMap<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>>();
       for(UMLClassDiff classDiff : commonClassDiffList) {
+         Deadline.check();
          refactorings.addAll(classDiff.getRefactorings());
          extractMergePatterns(classDiff, mergeMap);
 		 extractRenamePatterns(classDiff, renameMap);
@@ -1571,29 +1660,37 @@ public class UMLModelDiff {
 			 }
 		 }
 	  }
-	  refactorings.addAll(identifyExtractSuperclassRefactorings());
-	  refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
-      refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
-      refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
-      refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
-      checkForOperationMovesBetweenCommonClasses();
-      checkForOperationMovesIncludingRemovedAndAddedClasses();
-      List<UMLOperation> addedAndExtractedOperationsInCommonClasses = getAddedAndExtractedOperationsInCommonClasses();
-      if(addedAndExtractedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-    	  checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), addedAndExtractedOperationsInCommonClasses);
-      }
-      List<UMLOperation> addedOperationsInMovedAndRenamedClasses = getAddedOperationsInMovedAndRenamedClasses();
-      if(addedOperationsInMovedAndRenamedClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-    	  checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), addedOperationsInMovedAndRenamedClasses);
-      }
-      List<UMLOperation> removedAndInlinedOperationsInCommonClasses = getRemovedAndInlinedOperationsInCommonClasses();
-      if(removedAndInlinedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-    	  checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), removedAndInlinedOperationsInCommonClasses);
-      }
+	  runPhase(DetectionPhase.EXTRACT_SUPERCLASS, () -> {
+		  refactorings.addAll(identifyExtractSuperclassRefactorings());
+	  });
+	  runPhase(DetectionPhase.EXTRACT_CLASS, () -> {
+		  refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
+		  refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
+		  refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
+		  refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
+	  });
+      runPhase(DetectionPhase.OPERATION_MOVES, () -> {
+    	  checkForOperationMovesBetweenCommonClasses();
+    	  checkForOperationMovesIncludingRemovedAndAddedClasses();
+    	  List<UMLOperation> addedAndExtractedOperationsInCommonClasses = getAddedAndExtractedOperationsInCommonClasses();
+    	  if(addedAndExtractedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+    		  checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), addedAndExtractedOperationsInCommonClasses);
+    	  }
+    	  List<UMLOperation> addedOperationsInMovedAndRenamedClasses = getAddedOperationsInMovedAndRenamedClasses();
+    	  if(addedOperationsInMovedAndRenamedClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+    		  checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), addedOperationsInMovedAndRenamedClasses);
+    	  }
+    	  List<UMLOperation> removedAndInlinedOperationsInCommonClasses = getRemovedAndInlinedOperationsInCommonClasses();
+    	  if(removedAndInlinedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+    		  checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), removedAndInlinedOperationsInCommonClasses);
+    	  }
+      });
       List<MoveAttributeRefactoring> moveAttributeRefactorings = new ArrayList<MoveAttributeRefactoring>();
-      moveAttributeRefactorings.addAll(checkForAttributeMovesBetweenCommonClasses());
-      moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingAddedClasses());
-      moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingRemovedClasses());
+      runPhase(DetectionPhase.ATTRIBUTE_MOVES, () -> {
+    	  moveAttributeRefactorings.addAll(checkForAttributeMovesBetweenCommonClasses());
+    	  moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingAddedClasses());
+    	  moveAttributeRefactorings.addAll(checkForAttributeMovesIncludingRemovedClasses());
+      });
       refactorings.addAll(moveAttributeRefactorings);
       for(MoveAttributeRefactoring moveAttributeRefactoring : moveAttributeRefactorings) {
     	  UMLAttribute originalAttribute = moveAttributeRefactoring.getOriginalAttribute();
@@ -1617,17 +1714,19 @@ public class UMLModelDiff {
   		  }
       }
       refactorings.addAll(this.refactorings);
-      for(UMLClassDiff classDiff : commonClassDiffList) {
-    	  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-      }
-      for(UMLClassMoveDiff classDiff : classMoveDiffList) {
-    	  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-      }
-      for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-    	  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
-      }
-      for(UMLClassRenameDiff classDiff : classRenameDiffList) {
-    	  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+      if(isPhaseRequired(DetectionPhase.METHOD_SIGNATURE_INFERENCE)) {
+    	  for(UMLClassDiff classDiff : commonClassDiffList) {
+    		  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+    	  }
+    	  for(UMLClassMoveDiff classDiff : classMoveDiffList) {
+    		  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+    	  }
+    	  for(UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
+    		  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+    	  }
+    	  for(UMLClassRenameDiff classDiff : classRenameDiffList) {
+    		  inferMethodSignatureRelatedRefactorings(classDiff, refactorings);
+    	  }
       }
       return filterOutDuplicateRefactorings(refactorings);
    }
@@ -1855,6 +1954,7 @@ public class UMLModelDiff {
 	   for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
 		   UMLOperation removedOperation = removedOperationIterator.next();
 		   for(UMLOperationBodyMapper mapper : mappers) {
+			   Deadline.check();
 			   if(!mapper.getNonMappedLeavesT2().isEmpty() || !mapper.getNonMappedInnerNodesT2().isEmpty() || !mapper.getReplacementsInvolvingMethodInvocation().isEmpty()) {
 				   List<OperationInvocation> operationInvocations = mapper.getOperation1().getAllOperationInvocations();
 				   List<OperationInvocation> removedOperationInvocations = new ArrayList<OperationInvocation>();
@@ -1944,6 +2044,7 @@ public class UMLModelDiff {
       for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
     	  UMLOperation addedOperation = addedOperationIterator.next();
     	  for(UMLOperationBodyMapper mapper : mappers) {
+    		  Deadline.check();
     		  Pair<UMLOperation, UMLOperation> pair = Pair.of(mapper.getOperation1(), addedOperation);
     		  if((mapper.nonMappedElementsT1() > 0 || !mapper.getReplacementsInvolvingMethodInvocation().isEmpty()) && !mapper.containsExtractOperationRefactoring(addedOperation) && !processedOperationPairs.contains(pair)) {
     			  processedOperationPairs.add(pair);
@@ -2269,6 +2370,7 @@ public class UMLModelDiff {
 	         UMLOperation addedOperation = addedOperationIterator.next();
 	         TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
 	         for(Iterator<UMLOperation> removedOperationIterator = removedOperations.iterator(); removedOperationIterator.hasNext();) {
+	            Deadline.check();
 	            UMLOperation removedOperation = removedOperationIterator.next();
 	            
 	            Pair<UMLOperation, UMLOperation> pair = Pair.of(removedOperation, addedOperation);
@@ -2367,6 +2469,7 @@ public class UMLModelDiff {
 	         UMLOperation removedOperation = removedOperationIterator.next();
 	         TreeMap<Integer, List<UMLOperationBodyMapper>> operationBodyMapperMap = new TreeMap<Integer, List<UMLOperationBodyMapper>>();
 	         for(Iterator<UMLOperation> addedOperationIterator = addedOperations.iterator(); addedOperationIterator.hasNext();) {
+	            Deadline.check();
 	            UMLOperation addedOperation = addedOperationIterator.next();
 	            
 	            Pair<UMLOperation, UMLOperation> pair = Pair.of(removedOperation, addedOperation);
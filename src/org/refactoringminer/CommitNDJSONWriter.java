@@ -0,0 +1,75 @@
+package org.refactoringminer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * Writes the refactorings of each commit as one JSON object per line (NDJSON), so that the output of arbitrarily
+ * long histories can be written and read one commit at a time. All commits are written through a single buffered
+ * writer, and the output is compressed with gzip when the file name ends with {@code .gz}.
+ */
+public class CommitNDJSONWriter implements Closeable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private final Writer writer;
+
+	public CommitNDJSONWriter(Path path) throws IOException {
+		OutputStream out = Files.newOutputStream(path);
+		if(path.getFileName().toString().endsWith(".gz")) {
+			out = new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	public void writeCommit(String cloneURL, String commitId, List<Refactoring> refactorings) throws IOException {
+		writer.write("{");
+		writeStringProperty("repository", cloneURL);
+		writer.write(",");
+		writeStringProperty("sha1", commitId);
+		writer.write(",");
+		writeStringProperty("url", GitHistoryRefactoringMinerImpl.extractCommitURL(cloneURL, commitId));
+		writer.write(",\"refactorings\":[");
+		boolean first = true;
+		for(Refactoring refactoring : refactorings) {
+			String json = RMinerUtils.getJsonForRelevant(refactoring);
+			if(json.isEmpty()) continue;
+			if(!first) {
+				writer.write(",");
+			}
+			writer.write(json);
+			first = false;
+		}
+		writer.write("]}\n");
+	}
+
+	private void writeStringProperty(String propertyName, String value) throws IOException {
+		writer.write("\"");
+		writer.write(propertyName);
+		writer.write("\":");
+		if(value != null) {
+			writer.write("\"");
+			writer.write(JsonStringEncoder.getInstance().quoteAsString(value));
+			writer.write("\"");
+		}
+		else {
+			writer.write("null");
+		}
+	}
+
+	public void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,33 @@
+package org.refactoringminer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.refactoringminer.util.Metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Serves the current {@link Metrics} of the servers in the Prometheus text format.
+ */
+public class MetricsHttpHandler implements HttpHandler {
+	private final Metrics metrics;
+
+	public MetricsHttpHandler(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		metrics.writeText(sb);
+		byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,540 @@
+package org.refactoringminer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mines many repositories on a single pool of worker threads, one commit at a time, so that a large repository does not
+ * keep a single thread busy while the others are idle.
+ * <p>
+ * A bounded number of repositories is mined at the same time, and the workers take the next commit from each of them
+ * in turn, so that every repository being mined gets its share of the workers. The commits of a repository are analyzed
+ * concurrently, but their results are passed to the handler of the repository in the order of
+ * {@link org.refactoringminer.api.GitHistoryRefactoringMiner#detectAll} or
+ * {@link org.refactoringminer.api.GitHistoryRefactoringMiner#detectBetweenCommits}, and never concurrently.
+ * Results that complete ahead of an earlier commit are buffered as detached refactorings. The progress of all
+ * repositories is logged periodically, returned by {@link #getProgress()}, and exposed as gauges of the shared {@link Metrics}.
+ */
+public class MiningScheduler {
+	//the number of commits of a repository that can be analyzed ahead of the first commit not yet passed to its handler
+	private static final int MAX_COMMITS_AHEAD = 256;
+	Logger logger = LoggerFactory.getLogger(MiningScheduler.class);
+	private final GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+	private final int workerCount;
+	private final int timeout;
+	private int maxActiveRepositories;
+	private final Object lock = new Object();
+	//guarded by lock
+	private final Queue<RepositoryRun> waitingRuns = new ArrayDeque<RepositoryRun>();
+	private final Deque<RepositoryRun> activeRuns = new ArrayDeque<RepositoryRun>();
+	private int openingRunCount;
+	private final AtomicInteger repositoryCount = new AtomicInteger();
+	private final AtomicInteger finishedRepositoryCount = new AtomicInteger();
+	private final AtomicLong commitCount = new AtomicLong();
+	private final AtomicLong analyzedCommitCount = new AtomicLong();
+	private final AtomicLong errorCommitCount = new AtomicLong();
+	private final AtomicLong refactoringCount = new AtomicLong();
+	private long lastProgressLog;
+
+	/**
+	 * A repository to mine, and the commits to mine in it.
+	 */
+	public static class Job {
+		private final String repositoryFolder;
+		private final String startCommitId;
+		private final String endCommitId;
+
+		/**
+		 * @param startCommitId the commit after which the commits are mined, or null to mine the commits of all remote branches
+		 * @param endCommitId the last commit mined after the start commit, or null for HEAD
+		 */
+		public Job(String repositoryFolder, String startCommitId, String endCommitId) {
+			this.repositoryFolder = repositoryFolder;
+			this.startCommitId = startCommitId;
+			this.endCommitId = endCommitId;
+		}
+
+		public String getRepositoryFolder() {
+			return repositoryFolder;
+		}
+
+		public String getStartCommitId() {
+			return startCommitId;
+		}
+
+		public String getEndCommitId() {
+			return endCommitId;
+		}
+
+		public String toString() {
+			return startCommitId != null ? repositoryFolder + " " + startCommitId + ".." + (endCommitId != null ? endCommitId : "HEAD") : repositoryFolder;
+		}
+	}
+
+	public static class Progress {
+		private final int repositoryCount;
+		private final int finishedRepositoryCount;
+		private final long commitCount;
+		private final long analyzedCommitCount;
+		private final long errorCommitCount;
+		private final long refactoringCount;
+
+		private Progress(int repositoryCount, int finishedRepositoryCount, long commitCount, long analyzedCommitCount, long errorCommitCount, long refactoringCount) {
+			this.repositoryCount = repositoryCount;
+			this.finishedRepositoryCount = finishedRepositoryCount;
+			this.commitCount = commitCount;
+			this.analyzedCommitCount = analyzedCommitCount;
+			this.errorCommitCount = errorCommitCount;
+			this.refactoringCount = refactoringCount;
+		}
+
+		public int getRepositoryCount() {
+			return repositoryCount;
+		}
+
+		public int getFinishedRepositoryCount() {
+			return finishedRepositoryCount;
+		}
+
+		/**
+		 * @return the commits to mine in the repositories started so far
+		 */
+		public long getCommitCount() {
+			return commitCount;
+		}
+
+		/**
+		 * @return the commits passed to their handler, including the commits that could not be analyzed
+		 */
+		public long getAnalyzedCommitCount() {
+			return analyzedCommitCount;
+		}
+
+		public long getErrorCommitCount() {
+			return errorCommitCount;
+		}
+
+		public long getRefactoringCount() {
+			return refactoringCount;
+		}
+
+		public String toString() {
+			return String.format("[Repositories: %d/%d, Commits: %d/%d, Errors: %d, Refactorings: %d]", finishedRepositoryCount, repositoryCount,
+					analyzedCommitCount, commitCount, errorCommitCount, refactoringCount);
+		}
+	}
+
+	/**
+	 * @param workerCount the number of threads analyzing commits
+	 * @param timeout the timeout in seconds of the analysis of each commit, or 0 for no timeout
+	 */
+	public MiningScheduler(int workerCount, int timeout) {
+		this.workerCount = workerCount;
+		this.timeout = timeout;
+		this.maxActiveRepositories = 2 * workerCount;
+		miner.setDetachResults(true);
+		registerGauges(Metrics.getSharedInstance());
+	}
+
+	private void registerGauges(Metrics metrics) {
+		metrics.registerGauge("refactoringminer_scheduler_repositories", repositoryCount::get);
+		metrics.registerGauge("refactoringminer_scheduler_finished_repositories", finishedRepositoryCount::get);
+		metrics.registerGauge("refactoringminer_scheduler_commits", commitCount::get);
+		metrics.registerGauge("refactoringminer_scheduler_analyzed_commits", analyzedCommitCount::get);
+	}
+
+	/**
+	 * Sets how many repositories are mined at the same time, which is twice the number of workers by default.
+	 * The other repositories wait in the order of the jobs, and only their jobs are kept in memory.
+	 */
+	public void setMaxActiveRepositories(int maxActiveRepositories) {
+		this.maxActiveRepositories = maxActiveRepositories;
+	}
+
+	/**
+	 * @return the miner analyzing the commits, which can be configured before the jobs are run
+	 */
+	public GitHistoryRefactoringMinerImpl getMiner() {
+		return miner;
+	}
+
+	public Progress getProgress() {
+		return new Progress(repositoryCount.get(), finishedRepositoryCount.get(), commitCount.get(),
+				analyzedCommitCount.get(), errorCommitCount.get(), refactoringCount.get());
+	}
+
+	/**
+	 * Reads the jobs of a manifest file, which has one repository per line, in one of the following forms:
+	 * <ul>
+	 * <li>{@code <git-repo-folder>} to mine the commits of all remote branches, like {@code detectAll}</li>
+	 * <li>{@code <git-repo-folder> <start-commit-sha1> [<end-commit-sha1>]} to mine the commits after the start commit, like {@code detectBetweenCommits}</li>
+	 * </ul>
+	 * Empty lines and lines starting with {@code #} are ignored.
+	 */
+	public static List<Job> readManifest(Path manifest) throws IOException {
+		List<Job> jobs = new ArrayList<Job>();
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			if (fields.length > 3) {
+				throw new IOException(String.format("Invalid job at line %d of %s: %s", lineNumber, manifest, line));
+			}
+			jobs.add(new Job(fields[0], fields.length > 1 ? fields[1] : null, fields.length > 2 ? fields[2] : null));
+		}
+		return jobs;
+	}
+
+	/**
+	 * Mines the repositories of the jobs, and returns once all of them are done.
+	 * @param handlers creates the handler of each job, which receives the commits of its repository in order,
+	 * and {@link RefactoringHandler#onFinish} once they are all passed to it. An exception thrown by the handler
+	 * stops the mining of its repository, like in {@link GitHistoryRefactoringMinerImpl}, but not of the other repositories.
+	 * A repository that cannot be opened, or whose commits cannot be listed, is logged and skipped.
+	 */
+	public void run(List<Job> jobs, Function<Job, RefactoringHandler> handlers) throws InterruptedException {
+		synchronized (lock) {
+			for (Job job : jobs) {
+				waitingRuns.add(new RepositoryRun(job, handlers.apply(job)));
+			}
+			repositoryCount.addAndGet(jobs.size());
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(workerCount, r -> new Thread(r, "refactoring-miner-scheduler-" + threadCount.incrementAndGet()));
+		try {
+			for (int i = 0; i < workerCount; i++) {
+				workers.execute(this::work);
+			}
+			workers.shutdown();
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} finally {
+			workers.shutdownNow();
+		}
+		logger.info(String.format("Mined %s", getProgress()));
+	}
+
+	private void work() {
+		while (true) {
+			RepositoryRun runToOpen = null;
+			CommitTask task = null;
+			synchronized (lock) {
+				if (!waitingRuns.isEmpty() && activeRuns.size() + openingRunCount < maxActiveRepositories) {
+					runToOpen = waitingRuns.poll();
+					openingRunCount++;
+				}
+				else {
+					task = nextTask();
+					if (task == null) {
+						if (waitingRuns.isEmpty() && activeRuns.isEmpty() && openingRunCount == 0) {
+							return;
+						}
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+						continue;
+					}
+				}
+			}
+			if (runToOpen != null) {
+				runToOpen.open();
+				boolean done;
+				synchronized (lock) {
+					openingRunCount--;
+					done = runToOpen.isDone();
+					if (done) {
+						runToOpen.finished = true;
+					}
+					else {
+						activeRuns.add(runToOpen);
+					}
+					lock.notifyAll();
+				}
+				if (done) {
+					runToOpen.finish();
+				}
+			}
+			else {
+				CommitResult result;
+				try {
+					result = analyze(task);
+				} catch (Error e) {
+					task.run.complete(task, new CommitResult(task.commitId, null, new Exception(e)));
+					throw e;
+				}
+				task.run.complete(task, result);
+			}
+		}
+	}
+
+	/**
+	 * Takes the next commit from the first repository in the rotation that has one, and moves that repository to the end of the rotation.
+	 */
+	private CommitTask nextTask() {
+		for (Iterator<RepositoryRun> i = activeRuns.iterator(); i.hasNext();) {
+			RepositoryRun run = i.next();
+			if (run.canTakeTask()) {
+				i.remove();
+				activeRuns.add(run);
+				return run.takeTask();
+			}
+		}
+		return null;
+	}
+
+	private CommitResult analyze(CommitTask task) {
+		AtomicReference<List<Refactoring>> detected = new AtomicReference<List<Refactoring>>();
+		AtomicReference<Exception> error = new AtomicReference<Exception>();
+		RefactoringHandler handler = new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactorings) {
+				detected.compareAndSet(null, refactorings);
+			}
+
+			@Override
+			public void handleException(String commitId, Exception e) {
+				error.set(e);
+			}
+		};
+		try {
+			if (timeout > 0) {
+				miner.detectAtCommit(task.run.repository, task.commitId, handler, timeout);
+			}
+			else {
+				miner.detectAtCommit(task.run.repository, task.commitId, handler);
+			}
+		} catch (RuntimeException e) {
+			error.set(e);
+		}
+		//the miner ignores the commits without a parent
+		List<Refactoring> refactorings = detected.get() != null ? detected.get() : Collections.<Refactoring>emptyList();
+		return new CommitResult(task.commitId, refactorings, error.get());
+	}
+
+	private void logProgress() {
+		long now = System.currentTimeMillis();
+		synchronized (lock) {
+			if (now - lastProgressLog < 20000) {
+				return;
+			}
+			lastProgressLog = now;
+		}
+		logger.info(String.format("Mining %s", getProgress()));
+	}
+
+	private static class CommitTask {
+		private final RepositoryRun run;
+		private final int index;
+		private final String commitId;
+
+		private CommitTask(RepositoryRun run, int index, String commitId) {
+			this.run = run;
+			this.index = index;
+			this.commitId = commitId;
+		}
+	}
+
+	private static class CommitResult {
+		private final String commitId;
+		private final List<Refactoring> refactorings;
+		private final Exception error;
+
+		private CommitResult(String commitId, List<Refactoring> refactorings, Exception error) {
+			this.commitId = commitId;
+			this.refactorings = refactorings;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * The commits of a repository being mined. Tasks are taken, and the end of the run is decided, under the lock of
+	 * the scheduler. Results are delivered under the lock of the run, so that its handler is called by one worker at a time.
+	 * The lock of the run is never held while acquiring the lock of the scheduler.
+	 */
+	private class RepositoryRun {
+		private final Job job;
+		private final RefactoringHandler handler;
+		private Repository repository;
+		private volatile List<String> commitIds = Collections.emptyList();
+		//guarded by the lock of the scheduler
+		private int nextTaskIndex;
+		private boolean finished;
+		//written under the lock of this run
+		private volatile int nextDeliveryIndex;
+		private volatile int completedTaskCount;
+		private volatile boolean failed;
+		//guarded by this
+		private final Map<Integer, CommitResult> pendingResults = new HashMap<Integer, CommitResult>();
+		private int refactoringsCount;
+		private int errorCommitsCount;
+
+		private RepositoryRun(Job job, RefactoringHandler handler) {
+			this.job = job;
+			this.handler = handler;
+		}
+
+		/**
+		 * Opens the repository and lists its commits, or marks the run as failed.
+		 */
+		private void open() {
+			GitServiceImpl gitService = new GitServiceImpl() {
+				@Override
+				public boolean isCommitAnalyzed(String sha1) {
+					return handler.skipCommit(sha1);
+				}
+			};
+			List<String> commitIds = new ArrayList<String>();
+			try {
+				repository = gitService.openRepository(job.getRepositoryFolder());
+				if (job.getStartCommitId() != null) {
+					String endCommitId = job.getEndCommitId() != null ? job.getEndCommitId() : "HEAD";
+					for (RevCommit commit : gitService.createRevsWalkBetweenCommits(repository, job.getStartCommitId(), endCommitId)) {
+						if (!handler.skipCommit(commit.getId().getName())) {
+							commitIds.add(commit.getId().getName());
+						}
+					}
+				}
+				else {
+					RevWalk walk = gitService.createAllRevsWalk(repository, null);
+					try {
+						for (RevCommit commit : walk) {
+							commitIds.add(commit.getId().getName());
+						}
+					} finally {
+						walk.dispose();
+					}
+				}
+			} catch (Exception e) {
+				logger.warn(String.format("Could not list the commits of %s", job), e);
+				failed = true;
+			}
+			this.commitIds = commitIds;
+			commitCount.addAndGet(commitIds.size());
+			logger.info("Mining {} commits of {}", commitIds.size(), job);
+		}
+
+		//called under the lock of the scheduler
+		private boolean canTakeTask() {
+			return !failed && nextTaskIndex < commitIds.size() && nextTaskIndex - nextDeliveryIndex < MAX_COMMITS_AHEAD;
+		}
+
+		//called under the lock of the scheduler
+		private CommitTask takeTask() {
+			int index = nextTaskIndex++;
+			return new CommitTask(this, index, commitIds.get(index));
+		}
+
+		private void complete(CommitTask task, CommitResult result) {
+			boolean delivered = false;
+			synchronized (this) {
+				if (!failed) {
+					pendingResults.put(task.index, result);
+					for (CommitResult next = pendingResults.remove(nextDeliveryIndex); next != null; next = pendingResults.remove(nextDeliveryIndex)) {
+						deliver(next);
+						nextDeliveryIndex++;
+						delivered = true;
+						if (failed) {
+							pendingResults.clear();
+							break;
+						}
+					}
+				}
+				completedTaskCount++;
+			}
+			boolean done;
+			synchronized (lock) {
+				done = !finished && isDone();
+				if (done) {
+					finished = true;
+					activeRuns.remove(this);
+				}
+				//commits further ahead can now be taken, or the workers can stop
+				lock.notifyAll();
+			}
+			if (done) {
+				finish();
+			}
+			if (delivered) {
+				logProgress();
+			}
+		}
+
+		private void deliver(CommitResult result) {
+			try {
+				if (result.error != null) {
+					errorCommitsCount++;
+					errorCommitCount.incrementAndGet();
+					handler.handleException(result.commitId, result.error);
+				}
+				else {
+					refactoringsCount += result.refactorings.size();
+					refactoringCount.addAndGet(result.refactorings.size());
+					handler.handle(result.commitId, result.refactorings);
+				}
+				analyzedCommitCount.incrementAndGet();
+			} catch (RuntimeException e) {
+				logger.warn(String.format("Stopped mining %s, since its handler failed at commit %s", job, result.commitId), e);
+				failed = true;
+			}
+		}
+
+		/**
+		 * Called under the lock of the scheduler, which prevents new tasks from being taken meanwhile.
+		 * @return true if all the commits were passed to the handler, or the run failed and none of its tasks is still running
+		 */
+		private boolean isDone() {
+			return completedTaskCount == nextTaskIndex && (failed || nextDeliveryIndex == commitIds.size());
+		}
+
+		/**
+		 * Called once, after the run is done, when no other worker uses the run anymore.
+		 */
+		private void finish() {
+			if (repository != null) {
+				repository.close();
+			}
+			if (!failed) {
+				try {
+					handler.onFinish(refactoringsCount, nextDeliveryIndex, errorCommitsCount);
+				} catch (RuntimeException e) {
+					logger.warn(String.format("The handler of %s failed", job), e);
+				}
+			}
+			finishedRepositoryCount.incrementAndGet();
+		}
+	}
+}
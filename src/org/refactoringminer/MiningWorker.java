@@ -0,0 +1,74 @@
+package org.refactoringminer;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jgit.lib.Repository;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.BinaryResultWriter;
+import org.refactoringminer.util.GitServiceImpl;
+
+/**
+ * The child process started by {@link MiningWorkerPool} for each of its workers.
+ * <p>
+ * The worker reads the commits to analyze from its standard input, one commit id per line, and writes the result of each
+ * commit to its standard output with a {@link BinaryResultWriter}, flushed after every commit. A commit whose detection
+ * failed or timed out is written as an error record with the class name of its exception. The worker exits when its
+ * standard input is closed. Everything else printed by the detection goes to the standard error.
+ * <p>
+ * Usage: {@code MiningWorker <git-repo-folder> <timeout>}
+ */
+public class MiningWorker {
+
+	public static void main(String[] args) throws Exception {
+		FileOutputStream results = new FileOutputStream(FileDescriptor.out);
+		System.setOut(System.err);
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: MiningWorker <git-repo-folder> <timeout>");
+		}
+		String folder = args[0];
+		int timeout = Integer.parseInt(args[1]);
+		GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+		try (Repository repository = new GitServiceImpl().openRepository(folder);
+				BinaryResultWriter writer = new BinaryResultWriter(results, null);
+				BufferedReader commits = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+			String gitURL = repository.getConfig().getString("remote", "origin", "url");
+			writer.flush();
+			String commitId;
+			while ((commitId = commits.readLine()) != null) {
+				AtomicReference<List<Refactoring>> detected = new AtomicReference<List<Refactoring>>();
+				AtomicReference<Exception> error = new AtomicReference<Exception>();
+				miner.detectAtCommit(repository, commitId, new RefactoringHandler() {
+					@Override
+					public void handle(String commitId, List<Refactoring> refactorings) {
+						detected.compareAndSet(null, refactorings);
+					}
+
+					@Override
+					public void handleException(String commitId, Exception e) {
+						error.set(e);
+					}
+				}, timeout);
+				if (error.get() != null) {
+					writer.writeError(gitURL, commitId, error.get().getClass().getName(), error.get().getMessage());
+				}
+				else if (detected.get() != null) {
+					writer.writeCommit(gitURL, commitId, detected.get());
+				}
+				else {
+					//the miner ignores the commits without a parent
+					writer.writeCommit(gitURL, commitId, Collections.<Refactoring>emptyList());
+				}
+				writer.flush();
+			}
+		}
+	}
+}
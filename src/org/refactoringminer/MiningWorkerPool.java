@@ -0,0 +1,344 @@
+package org.refactoringminer;
+
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.refactoringminer.api.DetachedRefactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.util.BinaryResultReader;
+import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Analyzes the commits of a local repository in a pool of child JVM processes, each running a {@link MiningWorker}
+ * with its own heap limit, so that a commit exhausting the memory of its worker or looping past its timeout only
+ * takes down that worker, instead of the whole mining process and the commits analyzed by the other workers.
+ * <p>
+ * Each worker analyzes one commit at a time. When a worker crashes, or does not answer within the timeout of the
+ * commit plus a grace period, it is killed and replaced by a new process, and the commit is retried until it reaches
+ * the maximum number of attempts. It is then quarantined: it is reported to the handler as an exception, and listed by
+ * {@link #getQuarantinedCommits()}. The refactorings are passed to the handler as {@link DetachedRefactoring} objects,
+ * in the order the commits complete, and the handler is never called concurrently.
+ */
+public class MiningWorkerPool {
+	public static final String WORKER_RESTARTS_METRIC = "refactoringminer_worker_restarts_total";
+	public static final String QUARANTINED_COMMITS_METRIC = "refactoringminer_quarantined_commits_total";
+	private static final int KILL_GRACE_SECONDS = 30;
+	private static final int EXIT_WAIT_SECONDS = 5;
+	private static final int OUT_OF_MEMORY_EXIT_CODE = 3;
+	Logger logger = LoggerFactory.getLogger(MiningWorkerPool.class);
+	private final String repositoryFolder;
+	private final int workerCount;
+	private final String workerHeap;
+	private final int timeout;
+	private int maxAttempts = 2;
+	private int killGraceSeconds = KILL_GRACE_SECONDS;
+	private String workerMainClass = MiningWorker.class.getName();
+	private final List<String> quarantinedCommits = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * @param repositoryFolder the folder of the local repository, opened by every worker
+	 * @param workerCount the number of worker processes
+	 * @param workerHeap the maximum heap of each worker, in the format of the {@code -Xmx} option, such as {@code 2g}
+	 * @param timeout the timeout in seconds of the analysis of each commit
+	 */
+	public MiningWorkerPool(String repositoryFolder, int workerCount, String workerHeap, int timeout) {
+		this.repositoryFolder = repositoryFolder;
+		this.workerCount = workerCount;
+		this.workerHeap = workerHeap;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Sets how many times a commit is analyzed before it is quarantined, when its worker crashes or has to be killed.
+	 * By default, a commit is retried once in a new worker.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Sets how long a worker can take beyond the timeout of its commit before it is killed, 30 seconds by default.
+	 */
+	void setKillGraceSeconds(int killGraceSeconds) {
+		this.killGraceSeconds = killGraceSeconds;
+	}
+
+	/**
+	 * Runs the workers with another main class, which follows the protocol of {@link MiningWorker}.
+	 */
+	void setWorkerMainClass(String workerMainClass) {
+		this.workerMainClass = workerMainClass;
+	}
+
+	/**
+	 * @return the commits that crashed or hung their worker in every attempt
+	 */
+	public List<String> getQuarantinedCommits() {
+		synchronized (quarantinedCommits) {
+			return new ArrayList<String>(quarantinedCommits);
+		}
+	}
+
+	/**
+	 * Analyzes the commits between two commits like {@link org.refactoringminer.api.GitHistoryRefactoringMiner#detectBetweenCommits},
+	 * skipping the merge commits.
+	 */
+	public void detectBetweenCommits(String startCommitId, String endCommitId, RefactoringHandler handler) throws Exception {
+		List<String> commitIds = new ArrayList<String>();
+		GitServiceImpl gitService = new GitServiceImpl();
+		try (Repository repository = gitService.openRepository(repositoryFolder)) {
+			for (RevCommit commit : gitService.createRevsWalkBetweenCommits(repository, startCommitId, endCommitId)) {
+				commitIds.add(commit.getId().getName());
+			}
+		}
+		detect(commitIds, handler);
+	}
+
+	/**
+	 * Analyzes the given commits in the worker processes, and calls {@link RefactoringHandler#onFinish} once all of them are done.
+	 */
+	public void detect(List<String> commitIds, RefactoringHandler handler) throws InterruptedException {
+		Queue<String> pendingCommits = new ConcurrentLinkedQueue<String>();
+		for (String commitId : commitIds) {
+			if (!handler.skipCommit(commitId)) {
+				pendingCommits.add(commitId);
+			}
+		}
+		Results results = new Results(handler);
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService slots = Executors.newFixedThreadPool(workerCount, r -> new Thread(r, "refactoring-miner-worker-pool-" + threadCount.incrementAndGet()));
+		ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "refactoring-miner-worker-pool-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Map<String, Integer> attempts = new ConcurrentHashMap<String, Integer>();
+		List<Future<?>> slotResults = new ArrayList<Future<?>>();
+		try {
+			for (int i = 0; i < workerCount; i++) {
+				slotResults.add(slots.submit(() -> runSlot(pendingCommits, attempts, results, watchdog)));
+			}
+			slots.shutdown();
+			slots.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} finally {
+			slots.shutdownNow();
+			watchdog.shutdownNow();
+		}
+		for (Future<?> slotResult : slotResults) {
+			try {
+				slotResult.get();
+			} catch (ExecutionException e) {
+				//thrown by the handler, which stops the analysis like in GitHistoryRefactoringMinerImpl
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw (RuntimeException) e.getCause();
+			}
+		}
+		handler.onFinish(results.refactoringsCount, results.commitsCount, results.errorCommitsCount);
+		logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d, Quarantined: %d]",
+				repositoryFolder, results.commitsCount, results.errorCommitsCount, results.refactoringsCount, quarantinedCommits.size()));
+	}
+
+	private void runSlot(Queue<String> pendingCommits, Map<String, Integer> attempts, Results results, ScheduledExecutorService watchdog) {
+		Worker worker = null;
+		try {
+			String commitId;
+			while ((commitId = pendingCommits.poll()) != null && !Thread.currentThread().isInterrupted()) {
+				try {
+					if (worker == null) {
+						worker = new Worker();
+					}
+					results.report(worker.analyze(commitId, watchdog));
+				} catch (IOException e) {
+					String reason = worker != null ? worker.kill() : e.toString();
+					worker = null;
+					Metrics.getSharedInstance().increment(WORKER_RESTARTS_METRIC);
+					int attempt = attempts.merge(commitId, 1, Integer::sum);
+					if (attempt < maxAttempts) {
+						logger.warn("Worker {} while analyzing {}, retrying the commit in a new worker", reason, commitId);
+						pendingCommits.add(commitId);
+					}
+					else {
+						logger.warn("Worker {} while analyzing {}, quarantining the commit after {} attempts", reason, commitId, attempt);
+						quarantinedCommits.add(commitId);
+						Metrics.getSharedInstance().increment(QUARANTINED_COMMITS_METRIC);
+						results.reportError(commitId, new IOException("Worker " + reason + " in every attempt to analyze the commit"));
+					}
+				}
+			}
+		} catch (RuntimeException | Error e) {
+			pendingCommits.clear();
+			throw e;
+		} finally {
+			if (worker != null) {
+				worker.close();
+			}
+		}
+	}
+
+	/**
+	 * Passes the results of all workers to the handler, one at a time.
+	 */
+	private static class Results {
+		private final RefactoringHandler handler;
+		private int commitsCount;
+		private int errorCommitsCount;
+		private int refactoringsCount;
+
+		private Results(RefactoringHandler handler) {
+			this.handler = handler;
+		}
+
+		private synchronized void report(BinaryResultReader.Commit commit) {
+			commitsCount++;
+			if (commit.getError() != null) {
+				errorCommitsCount++;
+				handler.handleException(commit.getCommitId(), toException(commit));
+			}
+			else {
+				refactoringsCount += commit.getRefactorings().size();
+				handler.handle(commit.getCommitId(), commit.getRefactorings());
+			}
+		}
+
+		/**
+		 * @return an exception of the type recorded by the worker, such as a {@link RefactoringMinerTimedOutException},
+		 * or a plain exception with the recorded message if that type cannot be created in this process
+		 */
+		private static Exception toException(BinaryResultReader.Commit commit) {
+			String message = commit.getError().isEmpty() ? null : commit.getError();
+			try {
+				Class<? extends Exception> type = Class.forName(commit.getErrorType()).asSubclass(Exception.class);
+				if (message == null) {
+					return type.getConstructor().newInstance();
+				}
+				return type.getConstructor(String.class).newInstance(message);
+			} catch (ReflectiveOperationException | ClassCastException e) {
+				return new Exception(commit.getErrorType() + (message != null ? ": " + message : ""));
+			}
+		}
+
+		private synchronized void reportError(String commitId, Exception e) {
+			commitsCount++;
+			errorCommitsCount++;
+			handler.handleException(commitId, e);
+		}
+	}
+
+	private class Worker {
+		private final Process process;
+		private final Writer commits;
+		private final AtomicBoolean killedByWatchdog = new AtomicBoolean();
+		private BinaryResultReader results;
+
+		private Worker() throws IOException {
+			List<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			command.add("-Xmx" + workerHeap);
+			command.add("-XX:+ExitOnOutOfMemoryError");
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(workerMainClass);
+			command.add(repositoryFolder);
+			command.add(String.valueOf(timeout));
+			this.process = new ProcessBuilder(command).redirectError(Redirect.INHERIT).start();
+			this.commits = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * @throws IOException if the worker crashed, or was killed because it did not answer in time
+		 */
+		private BinaryResultReader.Commit analyze(String commitId, ScheduledExecutorService watchdog) throws IOException {
+			ScheduledFuture<?> kill = watchdog.schedule(() -> {
+				killedByWatchdog.set(true);
+				process.destroyForcibly();
+			}, timeout + killGraceSeconds, TimeUnit.SECONDS);
+			try {
+				commits.write(commitId);
+				commits.write('\n');
+				commits.flush();
+				if (results == null) {
+					//the worker writes the header of the results once it has opened the repository
+					results = new BinaryResultReader(process.getInputStream());
+				}
+				BinaryResultReader.Commit commit = results.readCommit();
+				if (commit == null || !commit.getCommitId().equals(commitId)) {
+					throw new EOFException("Unexpected result for commit " + commitId);
+				}
+				return commit;
+			} finally {
+				kill.cancel(false);
+			}
+		}
+
+		/**
+		 * @return why the worker stopped answering
+		 */
+		private String kill() {
+			try {
+				//a worker that crashed may still be exiting after closing its output
+				if (!process.waitFor(EXIT_WAIT_SECONDS, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+					process.waitFor();
+				}
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+				return "interrupted";
+			}
+			if (killedByWatchdog.get()) {
+				return "killed after " + (timeout + killGraceSeconds) + " seconds";
+			}
+			if (process.exitValue() == OUT_OF_MEMORY_EXIT_CODE) {
+				return "ran out of memory";
+			}
+			return "exited with code " + process.exitValue();
+		}
+
+		/**
+		 * Closes the standard input of the worker, which makes it exit once its current commit is done.
+		 */
+		private void close() {
+			try {
+				commits.close();
+				if (!process.waitFor(KILL_GRACE_SECONDS, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+				}
+			} catch (IOException e) {
+				process.destroyForcibly();
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
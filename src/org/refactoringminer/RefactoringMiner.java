@@ -18,6 +18,7 @@ import org.refactoringminer.util.GitServiceImpl;
 
 public class RefactoringMiner {
 	private static Path path = null;
+	private static CommitNDJSONWriter ndjsonWriter = null;
 	public static void main(String[] args) throws Exception {
 		if (args.length < 1) {
 			throw argumentException();
@@ -90,7 +91,7 @@ public class RefactoringMiner {
 	}
 
 	private static boolean containsBranchArgument(String[] args) {
-		return args.length == 3 || (args.length > 3 && args[3].equalsIgnoreCase("-json"));
+		return args.length == 3 || (args.length > 3 && isOutputOption(args[3]));
 	}
 
 	private static void detectBetweenCommits(String[] args) throws Exception {
@@ -174,7 +175,7 @@ public class RefactoringMiner {
 	}
 
 	private static boolean containsEndArgument(String[] args) {
-		return args.length == 4 || (args.length > 4 && args[4].equalsIgnoreCase("-json"));
+		return args.length == 4 || (args.length > 4 && isOutputOption(args[4]));
 	}
 
 	private static void detectAtCommit(String[] args) throws Exception {
@@ -260,8 +261,21 @@ public class RefactoringMiner {
 		endJSON();
 	}
 
+	private static boolean isOutputOption(String arg) {
+		return arg.equalsIgnoreCase("-json") || arg.equalsIgnoreCase("-ndjson");
+	}
+
 	private static int processJSONoption(String[] args, int maxArgLength) {
-		if (args[args.length-2].equalsIgnoreCase("-json")) {
+		if (args.length > 1 && args[args.length-2].equalsIgnoreCase("-ndjson")) {
+			try {
+				ndjsonWriter = new CommitNDJSONWriter(Paths.get(args[args.length-1]));
+			} catch (IOException e) {
+				//mining would otherwise run to the end without writing any output
+				throw new IllegalArgumentException("Cannot open the NDJSON output file " + args[args.length-1] + ": " + e, e);
+			}
+			maxArgLength = maxArgLength + 2;
+		}
+		else if (args[args.length-2].equalsIgnoreCase("-json")) {
 			path = Paths.get(args[args.length-1]);
 			try {
 				Files.createFile(path);
@@ -274,7 +288,14 @@ public class RefactoringMiner {
 	}
 
 	private static void commitJSON(String cloneURL, String currentCommitId, List<Refactoring> refactoringsAtRevision) {
-		if(path != null) {
+		if(ndjsonWriter != null) {
+			try {
+				ndjsonWriter.writeCommit(cloneURL, currentCommitId, refactoringsAtRevision);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		else if(path != null) {
 			String sb = commitJSONString(cloneURL, currentCommitId, refactoringsAtRevision).toString();
 			try {
 				Files.write(path, sb.getBytes(), StandardOpenOption.APPEND);
@@ -340,7 +361,14 @@ public class RefactoringMiner {
 	}
 
 	private static void endJSON() {
-		if(path != null) {
+		if(ndjsonWriter != null) {
+			try {
+				ndjsonWriter.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		else if(path != null) {
 			StringBuilder sb = new StringBuilder();
 			sb.append("]").append("\n");
 			sb.append("}");
@@ -366,6 +394,8 @@ public class RefactoringMiner {
 				"-gc <git-URL> <commit-sha1> <timeout> -json <path-to-json-file>\t\t\t\tDetect refactorings at specified commit <commit-sha1> for project <git-URL> within the given <timeout> in seconds. All required information is obtained directly from GitHub using the OAuth token in github-oauth.properties");
 		System.out.println(
 				"-gp <git-URL> <pull-request> <timeout> -json <path-to-json-file>\t\t\tDetect refactorings at specified pull request <pull-request> for project <git-URL> within the given <timeout> in seconds for each commit in the pull request. All required information is obtained directly from GitHub using the OAuth token in github-oauth.properties");
+		System.out.println(
+				"-ndjson <path-to-ndjson-file>\t\t\t\t\t\t\t\tCan replace -json in any of the above options to write one JSON object per commit and line. The file is compressed with gzip if its name ends with .gz");
 	}
 
 	private static IllegalArgumentException argumentException() {
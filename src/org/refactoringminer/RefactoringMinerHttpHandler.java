@@ -0,0 +1,459 @@
+package org.refactoringminer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.refactoringminer.api.GitService;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.JsonStringEscaper;
+import org.refactoringminer.util.Metrics;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Handles the requests of {@link RefactoringMinerHttpServer} and {@link RefactoringMinerHttpsServer}.
+ * <p>
+ * The detection runs on the workers of a {@link RefactoringMinerService}, and the response is sent when it completes,
+ * so the threads of the server are not blocked by the analysis of the commits. A client with too many requests in
+ * progress gets a 429 response, and a request that cannot be queued because the server is overloaded gets a 503 response.
+ * A detection that times out gets a 504 response, and one that fails a 500 response. A commit that is not found in
+ * a local repository gets a 404 response.
+ * <p>
+ * Besides the single commits of {@code /RefactoringMiner}, the {@code /RefactoringMiner/commits?commitIds=<sha1>,<sha1>},
+ * {@code /RefactoringMiner/range?startCommitId=<sha1>&endCommitId=<sha1>} (local repositories only) and
+ * {@code /RefactoringMiner/pullRequest?pr=<number>} endpoints analyze several commits concurrently, and stream the
+ * refactorings of each commit as a line of NDJSON as soon as it is analyzed.
+ */
+public class RefactoringMinerHttpHandler implements HttpHandler {
+	private static final String RETRY_AFTER_SECONDS = "10";
+	private static final String REPOSITORY_PROPERTY_PREFIX = "repository.";
+	private static final int MB = 1024 * 1024;
+	private static final int DEFAULT_LOCAL_TIMEOUT = 60;
+	private static final String REQUEST_METRIC = "refactoringminer_http_request_seconds";
+	private final RefactoringMinerService service;
+	private final int maxRequestsPerClient;
+	private final int maxBatchSize;
+	private final int batchConcurrency;
+	private final Map<String, AtomicInteger> clientRequests = new ConcurrentHashMap<String, AtomicInteger>();
+
+	public RefactoringMinerHttpHandler(RefactoringMinerService service, int maxRequestsPerClient, int maxBatchSize, int batchConcurrency) {
+		this.service = service;
+		this.maxRequestsPerClient = maxRequestsPerClient;
+		this.maxBatchSize = maxBatchSize;
+		this.batchConcurrency = batchConcurrency;
+	}
+
+	/**
+	 * Creates a handler configured by the optional {@code workers}, {@code queue}, {@code cache}, {@code client-requests},
+	 * {@code batch-size} and {@code batch-concurrency} properties of server.properties. Each {@code repository.<name>=<path>} property adds the local clone at the path,
+	 * which is then requested with the {@code repo=<name>} parameter instead of {@code gitURL}.
+	 */
+	public static RefactoringMinerHttpHandler create(Properties prop) throws Exception {
+		int workers = Integer.parseInt(prop.getProperty("workers", "8"));
+		int queue = Integer.parseInt(prop.getProperty("queue", "100"));
+		int cache = Integer.parseInt(prop.getProperty("cache", "1000"));
+		int clientRequests = Integer.parseInt(prop.getProperty("client-requests", "20"));
+		int batchSize = Integer.parseInt(prop.getProperty("batch-size", "250"));
+		int batchConcurrency = Integer.parseInt(prop.getProperty("batch-concurrency", "4"));
+		RefactoringMinerService service = new RefactoringMinerService(workers, queue, cache);
+		GitService gitService = new GitServiceImpl();
+		for(String property : prop.stringPropertyNames()) {
+			if(property.startsWith(REPOSITORY_PROPERTY_PREFIX)) {
+				String name = property.substring(REPOSITORY_PROPERTY_PREFIX.length());
+				service.addRepository(name, gitService.openRepository(prop.getProperty(property)));
+			}
+		}
+		if(service.getRepositoryCount() > 0) {
+			//the pack files and delta bases of the clones stay in memory across requests
+			WindowCacheConfig config = new WindowCacheConfig();
+			config.setPackedGitLimit(Long.parseLong(prop.getProperty("packed-git-limit-mb", "512")) * MB);
+			config.setPackedGitOpenFiles(256);
+			config.setDeltaBaseCacheLimit(Integer.parseInt(prop.getProperty("delta-base-cache-limit-mb", "64")) * MB);
+			config.install();
+		}
+		return new RefactoringMinerHttpHandler(service, clientRequests, batchSize, batchConcurrency);
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		long startNanos = System.nanoTime();
+		printRequestInfo(exchange);
+		URI requestURI = exchange.getRequestURI();
+		String query = requestURI.getQuery();
+		Map<String, String> queryToMap = queryToMap(query);
+		String path = requestURI.getPath();
+		String endpoint = path.substring(path.lastIndexOf('/'));
+
+		String repositoryName = queryToMap.get("repo");
+		String gitURL = repositoryName != null ? null : queryToMap.get("gitURL");
+		String timeoutParameter = queryToMap.get("timeout");
+		int timeout;
+		try {
+			//the commits of the local repositories do not need a timeout for the GitHub API
+			timeout = timeoutParameter == null && repositoryName != null ? DEFAULT_LOCAL_TIMEOUT : Integer.parseInt(timeoutParameter);
+		} catch (NumberFormatException e) {
+			timeout = -1;
+		}
+		if((gitURL == null && repositoryName == null) || timeout < 0) {
+			respond(exchange, 400, "Expected the gitURL or repo and timeout parameters");
+			return;
+		}
+		if(repositoryName != null) {
+			if(!service.hasRepository(repositoryName)) {
+				respond(exchange, 404, "Unknown repository " + repositoryName);
+				return;
+			}
+			gitURL = service.getRepositoryURL(repositoryName);
+		}
+		String repositoryURL = gitURL;
+		int commitTimeout = timeout;
+		Function<String, CompletableFuture<List<Refactoring>>> detection = commitId -> repositoryName != null ?
+				service.detectAtLocalCommit(repositoryName, commitId, commitTimeout) : service.detectAtCommit(repositoryURL, commitId, commitTimeout);
+
+		List<String> commitIds;
+		switch(endpoint) {
+		case "/RefactoringMiner":
+			String commitId = queryToMap.get("commitId");
+			if(commitId == null) {
+				respond(exchange, 400, "Expected the commitId parameter");
+				return;
+			}
+			commitIds = Collections.singletonList(commitId);
+			break;
+		case "/commits":
+			String commitIdList = queryToMap.get("commitIds");
+			if(commitIdList == null || commitIdList.isEmpty()) {
+				respond(exchange, 400, "Expected the comma-separated commitIds parameter");
+				return;
+			}
+			commitIds = Arrays.asList(commitIdList.split(","));
+			break;
+		case "/range":
+			String startCommitId = queryToMap.get("startCommitId");
+			String endCommitId = queryToMap.get("endCommitId");
+			if(repositoryName == null || startCommitId == null || endCommitId == null) {
+				respond(exchange, 400, "Expected the repo, startCommitId and endCommitId parameters");
+				return;
+			}
+			try {
+				commitIds = service.getCommitsBetween(repositoryName, startCommitId, endCommitId);
+			} catch (Exception e) {
+				respond(exchange, 400, e.toString());
+				return;
+			}
+			break;
+		case "/pullRequest":
+			int pullRequestId;
+			try {
+				pullRequestId = Integer.parseInt(queryToMap.get("pr"));
+			} catch (NumberFormatException e) {
+				respond(exchange, 400, "Expected the pr parameter");
+				return;
+			}
+			try {
+				commitIds = service.getPullRequestCommits(repositoryURL, pullRequestId);
+			} catch (IOException e) {
+				respond(exchange, 502, e.toString());
+				return;
+			}
+			break;
+		default:
+			respond(exchange, 404, "Unknown endpoint " + path);
+			return;
+		}
+		if(commitIds.size() > maxBatchSize) {
+			respond(exchange, 400, "Too many commits: " + commitIds.size() + " requested, at most " + maxBatchSize + " allowed");
+			return;
+		}
+
+		String client = exchange.getRemoteAddress().getAddress().getHostAddress();
+		AtomicInteger requests = clientRequests.computeIfAbsent(client, c -> new AtomicInteger());
+		if(requests.incrementAndGet() > maxRequestsPerClient) {
+			release(client, requests);
+			exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+			respond(exchange, 429, "Too many requests in progress");
+			return;
+		}
+		if(endpoint.equals("/RefactoringMiner")) {
+			String commitId = commitIds.get(0);
+			try {
+				detection.apply(commitId).whenComplete((refactorings, e) -> {
+					release(client, requests);
+					recordLatency(endpoint, startNanos);
+					try {
+						if(e != null) {
+							respond(exchange, isTimeout(e) ? 504 : 500, errorMessage(e, commitTimeout));
+						}
+						else {
+							String response = JSON(repositoryURL, commitId, refactorings);
+							System.out.println(response);
+							respond(exchange, 200, response);
+						}
+					} catch (IOException ioe) {
+						ioe.printStackTrace();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				release(client, requests);
+				exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+				respond(exchange, 503, "Server overloaded");
+			} catch (IllegalArgumentException e) {
+				//a commit not found in a local repository
+				release(client, requests);
+				respond(exchange, 404, e.getMessage());
+			}
+		}
+		else {
+			exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson; charset=utf-8");
+			exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+			//a zero length sends the response in chunks, each line as soon as its commit is analyzed
+			exchange.sendResponseHeaders(200, 0);
+			new StreamedResponse(exchange, repositoryURL, commitIds, commitTimeout, detection, () -> {
+				release(client, requests);
+				recordLatency(endpoint, startNanos);
+			}).start();
+		}
+	}
+
+	private static boolean isTimeout(Throwable e) {
+		return cause(e) instanceof RefactoringMinerTimedOutException;
+	}
+
+	private static String errorMessage(Throwable e, int timeout) {
+		if(isTimeout(e)) {
+			return "Detection timed out after " + timeout + " seconds";
+		}
+		return cause(e).toString();
+	}
+
+	private static Throwable cause(Throwable e) {
+		return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+	}
+
+	private static void recordLatency(String endpoint, long startNanos) {
+		Metrics.getSharedInstance().recordNanos(REQUEST_METRIC + "{endpoint=\"" + endpoint + "\"}", System.nanoTime() - startNanos);
+	}
+
+	private void release(String client, AtomicInteger requests) {
+		if(requests.decrementAndGet() == 0) {
+			clientRequests.remove(client, requests);
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String response) throws IOException {
+		byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+	/**
+	 * Writes the refactorings of a list of commits as one JSON object per line (NDJSON), in the order the detections complete.
+	 * At most {@code batchConcurrency} commits of the list are submitted to the service at the same time, so that a long
+	 * list does not fill the queue of the service by itself.
+	 */
+	private class StreamedResponse {
+		private final HttpExchange exchange;
+		private final OutputStream out;
+		private final String repositoryURL;
+		private final Iterator<String> pendingCommits;
+		private final int timeout;
+		private final Function<String, CompletableFuture<List<Refactoring>>> detection;
+		private final Runnable onComplete;
+		private int remainingCommits;
+		private boolean clientGone;
+
+		private StreamedResponse(HttpExchange exchange, String repositoryURL, List<String> commitIds, int timeout,
+				Function<String, CompletableFuture<List<Refactoring>>> detection, Runnable onComplete) {
+			this.exchange = exchange;
+			this.out = exchange.getResponseBody();
+			this.repositoryURL = repositoryURL;
+			this.pendingCommits = commitIds.iterator();
+			this.remainingCommits = commitIds.size();
+			this.timeout = timeout;
+			this.detection = detection;
+			this.onComplete = onComplete;
+		}
+
+		private void start() {
+			if(remainingCommits == 0) {
+				finish();
+				return;
+			}
+			for(int i=0; i<batchConcurrency; i++) {
+				submitNext();
+			}
+		}
+
+		private void submitNext() {
+			String commitId;
+			synchronized (this) {
+				if(clientGone || !pendingCommits.hasNext()) {
+					return;
+				}
+				commitId = pendingCommits.next();
+			}
+			CompletableFuture<List<Refactoring>> future;
+			try {
+				future = detection.apply(commitId);
+			} catch (RejectedExecutionException e) {
+				completed(commitId, null, "Server overloaded");
+				return;
+			} catch (IllegalArgumentException e) {
+				completed(commitId, null, e.getMessage());
+				return;
+			}
+			future.whenComplete((refactorings, e) -> completed(commitId, refactorings, e != null ? errorMessage(e, timeout) : null));
+		}
+
+		private void completed(String commitId, List<Refactoring> refactorings, String error) {
+			boolean last;
+			synchronized (this) {
+				if(!clientGone) {
+					try {
+						StringBuilder sb = new StringBuilder();
+						appendCommit(sb, commitId, refactorings, error);
+						out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+						out.flush();
+					} catch (IOException e) {
+						//the remaining commits are not submitted
+						clientGone = true;
+						remainingCommits -= countRemaining();
+					}
+				}
+				remainingCommits--;
+				last = remainingCommits == 0;
+			}
+			if(last) {
+				finish();
+			}
+			else {
+				submitNext();
+			}
+		}
+
+		private int countRemaining() {
+			int count = 0;
+			while(pendingCommits.hasNext()) {
+				pendingCommits.next();
+				count++;
+			}
+			return count;
+		}
+
+		private void appendCommit(StringBuilder sb, String commitId, List<Refactoring> refactorings, String error) throws IOException {
+			sb.append("{\"repository\":\"");
+			JsonStringEscaper.appendEscaped(sb, repositoryURL);
+			sb.append("\",\"sha1\":\"");
+			JsonStringEscaper.appendEscaped(sb, commitId);
+			sb.append("\",\"url\":\"");
+			JsonStringEscaper.appendEscaped(sb, GitHistoryRefactoringMinerImpl.extractCommitURL(repositoryURL, commitId));
+			sb.append("\",");
+			if(error != null) {
+				sb.append("\"error\":\"");
+				JsonStringEscaper.appendEscaped(sb, error);
+				sb.append("\"}\n");
+				return;
+			}
+			sb.append("\"refactorings\":[");
+			for(int i=0; i<refactorings.size(); i++) {
+				if(i > 0) {
+					sb.append(",");
+				}
+				//the refactorings are serialized on a single line
+				StringBuilder refactoring = new StringBuilder();
+				refactorings.get(i).toJSON(refactoring);
+				sb.append(refactoring.toString().replace("\n", ""));
+			}
+			sb.append("]}\n");
+		}
+
+		private void finish() {
+			onComplete.run();
+			exchange.close();
+		}
+	}
+
+	private static Map<String, String> queryToMap(String query) {
+		Map<String, String> result = new HashMap<>();
+		if (query == null) {
+			return result;
+		}
+		for (String param : query.split("&")) {
+			String[] entry = param.split("=");
+			if (entry.length > 1) {
+				result.put(entry[0], entry[1]);
+			}
+			else {
+				result.put(entry[0], "");
+			}
+		}
+		return result;
+	}
+
+	private static String JSON(String gitURL, String currentCommitId, List<Refactoring> refactoringsAtRevision) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{").append("\n");
+		sb.append("\"").append("commits").append("\"").append(": ");
+		sb.append("[");
+		sb.append("{");
+		sb.append("\t").append("\"").append("repository").append("\"").append(": ").append("\"").append(gitURL).append("\"").append(",").append("\n");
+		sb.append("\t").append("\"").append("sha1").append("\"").append(": ").append("\"").append(currentCommitId).append("\"").append(",").append("\n");
+		String url = GitHistoryRefactoringMinerImpl.extractCommitURL(gitURL, currentCommitId);
+		sb.append("\t").append("\"").append("url").append("\"").append(": ").append("\"").append(url).append("\"").append(",").append("\n");
+		sb.append("\t").append("\"").append("refactorings").append("\"").append(": ");
+		sb.append("[");
+		int counter = 0;
+		for(Refactoring refactoring : refactoringsAtRevision) {
+			refactoring.toJSON(sb);
+			if(counter < refactoringsAtRevision.size()-1) {
+				sb.append(",");
+			}
+			sb.append("\n");
+			counter++;
+		}
+		sb.append("]");
+		sb.append("}");
+		sb.append("]").append("\n");
+		sb.append("}");
+		return sb.toString();
+	}
+
+	private static void printRequestInfo(HttpExchange exchange) {
+		System.out.println("-- headers --");
+		Headers requestHeaders = exchange.getRequestHeaders();
+		requestHeaders.entrySet().forEach(System.out::println);
+
+		System.out.println("-- HTTP method --");
+		String requestMethod = exchange.getRequestMethod();
+		System.out.println(requestMethod);
+
+		System.out.println("-- query --");
+		URI requestURI = exchange.getRequestURI();
+		String query = requestURI.getQuery();
+		System.out.println(query);
+	}
+}
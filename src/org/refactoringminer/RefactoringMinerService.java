@@ -0,0 +1,276 @@
+package org.refactoringminer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.eclipse.jgit.errors.AmbiguousObjectException;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHPullRequestCommitDetail;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.Metrics;
+import org.refactoringminer.util.RawFileFetcher;
+import org.refactoringminer.util.SnapshotCache;
+
+/**
+ * Detects the refactorings of the commits requested from the servers on a bounded pool of worker threads.
+ * <p>
+ * Concurrent requests for the same commit with the same timeout share a single detection, and the refactorings of the
+ * last analyzed commits are kept in a bounded cache, detached from the models they were detected in. The detections that
+ * fail or time out are not cached, and complete the futures of their requests exceptionally. When all workers are busy and the
+ * queue of waiting detections is full, new detections are rejected instead of waiting indefinitely.
+ * The state of the workers, the cache and the downloads is exposed as counters and gauges of the shared {@link Metrics}.
+ */
+public class RefactoringMinerService {
+	private final GitHistoryRefactoringMinerImpl miner = new GitHistoryRefactoringMinerImpl();
+	private final ThreadPoolExecutor workers;
+	private final Map<String, List<Refactoring>> cache;
+	private final Map<String, Repository> repositories = new ConcurrentHashMap<String, Repository>();
+	private final Map<String, CompletableFuture<List<Refactoring>>> inFlight = new ConcurrentHashMap<String, CompletableFuture<List<Refactoring>>>();
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong coalescedRequests = new AtomicLong();
+	private final AtomicLong rejectedRequests = new AtomicLong();
+
+	public RefactoringMinerService(int workerCount, int queueCapacity, int cacheCapacity) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), r -> new Thread(r, "refactoring-miner-worker-" + threadCount.incrementAndGet()));
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<String, List<Refactoring>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<Refactoring>> eldest) {
+				return size() > cacheCapacity;
+			}
+		});
+		miner.setDetachResults(true);
+		registerMetrics(Metrics.getSharedInstance());
+	}
+
+	private void registerMetrics(Metrics metrics) {
+		metrics.registerGauge("refactoringminer_service_active_workers", workers::getActiveCount);
+		metrics.registerGauge("refactoringminer_service_queued_detections", () -> workers.getQueue().size());
+		metrics.registerGauge("refactoringminer_service_cached_commits", cache::size);
+		metrics.registerCounter("refactoringminer_service_cache_hits_total", cacheHits::get);
+		metrics.registerCounter("refactoringminer_service_coalesced_requests_total", coalescedRequests::get);
+		metrics.registerCounter("refactoringminer_service_rejected_requests_total", rejectedRequests::get);
+		RawFileFetcher fetcher = RawFileFetcher.getSharedInstance();
+		metrics.registerCounter("refactoringminer_fetcher_requests_total", fetcher::getRequestCount);
+		metrics.registerCounter("refactoringminer_fetcher_coalesced_requests_total", fetcher::getCoalescedCount);
+		metrics.registerCounter("refactoringminer_fetcher_failures_total", fetcher::getFailureCount);
+		metrics.registerCounter("refactoringminer_fetcher_bytes_total", fetcher::getBytesFetched);
+		metrics.registerGauge("refactoringminer_fetcher_active_requests", fetcher::getActiveCount);
+		metrics.registerGauge("refactoringminer_fetcher_queued_requests", fetcher::getQueuedCount);
+		metrics.registerGauge("refactoringminer_snapshot_cache_bytes", SnapshotCache.getSharedInstance()::getSize);
+	}
+
+	/**
+	 * Keeps a local clone open, so that its commits are analyzed without the GitHub API and with the caches of the
+	 * repository warm from the previous requests.
+	 */
+	public void addRepository(String name, Repository repository) {
+		repositories.put(name, repository);
+	}
+
+	public int getRepositoryCount() {
+		return repositories.size();
+	}
+
+	public boolean hasRepository(String name) {
+		return repositories.containsKey(name);
+	}
+
+	/**
+	 * @return the URL of the origin remote of a repository added with {@link #addRepository(String, Repository)}, or its name if it has no origin
+	 */
+	public String getRepositoryURL(String name) {
+		String url = repositories.get(name).getConfig().getString("remote", "origin", "url");
+		return url != null ? url : name;
+	}
+
+	/**
+	 * @return a future completed with the refactorings detected at the commit, or completed exceptionally with a
+	 * {@link RefactoringMinerTimedOutException} if the detection timed out, and with the cause of the failure if it failed
+	 * @throws RejectedExecutionException if the commit is neither cached nor in progress, and the queue of waiting detections is full
+	 */
+	public CompletableFuture<List<Refactoring>> detectAtCommit(String gitURL, String commitId, int timeout) {
+		return submit(gitURL + " " + commitId, timeout, handler -> detect(gitURL, commitId, timeout, handler));
+	}
+
+	/**
+	 * Detects the refactorings at a commit of a repository added with {@link #addRepository(String, Repository)}.
+	 * The commit can be given by any revision string, which is resolved to the id of the commit, so that the detections
+	 * are cached and shared by commit id, and a branch name is not answered with the refactorings of an older commit.
+	 * @throws IllegalArgumentException if the commit is not found in the repository, or its abbreviated id is ambiguous
+	 * @see #detectAtCommit(String, String, int)
+	 */
+	public CompletableFuture<List<Refactoring>> detectAtLocalCommit(String repositoryName, String commitId, int timeout) {
+		Repository repository = repositories.get(repositoryName);
+		RevCommit commit;
+		try (RevWalk walk = new RevWalk(repository)) {
+			ObjectId id = repository.resolve(commitId + "^{commit}");
+			if(id == null) {
+				throw new IllegalArgumentException("Unknown commit " + commitId);
+			}
+			commit = walk.parseCommit(id);
+		}
+		catch(MissingObjectException | IncorrectObjectTypeException e) {
+			//a full id is resolved without looking it up, and may name a missing object or one that is not a commit
+			throw new IllegalArgumentException("Unknown commit " + commitId, e);
+		}
+		catch(AmbiguousObjectException e) {
+			throw new IllegalArgumentException("Ambiguous commit " + commitId, e);
+		}
+		catch(IOException e) {
+			CompletableFuture<List<Refactoring>> future = new CompletableFuture<List<Refactoring>>();
+			future.completeExceptionally(e);
+			return future;
+		}
+		if(commit.getParentCount() == 0) {
+			//the miner ignores the commits without a parent
+			return CompletableFuture.completedFuture(Collections.<Refactoring>emptyList());
+		}
+		String resolvedCommitId = commit.getId().getName();
+		return submit(repository.getDirectory() + " " + resolvedCommitId, timeout, handler -> miner.detectAtCommit(repository, resolvedCommitId, handler, timeout));
+	}
+
+	private CompletableFuture<List<Refactoring>> submit(String key, int timeout, Consumer<RefactoringHandler> detection) {
+		List<Refactoring> cached = cache.get(key);
+		if(cached != null) {
+			cacheHits.incrementAndGet();
+			return CompletableFuture.completedFuture(cached);
+		}
+		//a request with a longer timeout does not share a detection that may time out before it
+		String inFlightKey = key + " " + timeout;
+		CompletableFuture<List<Refactoring>> future = new CompletableFuture<List<Refactoring>>();
+		CompletableFuture<List<Refactoring>> existing = inFlight.putIfAbsent(inFlightKey, future);
+		if(existing != null) {
+			coalescedRequests.incrementAndGet();
+			return existing;
+		}
+		cached = cache.get(key);
+		if(cached != null) {
+			//the previous detection of the commit completed in the meantime
+			inFlight.remove(inFlightKey, future);
+			cacheHits.incrementAndGet();
+			future.complete(cached);
+			return future;
+		}
+		try {
+			workers.execute(() -> {
+				//removed before completing, so that a request retrying a failed detection does not get its future
+				List<Refactoring> refactorings;
+				try {
+					refactorings = run(key, detection);
+				}
+				catch(Exception e) {
+					inFlight.remove(inFlightKey, future);
+					future.completeExceptionally(e);
+					return;
+				}
+				inFlight.remove(inFlightKey, future);
+				future.complete(refactorings);
+			});
+		}
+		catch(RejectedExecutionException e) {
+			inFlight.remove(inFlightKey, future);
+			rejectedRequests.incrementAndGet();
+			future.completeExceptionally(e);
+			throw e;
+		}
+		return future;
+	}
+
+	private List<Refactoring> run(String key, Consumer<RefactoringHandler> detection) throws Exception {
+		AtomicReference<List<Refactoring>> detected = new AtomicReference<List<Refactoring>>();
+		AtomicReference<Exception> error = new AtomicReference<Exception>();
+		detection.accept(new RefactoringHandler() {
+			@Override
+			public void handle(String commitId, List<Refactoring> refactorings) {
+				detected.compareAndSet(null, refactorings);
+			}
+
+			@Override
+			public void handleException(String commitId, Exception e) {
+				error.set(e);
+			}
+		});
+		if(error.get() != null) {
+			throw error.get();
+		}
+		List<Refactoring> refactorings = detected.get();
+		if(refactorings == null) {
+			throw new IllegalStateException("The detection of " + key + " reported neither refactorings nor an error");
+		}
+		cache.put(key, refactorings);
+		return refactorings;
+	}
+
+	/**
+	 * @return the commits between two commits of a repository added with {@link #addRepository(String, Repository)}, oldest first,
+	 * skipping the merge commits like {@link GitHistoryRefactoringMinerImpl#detectBetweenCommits}
+	 */
+	public List<String> getCommitsBetween(String repositoryName, String startCommitId, String endCommitId) throws Exception {
+		List<String> commitIds = new ArrayList<String>();
+		for(RevCommit commit : new GitServiceImpl().createRevsWalkBetweenCommits(repositories.get(repositoryName), startCommitId, endCommitId)) {
+			commitIds.add(commit.getId().getName());
+		}
+		return commitIds;
+	}
+
+	/**
+	 * @return the commits of a GitHub pull request, in the order listed by the GitHub API
+	 */
+	public List<String> getPullRequestCommits(String cloneURL, int pullRequestId) throws IOException {
+		List<String> commitIds = new ArrayList<String>();
+		GHPullRequest pullRequest = miner.getGitHubRepository(cloneURL).getPullRequest(pullRequestId);
+		for(GHPullRequestCommitDetail commit : pullRequest.listCommits()) {
+			commitIds.add(commit.getSha());
+		}
+		return commitIds;
+	}
+
+	protected void detect(String gitURL, String commitId, int timeout, RefactoringHandler handler) {
+		miner.detectAtCommit(gitURL, commitId, handler, timeout);
+	}
+
+	public long getCacheHits() {
+		return cacheHits.get();
+	}
+
+	public long getCoalescedRequests() {
+		return coalescedRequests.get();
+	}
+
+	public long getRejectedRequests() {
+		return rejectedRequests.get();
+	}
+
+	public void shutdown() {
+		workers.shutdown();
+		for(Repository repository : repositories.values()) {
+			repository.close();
+		}
+	}
+}
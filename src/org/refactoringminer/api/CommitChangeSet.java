@@ -0,0 +1,51 @@
+package org.refactoringminer.api;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Java files changed by a commit, computed with a single tree diff against its first parent.
+ */
+public class CommitChangeSet {
+
+	private final List<String> filesBefore;
+	private final List<String> filesCurrent;
+	private final Map<String, String> renamedFilesHint;
+	private final Churn churn;
+
+	public CommitChangeSet(List<String> filesBefore, List<String> filesCurrent, Map<String, String> renamedFilesHint, Churn churn) {
+		this.filesBefore = filesBefore;
+		this.filesCurrent = filesCurrent;
+		this.renamedFilesHint = renamedFilesHint;
+		this.churn = churn;
+	}
+
+	/**
+	 * @return The paths of the modified, deleted and renamed files in the parent commit.
+	 */
+	public List<String> getFilesBefore() {
+		return filesBefore;
+	}
+
+	/**
+	 * @return The paths of the modified, added and renamed files in the commit.
+	 */
+	public List<String> getFilesCurrent() {
+		return filesCurrent;
+	}
+
+	/**
+	 * @return The renamed files, mapping each path in the parent commit to the path in the commit.
+	 */
+	public Map<String, String> getRenamedFilesHint() {
+		return renamedFilesHint;
+	}
+
+	/**
+	 * @return The lines added and removed in the files of this change set that are in the mining scope (renamed files only
+	 * count their changed lines), or null if churn was not requested.
+	 */
+	public Churn getChurn() {
+		return churn;
+	}
+}
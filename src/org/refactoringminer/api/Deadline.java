@@ -0,0 +1,109 @@
+package org.refactoringminer.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time limit of a detection, which can also be cancelled before it expires.
+ * <p>
+ * A deadline is bound to the thread running the detection with {@link #bind()}, and the diff engine calls
+ * {@link #check()} in its long-running loops, which throws {@link RefactoringMinerTimedOutException} once the
+ * deadline has passed or was cancelled. The detection thus stops on its own thread, shortly after the deadline,
+ * without a separate thread waiting for it. Interrupting the thread also stops the detection, as before.
+ */
+public class Deadline {
+	private static final ThreadLocal<Deadline> currentDeadline = new ThreadLocal<Deadline>();
+
+	private final long expirationNanos;
+	private final Deadline extendedDeadline;
+	private volatile boolean cancelled;
+
+	private Deadline(long expirationNanos, Deadline extendedDeadline) {
+		this.expirationNanos = expirationNanos;
+		this.extendedDeadline = extendedDeadline;
+	}
+
+	public static Deadline after(long timeout, TimeUnit unit) {
+		return new Deadline(System.nanoTime() + unit.toNanos(timeout), null);
+	}
+
+	/**
+	 * @return a deadline expiring the given time after this one, which is also cancelled when this one is cancelled
+	 */
+	public Deadline extendedBy(long extension, TimeUnit unit) {
+		return new Deadline(expirationNanos + unit.toNanos(extension), this);
+	}
+
+	/**
+	 * Stops the detection bound to this deadline at its next check, which may be running on another thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	private boolean isCancelled() {
+		return cancelled || (extendedDeadline != null && extendedDeadline.isCancelled());
+	}
+
+	public boolean isExpired() {
+		return isCancelled() || System.nanoTime() - expirationNanos >= 0;
+	}
+
+	/**
+	 * @return the nanoseconds until the deadline, or 0 if it has expired
+	 */
+	public long getRemainingNanos() {
+		return isCancelled() ? 0 : Math.max(0, expirationNanos - System.nanoTime());
+	}
+
+	/**
+	 * Binds the deadline to the current thread until the returned binding is closed, when the previous deadline of the thread is restored.
+	 */
+	public Binding bind() {
+		Binding binding = new Binding(currentDeadline.get());
+		currentDeadline.set(this);
+		return binding;
+	}
+
+	/**
+	 * @return the deadline bound to the current thread, or null if it has none
+	 */
+	public static Deadline current() {
+		return currentDeadline.get();
+	}
+
+	/**
+	 * @throws RefactoringMinerTimedOutException if the deadline of the current thread has expired, or the thread was interrupted
+	 */
+	public static void check() throws RefactoringMinerTimedOutException {
+		Deadline deadline = currentDeadline.get();
+		if((deadline != null && deadline.isExpired()) || Thread.interrupted()) {
+			throw new RefactoringMinerTimedOutException();
+		}
+	}
+
+	/**
+	 * @return the nanoseconds until the deadline of the current thread, or {@code Long.MAX_VALUE} if the thread has no deadline
+	 */
+	public static long remainingNanos() {
+		Deadline deadline = currentDeadline.get();
+		return deadline != null ? deadline.getRemainingNanos() : Long.MAX_VALUE;
+	}
+
+	public static class Binding implements AutoCloseable {
+		private final Deadline previousDeadline;
+
+		private Binding(Deadline previousDeadline) {
+			this.previousDeadline = previousDeadline;
+		}
+
+		@Override
+		public void close() {
+			if(previousDeadline != null) {
+				currentDeadline.set(previousDeadline);
+			}
+			else {
+				currentDeadline.remove();
+			}
+		}
+	}
+}
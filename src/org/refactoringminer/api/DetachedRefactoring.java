@@ -0,0 +1,114 @@
+package org.refactoringminer.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * A copy of a refactoring that keeps only what is needed to report it: its type, description, code ranges and
+ * involved classes. Unlike the refactorings created by the model diff, it holds no reference to the models,
+ * so buffering detached refactorings does not keep the models of the analyzed commits reachable.
+ */
+public class DetachedRefactoring implements Refactoring {
+	private static final long serialVersionUID = 1L;
+	private final RefactoringType refactoringType;
+	private final String name;
+	private final String description;
+	private final List<CodeRange> leftSide;
+	private final List<CodeRange> rightSide;
+	private final Set<ImmutablePair<String, String>> involvedClassesBeforeRefactoring;
+	private final Set<ImmutablePair<String, String>> involvedClassesAfterRefactoring;
+
+	public DetachedRefactoring(RefactoringType refactoringType, String name, String description,
+			List<CodeRange> leftSide, List<CodeRange> rightSide,
+			Set<ImmutablePair<String, String>> involvedClassesBeforeRefactoring,
+			Set<ImmutablePair<String, String>> involvedClassesAfterRefactoring) {
+		this.refactoringType = refactoringType;
+		this.name = name;
+		this.description = description;
+		this.leftSide = Collections.unmodifiableList(leftSide);
+		this.rightSide = Collections.unmodifiableList(rightSide);
+		this.involvedClassesBeforeRefactoring = Collections.unmodifiableSet(involvedClassesBeforeRefactoring);
+		this.involvedClassesAfterRefactoring = Collections.unmodifiableSet(involvedClassesAfterRefactoring);
+	}
+
+	private DetachedRefactoring(Refactoring refactoring) {
+		this(refactoring.getRefactoringType(), refactoring.getName(), refactoring.toString(),
+				new ArrayList<CodeRange>(refactoring.leftSide()), new ArrayList<CodeRange>(refactoring.rightSide()),
+				new LinkedHashSet<ImmutablePair<String, String>>(refactoring.getInvolvedClassesBeforeRefactoring()),
+				new LinkedHashSet<ImmutablePair<String, String>>(refactoring.getInvolvedClassesAfterRefactoring()));
+	}
+
+	public static DetachedRefactoring of(Refactoring refactoring) {
+		if(refactoring instanceof DetachedRefactoring) {
+			return (DetachedRefactoring)refactoring;
+		}
+		return new DetachedRefactoring(refactoring);
+	}
+
+	public static List<Refactoring> detach(List<Refactoring> refactorings) {
+		List<Refactoring> detached = new ArrayList<Refactoring>(refactorings.size());
+		for(Refactoring refactoring : refactorings) {
+			detached.add(of(refactoring));
+		}
+		return detached;
+	}
+
+	public RefactoringType getRefactoringType() {
+		return refactoringType;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String toString() {
+		return description;
+	}
+
+	public Set<ImmutablePair<String, String>> getInvolvedClassesBeforeRefactoring() {
+		return involvedClassesBeforeRefactoring;
+	}
+
+	public Set<ImmutablePair<String, String>> getInvolvedClassesAfterRefactoring() {
+		return involvedClassesAfterRefactoring;
+	}
+
+	public List<CodeRange> leftSide() {
+		return leftSide;
+	}
+
+	public List<CodeRange> rightSide() {
+		return rightSide;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + refactoringType.hashCode();
+		result = prime * result + description.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DetachedRefactoring other = (DetachedRefactoring) obj;
+		return refactoringType == other.refactoringType &&
+				description.equals(other.description) &&
+				involvedClassesBeforeRefactoring.equals(other.involvedClassesBeforeRefactoring) &&
+				involvedClassesAfterRefactoring.equals(other.involvedClassesAfterRefactoring);
+	}
+}
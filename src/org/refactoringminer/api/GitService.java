@@ -43,5 +43,19 @@ public interface GitService {
 
 	void fileTreeDiff(Repository repository, RevCommit currentCommit, List<String> filesBefore, List<String> filesCurrent, Map<String, String> renamedFilesHint) throws Exception;
 
+	/**
+	 * Same as {@link #fileTreeDiff(Repository, RevCommit, List, List, Map)}, but only reports the files accepted by the given scope.
+	 */
+	void fileTreeDiff(Repository repository, RevCommit currentCommit, List<String> filesBefore, List<String> filesCurrent, Map<String, String> renamedFilesHint, MiningScope scope) throws Exception;
+
 	Churn churn(Repository repository, RevCommit currentCommit) throws Exception;
+
+	/**
+	 * Diffs the given commit against its first parent once, collecting the changed Java files in the given scope
+	 * and, if requested, the lines added and removed in these files.
+	 * 
+	 * @param scope The files to consider, or null to consider all files.
+	 * @param computeChurn True to also count the added and removed lines.
+	 */
+	CommitChangeSet changeSet(Repository repository, RevCommit currentCommit, MiningScope scope, boolean computeChurn) throws Exception;
 }
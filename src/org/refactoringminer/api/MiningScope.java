@@ -0,0 +1,182 @@
+package org.refactoringminer.api;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+/**
+ * Restricts mining to the files matching a set of path globs (e.g. {@code module-a/**}) or
+ * package prefixes (e.g. {@code org.example.core}). Files outside the scope are filtered out
+ * during the tree diff, so they are never loaded or parsed.
+ * <p>
+ * Since the files are not parsed yet, the package of a file is taken from its directory below a source
+ * folder, which is the root of the repository or a folder named {@code src} or {@code java}, such as
+ * {@code module-a/src/main/java}.
+ * <p>
+ * In context mode, an added file outside the scope is still analyzed when a file with the same name
+ * was deleted from the scope, and a deleted file outside the scope when a file with the same name was
+ * added to the scope, so that classes moved across the scope boundary are reported as moves rather than
+ * as additions or removals. Classes moved and renamed across the boundary are not paired this way.
+ * Refactorings that do not involve any file in the scope are dropped from the results.
+ */
+public class MiningScope {
+
+	private final List<PathMatcher> pathMatchers;
+	private final List<String[]> packagePaths;
+	private final boolean context;
+
+	public MiningScope(List<String> pathGlobs, List<String> packagePrefixes, boolean context) {
+		this.pathMatchers = new ArrayList<PathMatcher>();
+		for (String glob : pathGlobs) {
+			pathMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+		}
+		this.packagePaths = new ArrayList<String[]>();
+		for (String packagePrefix : packagePrefixes) {
+			packagePaths.add(packagePrefix.split("\\."));
+		}
+		this.context = context;
+	}
+
+	public static MiningScope ofPaths(String ... pathGlobs) {
+		return new MiningScope(Arrays.asList(pathGlobs), Collections.<String>emptyList(), false);
+	}
+
+	public static MiningScope ofPackages(String ... packagePrefixes) {
+		return new MiningScope(Collections.<String>emptyList(), Arrays.asList(packagePrefixes), false);
+	}
+
+	/**
+	 * @return a copy of this scope that also analyzes the files outside the scope that classes may have been moved from or to.
+	 */
+	public MiningScope withContext() {
+		MiningScope scope = new MiningScope(Collections.<String>emptyList(), Collections.<String>emptyList(), true);
+		scope.pathMatchers.addAll(this.pathMatchers);
+		scope.packagePaths.addAll(this.packagePaths);
+		return scope;
+	}
+
+	public boolean isContextMode() {
+		return context;
+	}
+
+	/**
+	 * @param filePath A repository-relative file path using '/' as separator.
+	 */
+	public boolean contains(String filePath) {
+		for (PathMatcher matcher : pathMatchers) {
+			if (matcher.matches(Paths.get(filePath))) {
+				return true;
+			}
+		}
+		if (!packagePaths.isEmpty()) {
+			String[] directories = filePath.split("/");
+			//the last element is the file name
+			for (int i = 0; i < directories.length - 1; i++) {
+				if (isSourceFolder(directories, i) && containsPackageAt(directories, i)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isSourceFolder(String[] directories, int packageStart) {
+		if (packageStart == 0) {
+			return true;
+		}
+		String parent = directories[packageStart - 1];
+		return parent.equals("src") || parent.equals("java");
+	}
+
+	private boolean containsPackageAt(String[] directories, int packageStart) {
+		for (String[] packagePath : packagePaths) {
+			if (packageStart + packagePath.length < directories.length &&
+					Arrays.equals(packagePath, Arrays.copyOfRange(directories, packageStart, packageStart + packagePath.length))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the filter deciding which changed files of a commit are analyzed.
+	 *
+	 * @param addedPaths The paths of the files added to the commit, including the new paths of renamed files.
+	 * @param deletedPaths The paths of the files deleted from the commit, including the old paths of renamed files.
+	 */
+	public ChangeFilter changeFilter(Collection<String> addedPaths, Collection<String> deletedPaths) {
+		Set<String> namesAddedToScope = new HashSet<String>();
+		Set<String> namesDeletedFromScope = new HashSet<String>();
+		if (context) {
+			collectFileNames(addedPaths, namesAddedToScope);
+			collectFileNames(deletedPaths, namesDeletedFromScope);
+		}
+		return new ChangeFilter(namesAddedToScope, namesDeletedFromScope);
+	}
+
+	private void collectFileNames(Collection<String> paths, Set<String> fileNames) {
+		for (String path : paths) {
+			if (contains(path)) {
+				fileNames.add(fileName(path));
+			}
+		}
+	}
+
+	private static String fileName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	public boolean involves(Refactoring refactoring) {
+		return containsAny(refactoring.getInvolvedClassesBeforeRefactoring()) ||
+				containsAny(refactoring.getInvolvedClassesAfterRefactoring());
+	}
+
+	private boolean containsAny(Set<ImmutablePair<String, String>> involvedClasses) {
+		for (ImmutablePair<String, String> involvedClass : involvedClasses) {
+			if (contains(involvedClass.getLeft())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Decides which changed files of a single commit are analyzed.
+	 */
+	public class ChangeFilter {
+		private final Set<String> namesAddedToScope;
+		private final Set<String> namesDeletedFromScope;
+
+		private ChangeFilter(Set<String> namesAddedToScope, Set<String> namesDeletedFromScope) {
+			this.namesAddedToScope = namesAddedToScope;
+			this.namesDeletedFromScope = namesDeletedFromScope;
+		}
+
+		/**
+		 * @param oldPath The path before the change, or null if the file was added.
+		 * @param newPath The path after the change, or null if the file was deleted.
+		 */
+		public boolean accepts(String oldPath, String newPath) {
+			if ((oldPath != null && contains(oldPath)) || (newPath != null && contains(newPath))) {
+				return true;
+			}
+			//a file outside the scope can only be the source or target of a class moved across the scope boundary
+			if (oldPath == null) {
+				return namesDeletedFromScope.contains(fileName(newPath));
+			}
+			if (newPath == null) {
+				return namesAddedToScope.contains(fileName(oldPath));
+			}
+			return false;
+		}
+	}
+}
@@ -1,11 +1,13 @@
 package org.refactoringminer.api;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.refactoringminer.util.JsonStringEscaper;
 
-import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import gr.uom.java.xmi.diff.CodeRange;
 
 public interface Refactoring extends Serializable, CodeRangeProvider {
 
@@ -27,15 +29,29 @@ public interface Refactoring extends Serializable, CodeRangeProvider {
 	
 	default public String toJSON() {
 		StringBuilder sb = new StringBuilder();
-		JsonStringEncoder encoder = JsonStringEncoder.getInstance();
-		sb.append("{").append("\n");
-		sb.append("\t").append("\"").append("type").append("\"").append(": ").append("\"").append(getName()).append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("description").append("\"").append(": ").append("\"");
-		encoder.quoteAsString(toString().replace('\t', ' '), sb);
-		sb.append("\"").append(",").append("\n");
-		sb.append("\t").append("\"").append("leftSideLocations").append("\"").append(": ").append(leftSide()).append(",").append("\n");
-		sb.append("\t").append("\"").append("rightSideLocations").append("\"").append(": ").append(rightSide()).append("\n");
-		sb.append("}");
+		try {
+			toJSON(sb);
+		} catch (IOException e) {
+			//appending to a StringBuilder does not throw
+		}
 		return sb.toString();
 	}
+
+	/**
+	 * Appends the same JSON as {@link #toJSON()}, without building intermediate strings for the refactoring and its code ranges.
+	 */
+	default public void toJSON(Appendable out) throws IOException {
+		out.append("{").append("\n");
+		out.append("\t").append("\"").append("type").append("\"").append(": ").append("\"").append(getName()).append("\"").append(",").append("\n");
+		out.append("\t").append("\"").append("description").append("\"").append(": ").append("\"");
+		JsonStringEscaper.appendEscaped(out, toString().replace('\t', ' '));
+		out.append("\"").append(",").append("\n");
+		out.append("\t").append("\"").append("leftSideLocations").append("\"").append(": ");
+		CodeRange.toJSON(out, leftSide());
+		out.append(",").append("\n");
+		out.append("\t").append("\"").append("rightSideLocations").append("\"").append(": ");
+		CodeRange.toJSON(out, rightSide());
+		out.append("\n");
+		out.append("}");
+	}
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package org.refactoringminer.api;
 
 import java.util.List;
+import java.util.Set;
+
+import gr.uom.java.xmi.diff.DetectionPhase;
 
 /**
  * Handler object that works in conjunction with {@link org.refactoringminer.api.GitHistoryRefactoringMiner}.
@@ -28,6 +31,27 @@ public abstract class RefactoringHandler {
 	 */
 	public void handle(String commitId, List<Refactoring> refactorings) {}
 
+	/**
+	 * This method is called after each commit of a local repository is analyzed.
+	 * By default it calls {@link #handle(String, List)}; override it to also use the files changed by the commit.
+	 * 
+	 * @param commitId The sha of the analyzed commit.
+	 * @param refactorings List of refactorings detected in the commit.
+	 * @param changeSet The Java files changed by the commit, with their churn if it was requested from the miner.
+	 */
+	public void handle(String commitId, List<Refactoring> refactorings, CommitChangeSet changeSet) {
+		handle(commitId, refactorings);
+	}
+
+	/**
+	 * This method is called before {@link #handle(String, List)} when the miner returns partial results on timeout,
+	 * and the detection of some phases was stopped or skipped because the commit ran out of time.
+	 * 
+	 * @param commitId The sha of the analyzed commit.
+	 * @param incompletePhases The phases whose refactorings may be missing from the detected refactorings.
+	 */
+	public void handlePartialResults(String commitId, Set<DetectionPhase> incompletePhases) {}
+
 	/**
      * This method is called whenever an exception is thrown during the analysis of the given commit.
      * You should override this method to do your custom logic in the case of exceptions (e.g. skip or rethrow).
@@ -1,7 +1,9 @@
 package org.refactoringminer.rm1;
 
+import gr.uom.java.xmi.SymbolTable;
 import gr.uom.java.xmi.UMLModel;
 import gr.uom.java.xmi.UMLModelASTReader;
+import gr.uom.java.xmi.UMLModelFootprint;
 import gr.uom.java.xmi.diff.MoveSourceFolderRefactoring;
 import gr.uom.java.xmi.diff.MovedClassToAnotherSourceFolder;
 import gr.uom.java.xmi.diff.RenamePattern;
@@ -10,15 +12,11 @@ import gr.uom.java.xmi.diff.UMLModelDiff;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.StringWriter;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -28,22 +26,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
@@ -59,13 +54,23 @@ import org.kohsuke.github.GHTreeEntry;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.PagedIterable;
 import org.refactoringminer.api.Churn;
+import org.refactoringminer.api.CommitChangeSet;
+import org.refactoringminer.api.Deadline;
+import org.refactoringminer.api.DetachedRefactoring;
 import org.refactoringminer.api.GitHistoryRefactoringMiner;
 import org.refactoringminer.api.GitService;
+import org.refactoringminer.api.MiningScope;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringHandler;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
 import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.Metrics;
+import org.refactoringminer.util.PhaseTimer;
+import org.refactoringminer.util.PhaseTimer.Phase;
+import org.refactoringminer.util.RawFileFetcher;
+import org.refactoringminer.util.SnapshotCache;
+import org.refactoringminer.util.SourceFileStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,8 +78,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMiner {
 
+	public static final String REFACTORINGS_METRIC = "refactoringminer_refactorings_total";
+	public static final String ERRORS_METRIC = "refactoringminer_commit_errors_total";
+	public static final String PARTIAL_RESULTS_METRIC = "refactoringminer_partial_results_total";
 	Logger logger = LoggerFactory.getLogger(GitHistoryRefactoringMinerImpl.class);
 	private Set<RefactoringType> refactoringTypesToConsider = null;
+	private MiningScope scope = null;
+	private boolean computeChurn = false;
+	private boolean reportModelFootprint = false;
+	private boolean detachResults = false;
+	private boolean partialResultsOnTimeout = false;
+	private int partialResultsGracePeriod = 60;
+	private RawFileFetcher rawFileFetcher = RawFileFetcher.getSharedInstance();
+	private Metrics metrics = Metrics.getSharedInstance();
+	private SnapshotCache snapshotCache;
 	private GitHub gitHub;
 	
 	public GitHistoryRefactoringMinerImpl() {
@@ -87,6 +104,101 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			this.refactoringTypesToConsider.add(type);
 		}
 	}
+
+	/**
+	 * Restricts the analysis to the files in the given scope, or analyzes all files if the scope is null.
+	 */
+	public void setMiningScope(MiningScope scope) {
+		this.scope = scope;
+	}
+
+	/**
+	 * Also counts the lines added and removed in the analyzed Java files of each commit, during the same tree diff
+	 * used to find these files. The churn is passed to {@link RefactoringHandler#handle(String, List, CommitChangeSet)}.
+	 */
+	public void setComputeChurn(boolean computeChurn) {
+		this.computeChurn = computeChurn;
+	}
+
+	/**
+	 * Passes {@link DetachedRefactoring} copies of the detected refactorings to the handler, which hold no reference
+	 * to the models of the commit, so that handlers buffering the results do not keep the models reachable.
+	 * The detached copies do not provide the model elements exposed by the specific refactoring classes.
+	 */
+	public void setDetachResults(boolean detachResults) {
+		this.detachResults = detachResults;
+	}
+
+	/**
+	 * Returns the refactorings detected before the timeout of a commit expires, instead of failing the commit, when the
+	 * models of the commit were built in time. The cheap phases detecting the class moves and renames, the package refactorings
+	 * and the method renames inferred from the call sites run to completion, and only the time left is spent on mapping the
+	 * bodies of the operations. The phases stopped or skipped are passed to {@link RefactoringHandler#handlePartialResults(String, Set)}.
+	 * The cheap phases are still bounded by the grace period set with {@link #setPartialResultsGracePeriod(int)}.
+	 * @see UMLModelDiff#setBudget(Deadline)
+	 */
+	public void setPartialResultsOnTimeout(boolean partialResultsOnTimeout) {
+		this.partialResultsOnTimeout = partialResultsOnTimeout;
+	}
+
+	/**
+	 * Sets how long after the timeout of a commit the phases that run to completion in partial results mode may still run,
+	 * 60 seconds by default. A commit whose cheap phases run past the grace period fails with a timeout, as without partial results.
+	 */
+	public void setPartialResultsGracePeriod(int partialResultsGracePeriod) {
+		this.partialResultsGracePeriod = partialResultsGracePeriod;
+	}
+
+	/**
+	 * Sets the fetcher used to download the files of the commits analyzed with the GitHub API.
+	 * By default, the fetcher shared by all miners is used, so that the downloads of the process are bounded together.
+	 */
+	public void setRawFileFetcher(RawFileFetcher rawFileFetcher) {
+		this.rawFileFetcher = rawFileFetcher;
+	}
+
+	/**
+	 * Sets the metrics receiving the time spent in each {@link PhaseTimer.Phase} of the analyzed commits, and the number of
+	 * refactorings and failed commits. By default, the metrics shared by all miners are used.
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the cache of the archives downloaded by {@link #detectAtCommit(Repository, String, RefactoringHandler)} for
+	 * commits missing from the local repository, and of the files changed by these commits.
+	 * By default, a cache of 2 GB in the temporary directory is shared by all miners.
+	 */
+	public void setSnapshotCache(SnapshotCache snapshotCache) {
+		this.snapshotCache = snapshotCache;
+	}
+
+	private SnapshotCache getSnapshotCache() {
+		return snapshotCache != null ? snapshotCache : SnapshotCache.getSharedInstance();
+	}
+
+	/**
+	 * Logs the number of objects and the estimated size of the models built for each commit.
+	 * Measuring a model walks all its objects, so this is meant for diagnosing memory usage.
+	 */
+	public void setReportModelFootprint(boolean reportModelFootprint) {
+		this.reportModelFootprint = reportModelFootprint;
+	}
+
+	private void reportModelFootprint(String commitId, UMLModel parentUMLModel, UMLModel currentUMLModel) {
+		if(reportModelFootprint) {
+			UMLModelFootprint parentFootprint = UMLModelFootprint.of(parentUMLModel);
+			UMLModelFootprint currentFootprint = UMLModelFootprint.of(currentUMLModel);
+			logger.info("Models of {}: parent {}, current {}", commitId, parentFootprint, currentFootprint);
+			if(parentFootprint.getJdtObjectCount() > 0 || currentFootprint.getJdtObjectCount() > 0) {
+				List<String> references = new ArrayList<String>(parentFootprint.getJdtReferences());
+				references.addAll(currentFootprint.getJdtReferences());
+				logger.warn("Models of {} retain {} JDT objects through {}", commitId,
+						parentFootprint.getJdtObjectCount() + currentFootprint.getJdtObjectCount(), references);
+			}
+		}
+	}
 	
 	private void detect(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) {
 		int commitsCount = 0;
@@ -100,6 +212,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		long time = System.currentTimeMillis();
 		while (i.hasNext()) {
 			RevCommit currentCommit = i.next();
+			PhaseTimer timer = PhaseTimer.start();
 			try {
 				List<Refactoring> refactoringsAtRevision = detectRefactorings(gitService, repository, handler, projectFolder, currentCommit);
 				refactoringsCount += refactoringsAtRevision.size();
@@ -107,7 +220,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			} catch (Exception e) {
 				logger.warn(String.format("Ignored revision %s due to error", currentCommit.getId().getName()), e);
 				handler.handleException(currentCommit.getId().getName(),e);
+				metrics.increment(ERRORS_METRIC);
 				errorCommitsCount++;
+			} finally {
+				timer.stop(metrics);
 			}
 
 			commitsCount++;
@@ -125,53 +241,87 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 	protected List<Refactoring> detectRefactorings(GitService gitService, Repository repository, final RefactoringHandler handler, File projectFolder, RevCommit currentCommit) throws Exception {
 		List<Refactoring> refactoringsAtRevision;
 		String commitId = currentCommit.getId().getName();
-		List<String> filePathsBefore = new ArrayList<String>();
-		List<String> filePathsCurrent = new ArrayList<String>();
-		Map<String, String> renamedFilesHint = new HashMap<String, String>();
-		gitService.fileTreeDiff(repository, currentCommit, filePathsBefore, filePathsCurrent, renamedFilesHint);
+		PhaseTimer.switchTo(Phase.BLOB_LOADING);
+		CommitChangeSet changeSet = gitService.changeSet(repository, currentCommit, scope, computeChurn);
+		List<String> filePathsBefore = changeSet.getFilesBefore();
+		List<String> filePathsCurrent = changeSet.getFilesCurrent();
+		Map<String, String> renamedFilesHint = new HashMap<String, String>(changeSet.getRenamedFilesHint());
 		
 		Set<String> repositoryDirectoriesBefore = new LinkedHashSet<String>();
 		Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<String>();
-		Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
-		Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
+		SourceFileStore fileContentsBefore = new SourceFileStore();
+		SourceFileStore fileContentsCurrent = new SourceFileStore();
 		try (RevWalk walk = new RevWalk(repository)) {
 			// If no java files changed, there is no refactoring. Also, if there are
 			// only ADD's or only REMOVE's there is no refactoring
 			if (!filePathsBefore.isEmpty() && !filePathsCurrent.isEmpty() && currentCommit.getParentCount() > 0) {
 				RevCommit parentCommit = currentCommit.getParent(0);
-				populateFileContents(repository, parentCommit, filePathsBefore, fileContentsBefore, repositoryDirectoriesBefore);
-				populateFileContents(repository, currentCommit, filePathsCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
+				logger.info("Processing {} {} ...", repository.getDirectory().getParent().toString(), commitId);
+				Map<String, ObjectId> blobIdsBefore = findBlobIds(repository, parentCommit, filePathsBefore, repositoryDirectoriesBefore);
+				Map<String, ObjectId> blobIdsCurrent = findBlobIds(repository, currentCommit, filePathsCurrent, repositoryDirectoriesCurrent);
+				readBlobs(repository, blobIdsBefore, blobIdsCurrent, renamedFilesHint, fileContentsBefore, fileContentsCurrent);
 				List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-				UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-				UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
+				PhaseTimer.switchTo(Phase.PARSING);
+				SymbolTable symbolTable = new SymbolTable();
+				UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, symbolTable);
+				UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent, symbolTable);
+				reportModelFootprint(commitId, parentUMLModel, currentUMLModel);
 				
-				UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint);
-				refactoringsAtRevision = modelDiff.getRefactorings();
+				refactoringsAtRevision = diffModels(parentUMLModel, currentUMLModel, renamedFilesHint, commitId, handler);
+				PhaseTimer.switchTo(Phase.POST_PROCESSING);
 				refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
-				refactoringsAtRevision = filter(refactoringsAtRevision);
+				refactoringsAtRevision = detach(filter(refactoringsAtRevision));
 			} else {
 				//logger.info(String.format("Ignored revision %s with no changes in java files", commitId));
 				refactoringsAtRevision = Collections.emptyList();
 			}
-			handler.handle(commitId, refactoringsAtRevision);
+			PhaseTimer.switchTo(Phase.OUTPUT);
+			metrics.add(REFACTORINGS_METRIC, refactoringsAtRevision.size());
+			handler.handle(commitId, refactoringsAtRevision, changeSet);
 			
 			walk.dispose();
 		}
 		return refactoringsAtRevision;
 	}
 
-	private List<MoveSourceFolderRefactoring> processIdenticalFiles(Map<String, String> fileContentsBefore, Map<String, String> fileContentsCurrent, Map<String, String> renamedFilesHint) {
+	private List<Refactoring> diffModels(UMLModel parentUMLModel, UMLModel currentUMLModel, Map<String, String> renamedFilesHint,
+			String commitId, RefactoringHandler handler) throws RefactoringMinerTimedOutException {
+		//the deadline of the commit becomes the budget of the body mapping, and the cheap phases are bounded by the grace period after it
+		Deadline budget = partialResultsOnTimeout ? Deadline.current() : null;
+		Deadline.Binding binding = budget != null ? budget.extendedBy(partialResultsGracePeriod, TimeUnit.SECONDS).bind() : null;
+		try {
+			PhaseTimer.switchTo(Phase.CLASS_MATCHING);
+			UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint, refactoringTypesToConsider, budget);
+			PhaseTimer.switchTo(Phase.BODY_MAPPING);
+			List<Refactoring> refactorings = modelDiff.getRefactorings();
+			if(!modelDiff.getIncompletePhases().isEmpty()) {
+				logger.warn("Partial results for {} due to timeout, incomplete phases {}", commitId, modelDiff.getIncompletePhases());
+				metrics.increment(PARTIAL_RESULTS_METRIC);
+				handler.handlePartialResults(commitId, modelDiff.getIncompletePhases());
+			}
+			return refactorings;
+		}
+		finally {
+			if(binding != null) {
+				binding.close();
+			}
+		}
+	}
+
+	private List<MoveSourceFolderRefactoring> processIdenticalFiles(SourceFileStore fileContentsBefore, SourceFileStore fileContentsCurrent, Map<String, String> renamedFilesHint) {
 		Map<String, String> identicalFiles = new HashMap<String, String>();
-		for(String key : fileContentsBefore.keySet()) {
+		for(String key : fileContentsBefore.getFilePaths()) {
 			if(renamedFilesHint.containsKey(key)) {
 				String renamedFile = renamedFilesHint.get(key);
-				if(fileContentsBefore.get(key).equals(fileContentsCurrent.get(renamedFile))) {
+				if(fileContentsBefore.sameContents(key, fileContentsCurrent, renamedFile)) {
 					identicalFiles.put(key, renamedFile);
 				}
 			}
 		}
-		fileContentsBefore.keySet().removeAll(identicalFiles.keySet());
-		fileContentsCurrent.keySet().removeAll(identicalFiles.values());
+		for(Map.Entry<String, String> entry : identicalFiles.entrySet()) {
+			fileContentsBefore.remove(entry.getKey());
+			fileContentsCurrent.remove(entry.getValue());
+		}
 		
 		List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = new ArrayList<MoveSourceFolderRefactoring>();
 		for(String key : identicalFiles.keySet()) {
@@ -206,21 +356,19 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		return moveSourceFolderRefactorings;
 	}
 
-	private void populateFileContents(Repository repository, RevCommit commit,
-			List<String> filePaths, Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
-		logger.info("Processing {} {} ...", repository.getDirectory().getParent().toString(), commit.getName());
+	private Map<String, ObjectId> findBlobIds(Repository repository, RevCommit commit,
+			List<String> filePaths, Set<String> repositoryDirectories) throws Exception {
+		Set<String> filePathSet = new HashSet<String>(filePaths);
+		Map<String, ObjectId> blobIds = new LinkedHashMap<String, ObjectId>();
 		RevTree parentTree = commit.getTree();
 		try (TreeWalk treeWalk = new TreeWalk(repository)) {
 			treeWalk.addTree(parentTree);
 			treeWalk.setRecursive(true);
 			while (treeWalk.next()) {
+				Deadline.check();
 				String pathString = treeWalk.getPathString();
-				if(filePaths.contains(pathString)) {
-					ObjectId objectId = treeWalk.getObjectId(0);
-					ObjectLoader loader = repository.open(objectId);
-					StringWriter writer = new StringWriter();
-					IOUtils.copy(loader.openStream(), writer);
-					fileContents.put(pathString, writer.toString());
+				if(filePathSet.contains(pathString)) {
+					blobIds.put(pathString, treeWalk.getObjectId(0));
 				}
 				if(pathString.endsWith(".java") && pathString.contains("/")) {
 					String directory = pathString.substring(0, pathString.lastIndexOf("/"));
@@ -234,57 +382,118 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 				}
 			}
 		}
+		return blobIds;
+	}
+
+	/**
+	 * Reads the blobs of both sides of a commit with a single object reader. Each file is read right after its
+	 * version in the commit, since git packs usually store the newer version whole and the older one as a delta
+	 * against it, so that the delta base is still in the reader's cache. The files deleted by the commit are read last.
+	 * The file contents keep the tree order.
+	 */
+	private void readBlobs(Repository repository, Map<String, ObjectId> blobIdsBefore, Map<String, ObjectId> blobIdsCurrent,
+			Map<String, String> renamedFilesHint, SourceFileStore fileContentsBefore, SourceFileStore fileContentsCurrent) throws IOException, RefactoringMinerTimedOutException {
+		Map<String, String> pathsBefore = new HashMap<String, String>();
+		for(String path : blobIdsBefore.keySet()) {
+			fileContentsBefore.reserve(path);
+			String pathCurrent = renamedFilesHint.containsKey(path) ? renamedFilesHint.get(path) : path;
+			pathsBefore.putIfAbsent(pathCurrent, path);
+		}
+		for(String path : blobIdsCurrent.keySet()) {
+			fileContentsCurrent.reserve(path);
+		}
+		Set<String> pathsBeforeRead = new HashSet<String>();
+		try (ObjectReader reader = repository.newObjectReader()) {
+			for(Map.Entry<String, ObjectId> entry : blobIdsCurrent.entrySet()) {
+				Deadline.check();
+				String pathCurrent = entry.getKey();
+				fileContentsCurrent.put(pathCurrent, readBlob(reader, entry.getValue()));
+				String pathBefore = pathsBefore.get(pathCurrent);
+				if(pathBefore != null) {
+					readBlobBefore(reader, pathBefore, blobIdsBefore.get(pathBefore), entry.getValue(), pathCurrent, fileContentsBefore, fileContentsCurrent);
+					pathsBeforeRead.add(pathBefore);
+				}
+			}
+			for(Map.Entry<String, ObjectId> entry : blobIdsBefore.entrySet()) {
+				String path = entry.getKey();
+				if(!pathsBeforeRead.contains(path)) {
+					Deadline.check();
+					String pathCurrent = renamedFilesHint.containsKey(path) ? renamedFilesHint.get(path) : path;
+					readBlobBefore(reader, path, entry.getValue(), blobIdsCurrent.get(pathCurrent), pathCurrent, fileContentsBefore, fileContentsCurrent);
+				}
+			}
+		}
+	}
+
+	private void readBlobBefore(ObjectReader reader, String path, ObjectId blobId, ObjectId blobIdCurrent, String pathCurrent,
+			SourceFileStore fileContentsBefore, SourceFileStore fileContentsCurrent) throws IOException {
+		if(blobId.equals(blobIdCurrent)) {
+			fileContentsBefore.putSame(path, fileContentsCurrent, pathCurrent);
+		}
+		else {
+			fileContentsBefore.put(path, readBlob(reader, blobId));
+		}
+	}
+
+	private byte[] readBlob(ObjectReader reader, ObjectId blobId) throws IOException {
+		ObjectLoader loader = reader.open(blobId, Constants.OBJ_BLOB);
+		if(loader.isLarge()) {
+			try (InputStream inputStream = loader.openStream()) {
+				return IOUtils.toByteArray(inputStream);
+			}
+		}
+		//the cached bytes are only read, so they are kept without a copy
+		return loader.getCachedBytes();
 	}
 
 	protected List<Refactoring> detectRefactorings(final RefactoringHandler handler, File projectFolder, String cloneURL, String currentCommitId) {
 		List<Refactoring> refactoringsAtRevision = Collections.emptyList();
 		try {
-			ChangedFileInfo changedFileInfo = populateWithGitHubAPI(projectFolder, cloneURL, currentCommitId);
+			PhaseTimer.switchTo(Phase.BLOB_LOADING);
+			ChangedFileInfo changedFileInfo = populateWithGitHubAPI(cloneURL, currentCommitId);
 			String parentCommitId = changedFileInfo.getParentCommitId();
 			List<String> filesBefore = changedFileInfo.getFilesBefore();
 			List<String> filesCurrent = changedFileInfo.getFilesCurrent();
 			Map<String, String> renamedFilesHint = changedFileInfo.getRenamedFilesHint();
-			File currentFolder = new File(projectFolder.getParentFile(), projectFolder.getName() + "-" + currentCommitId);
-			File parentFolder = new File(projectFolder.getParentFile(), projectFolder.getName() + "-" + parentCommitId);
-			if (!currentFolder.exists()) {	
-				downloadAndExtractZipFile(projectFolder, cloneURL, currentCommitId);
-			}
-			if (!parentFolder.exists()) {	
-				downloadAndExtractZipFile(projectFolder, cloneURL, parentCommitId);
+			if (scope != null) {
+				applyScope(filesBefore, filesCurrent, renamedFilesHint);
 			}
 			Set<String> repositoryDirectoriesBefore = new LinkedHashSet<String>();
 			Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<String>();
-			Map<String, String> fileContentsBefore = new LinkedHashMap<String, String>();
-			Map<String, String> fileContentsCurrent = new LinkedHashMap<String, String>();
-			if (currentFolder.exists() && parentFolder.exists()) {
-				populateFileContents(currentFolder, filesCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
-				populateFileContents(parentFolder, filesBefore, fileContentsBefore, repositoryDirectoriesBefore);
-				List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint); 
-				UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-				UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
-				// Diff between currentModel e parentModel
-				UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint);
-				refactoringsAtRevision = modelDiff.getRefactorings();
-				refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
-				refactoringsAtRevision = filter(refactoringsAtRevision);
-			}
-			else {
-				logger.warn(String.format("Folder %s not found", currentFolder.getPath()));
+			SourceFileStore fileContentsBefore = new SourceFileStore();
+			SourceFileStore fileContentsCurrent = new SourceFileStore();
+			SnapshotCache snapshotCache = getSnapshotCache();
+			try (SnapshotCache.Snapshot currentSnapshot = snapshotCache.open(currentCommitId, extractDownloadLink(cloneURL, currentCommitId));
+					SnapshotCache.Snapshot parentSnapshot = snapshotCache.open(parentCommitId, extractDownloadLink(cloneURL, parentCommitId))) {
+				populateFileContents(currentSnapshot, filesCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
+				populateFileContents(parentSnapshot, filesBefore, fileContentsBefore, repositoryDirectoriesBefore);
 			}
+			List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint); 
+			PhaseTimer.switchTo(Phase.PARSING);
+			SymbolTable symbolTable = new SymbolTable();
+			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, symbolTable);
+			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent, symbolTable);
+			reportModelFootprint(currentCommitId, parentUMLModel, currentUMLModel);
+			refactoringsAtRevision = diffModels(parentUMLModel, currentUMLModel, renamedFilesHint, currentCommitId, handler);
+			PhaseTimer.switchTo(Phase.POST_PROCESSING);
+			refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
+			refactoringsAtRevision = detach(filter(refactoringsAtRevision));
 		} catch (Exception e) {
 			logger.warn(String.format("Ignored revision %s due to error", currentCommitId), e);
 			handler.handleException(currentCommitId, e);
+			metrics.increment(ERRORS_METRIC);
 		}
+		PhaseTimer.switchTo(Phase.OUTPUT);
+		metrics.add(REFACTORINGS_METRIC, refactoringsAtRevision.size());
 		handler.handle(currentCommitId, refactoringsAtRevision);
 
 		return refactoringsAtRevision;
 	}
 
-	private void populateFileContents(File projectFolder, List<String> filePaths, Map<String, String> fileContents,	Set<String> repositoryDirectories) throws IOException {
+	private void populateFileContents(SnapshotCache.Snapshot snapshot, List<String> filePaths, SourceFileStore fileContents, Set<String> repositoryDirectories) throws IOException, RefactoringMinerTimedOutException {
 		for(String path : filePaths) {
-			String fullPath = projectFolder + File.separator + path.replaceAll("/", systemFileSeparator);
-			String contents = FileUtils.readFileToString(new File(fullPath));
-			fileContents.put(path, contents);
+			Deadline.check();
+			fileContents.put(path, snapshot.read(path));
 			String directory = new String(path);
 			while(directory.contains("/")) {
 				directory = directory.substring(0, directory.lastIndexOf("/"));
@@ -293,35 +502,6 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		}
 	}
 
-	private void downloadAndExtractZipFile(File projectFolder, String cloneURL, String commitId)
-			throws IOException {
-		String downloadLink = extractDownloadLink(cloneURL, commitId);
-		File destinationFile = new File(projectFolder.getParentFile(), projectFolder.getName() + "-" + commitId + ".zip");
-		logger.info(String.format("Downloading archive %s", downloadLink));
-		FileUtils.copyURLToFile(new URL(downloadLink), destinationFile);
-		logger.info(String.format("Unzipping archive %s", downloadLink));
-		java.util.zip.ZipFile zipFile = new ZipFile(destinationFile);
-		try {
-			Enumeration<? extends ZipEntry> entries = zipFile.entries();
-			while (entries.hasMoreElements()) {
-				ZipEntry entry = entries.nextElement();
-				File entryDestination = new File(projectFolder.getParentFile(),  entry.getName());
-				if (entry.isDirectory()) {
-					entryDestination.mkdirs();
-				} else {
-					entryDestination.getParentFile().mkdirs();
-					InputStream in = zipFile.getInputStream(entry);
-					OutputStream out = new FileOutputStream(entryDestination);
-					IOUtils.copy(in, out);
-					IOUtils.closeQuietly(in);
-					out.close();
-				}
-			}
-		} finally {
-			zipFile.close();
-		}
-	}
-
 	public static class ChangedFileInfo {
 		private String parentCommitId;
 		private List<String> filesBefore;
@@ -357,13 +537,14 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		}
 	}
 
-	private ChangedFileInfo populateWithGitHubAPI(File projectFolder, String cloneURL, String currentCommitId) throws IOException {
+	private ChangedFileInfo populateWithGitHubAPI(String cloneURL, String currentCommitId) throws IOException, RefactoringMinerTimedOutException {
 		logger.info("Processing {} {} ...", cloneURL, currentCommitId);
-		String jsonFilePath = projectFolder.getName() + "-" + currentCommitId + ".json";
-		File jsonFile = new File(projectFolder.getParent(), jsonFilePath);
-		if(jsonFile.exists()) {
+		String jsonFileName = currentCommitId + ".json";
+		SnapshotCache snapshotCache = getSnapshotCache();
+		byte[] json = snapshotCache.getMetadata(jsonFileName);
+		if(json != null) {
 			final ObjectMapper mapper = new ObjectMapper();
-			ChangedFileInfo changedFileInfo = mapper.readValue(jsonFile, ChangedFileInfo.class);
+			ChangedFileInfo changedFileInfo = mapper.readValue(json, ChangedFileInfo.class);
 			return changedFileInfo;
 		}
 		else {
@@ -375,6 +556,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			List<String> filesCurrent = new ArrayList<String>();
 			Map<String, String> renamedFilesHint = new HashMap<String, String>();
 			for (GHCommit.File commitFile : commitFiles) {
+				Deadline.check();
 				if (commitFile.getFileName().endsWith(".java")) {
 					if (commitFile.getStatus().equals("modified")) {
 						filesBefore.add(commitFile.getFileName());
@@ -395,7 +577,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			}
 			ChangedFileInfo changedFileInfo = new ChangedFileInfo(parentCommitId, filesBefore, filesCurrent, renamedFilesHint);
 			final ObjectMapper mapper = new ObjectMapper();
-			mapper.writeValue(jsonFile, changedFileInfo);
+			snapshotCache.putMetadata(jsonFileName, mapper.writeValueAsBytes(changedFileInfo));
 			return changedFileInfo;
 		}
 	}
@@ -425,13 +607,81 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		return gitHub;
 	}
 
+	private void applyScope(List<String> filesBefore, List<String> filesCurrent, Map<String, String> renamedFilesHint) {
+		Set<String> addedPaths = new HashSet<String>(filesCurrent);
+		addedPaths.removeAll(filesBefore);
+		Set<String> deletedPaths = new HashSet<String>(filesBefore);
+		deletedPaths.removeAll(filesCurrent);
+		Map<String, String> previousPaths = new HashMap<String, String>();
+		for (Map.Entry<String, String> entry : renamedFilesHint.entrySet()) {
+			previousPaths.put(entry.getValue(), entry.getKey());
+		}
+		MiningScope.ChangeFilter changeFilter = scope.changeFilter(addedPaths, deletedPaths);
+		filesBefore.removeIf(oldPath -> !changeFilter.accepts(oldPath, counterpart(oldPath, renamedFilesHint, deletedPaths)));
+		filesCurrent.removeIf(newPath -> !changeFilter.accepts(counterpart(newPath, previousPaths, addedPaths), newPath));
+		renamedFilesHint.keySet().retainAll(filesBefore);
+	}
+
+	/**
+	 * @return the path of a file on the other side of the commit, or null if the file exists only on this side
+	 */
+	private static String counterpart(String path, Map<String, String> renamedPaths, Set<String> pathsOnlyOnThisSide) {
+		String renamedPath = renamedPaths.get(path);
+		if (renamedPath != null) {
+			return renamedPath;
+		}
+		if (pathsOnlyOnThisSide.contains(path)) {
+			return null;
+		}
+		return path;
+	}
+
+	private MiningScope.ChangeFilter changeFilter(List<GHCommit.File> commitFiles) {
+		List<String> addedPaths = new ArrayList<String>();
+		List<String> deletedPaths = new ArrayList<String>();
+		for (GHCommit.File commitFile : commitFiles) {
+			String status = commitFile.getStatus();
+			if (status.equals("added") || status.equals("renamed")) {
+				addedPaths.add(commitFile.getFileName());
+			}
+			if (status.equals("removed")) {
+				deletedPaths.add(commitFile.getFileName());
+			}
+			else if (status.equals("renamed")) {
+				deletedPaths.add(commitFile.getPreviousFilename());
+			}
+		}
+		return scope.changeFilter(addedPaths, deletedPaths);
+	}
+
+	private static boolean isInScope(GHCommit.File commitFile, MiningScope.ChangeFilter changeFilter) {
+		if (changeFilter == null) {
+			return true;
+		}
+		String status = commitFile.getStatus();
+		String oldPath = null;
+		if (status.equals("renamed")) {
+			oldPath = commitFile.getPreviousFilename();
+		}
+		else if (!status.equals("added")) {
+			oldPath = commitFile.getFileName();
+		}
+		String newPath = status.equals("removed") ? null : commitFile.getFileName();
+		return changeFilter.accepts(oldPath, newPath);
+	}
+
+	private List<Refactoring> detach(List<Refactoring> refactoringsAtRevision) {
+		return detachResults ? DetachedRefactoring.detach(refactoringsAtRevision) : refactoringsAtRevision;
+	}
+
 	protected List<Refactoring> filter(List<Refactoring> refactoringsAtRevision) {
-		if (this.refactoringTypesToConsider == null) {
+		if (this.refactoringTypesToConsider == null && this.scope == null) {
 			return refactoringsAtRevision;
 		}
 		List<Refactoring> filteredList = new ArrayList<Refactoring>();
 		for (Refactoring ref : refactoringsAtRevision) {
-			if (this.refactoringTypesToConsider.contains(ref.getRefactoringType())) {
+			if ((this.refactoringTypesToConsider == null || this.refactoringTypesToConsider.contains(ref.getRefactoringType())) &&
+					(this.scope == null || this.scope.involves(ref))) {
 				filteredList.add(ref);
 			}
 		}
@@ -470,8 +720,12 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		}
 	}
 
-	protected UMLModel createModel(Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
-		return new UMLModelASTReader(fileContents, repositoryDirectories).getUmlModel();
+	/**
+	 * Builds the model of the files in the store, which is left empty: each file is removed from the store when it is parsed.
+	 */
+	protected UMLModel createModel(SourceFileStore fileContents, Set<String> repositoryDirectories, SymbolTable symbolTable) throws Exception {
+		Deadline.check();
+		return UMLModelASTReader.ofSources(fileContents.releaseAll(), repositoryDirectories, symbolTable).getUmlModel();
 	}
 
 	private static final String systemFileSeparator = Matcher.quoteReplacement(File.separator);
@@ -483,6 +737,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		File projectFolder = metadataFolder.getParentFile();
 		GitService gitService = new GitServiceImpl();
 		RevWalk walk = new RevWalk(repository);
+		PhaseTimer timer = PhaseTimer.start();
 		try {
 			RevCommit commit = walk.parseCommit(repository.resolve(commitId));
 			if (commit.getParentCount() > 0) {
@@ -496,30 +751,30 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			this.detectRefactorings(handler, projectFolder, cloneURL, commitId);
 		} catch (RefactoringMinerTimedOutException e) {
 			logger.warn(String.format("Ignored revision %s due to timeout", commitId), e);
+			handler.handleException(commitId, e);
+			metrics.increment(ERRORS_METRIC);
 		} catch (Exception e) {
 			logger.warn(String.format("Ignored revision %s due to error", commitId), e);
 			handler.handleException(commitId, e);
+			metrics.increment(ERRORS_METRIC);
 		} finally {
+			timer.stop(metrics);
 			walk.close();
 			walk.dispose();
 		}
 	}
 
+	/**
+	 * Detects the refactorings at the commit on the calling thread, which stops the detection once the timeout has elapsed.
+	 * @see Deadline
+	 */
 	public void detectAtCommit(Repository repository, String commitId, RefactoringHandler handler, int timeout) {
-		ExecutorService service = Executors.newSingleThreadExecutor();
-		Future<?> f = null;
+		Deadline.Binding binding = Deadline.after(timeout, TimeUnit.SECONDS).bind();
 		try {
-			Runnable r = () -> detectAtCommit(repository, commitId, handler);
-			f = service.submit(r);
-			f.get(timeout, TimeUnit.SECONDS);
-		} catch (TimeoutException e) {
-			f.cancel(true);
-		} catch (ExecutionException e) {
-			e.printStackTrace();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		} finally {
-			service.shutdown();
+			detectAtCommit(repository, commitId, handler);
+		}
+		finally {
+			binding.close();
 		}
 	}
 
@@ -564,7 +819,8 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 			RevCommit commit = walk.parseCommit(repository.resolve(commitId));
 			if (commit.getParentCount() > 0) {
 				walk.parseCommit(commit.getParent(0));
-				return gitService.churn(repository, commit);
+				//the churn of the java files in the mining scope, from the same single tree diff as the detection
+				return gitService.changeSet(repository, commit, scope, true).getChurn();
 			}
 			else {
 				logger.warn(String.format("Ignored revision %s because it has no parent", commitId));
@@ -583,143 +839,116 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 
 	@Override
 	public void detectAtCommit(String gitURL, String commitId, RefactoringHandler handler, int timeout) {
-		ExecutorService service = Executors.newSingleThreadExecutor();
-		Future<?> f = null;
+		PhaseTimer timer = PhaseTimer.start();
+		Deadline.Binding binding = Deadline.after(timeout, TimeUnit.SECONDS).bind();
 		try {
-			Runnable r = () -> detectRefactorings(handler, gitURL, commitId);
-			f = service.submit(r);
-			f.get(timeout, TimeUnit.SECONDS);
-		} catch (TimeoutException e) {
-			f.cancel(true);
-		} catch (ExecutionException e) {
-			e.printStackTrace();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+			detectRefactorings(handler, gitURL, commitId);
 		} finally {
-			service.shutdown();
+			binding.close();
+			timer.stop(metrics);
 		}
 	}
 
 	protected List<Refactoring> detectRefactorings(final RefactoringHandler handler, String gitURL, String currentCommitId) {
 		List<Refactoring> refactoringsAtRevision = Collections.emptyList();
 		try {
+			PhaseTimer.switchTo(Phase.BLOB_LOADING);
 			Set<String> repositoryDirectoriesBefore = ConcurrentHashMap.newKeySet();
 			Set<String> repositoryDirectoriesCurrent = ConcurrentHashMap.newKeySet();
-			Map<String, String> fileContentsBefore = new ConcurrentHashMap<String, String>();
-			Map<String, String> fileContentsCurrent = new ConcurrentHashMap<String, String>();
+			SourceFileStore fileContentsBefore = SourceFileStore.concurrent();
+			SourceFileStore fileContentsCurrent = SourceFileStore.concurrent();
 			Map<String, String> renamedFilesHint = new ConcurrentHashMap<String, String>();
 			populateWithGitHubAPI(gitURL, currentCommitId, fileContentsBefore, fileContentsCurrent, renamedFilesHint, repositoryDirectoriesBefore, repositoryDirectoriesCurrent);
 			List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
-			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-			//  Diff between currentModel e parentModel
-			UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint);
-			refactoringsAtRevision = modelDiff.getRefactorings();
+			PhaseTimer.switchTo(Phase.PARSING);
+			SymbolTable symbolTable = new SymbolTable();
+			UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent, symbolTable);
+			UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore, symbolTable);
+			reportModelFootprint(currentCommitId, parentUMLModel, currentUMLModel);
+			refactoringsAtRevision = diffModels(parentUMLModel, currentUMLModel, renamedFilesHint, currentCommitId, handler);
+			PhaseTimer.switchTo(Phase.POST_PROCESSING);
 			refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
-			refactoringsAtRevision = filter(refactoringsAtRevision);
+			refactoringsAtRevision = detach(filter(refactoringsAtRevision));
 		}
 		catch(RefactoringMinerTimedOutException e) {
 			logger.warn(String.format("Ignored revision %s due to timeout", currentCommitId), e);
 			handler.handleException(currentCommitId, e);
+			metrics.increment(ERRORS_METRIC);
 		}
 		catch (Exception e) {
 			logger.warn(String.format("Ignored revision %s due to error", currentCommitId), e);
 			handler.handleException(currentCommitId, e);
+			metrics.increment(ERRORS_METRIC);
 		}
+		PhaseTimer.switchTo(Phase.OUTPUT);
+		metrics.add(REFACTORINGS_METRIC, refactoringsAtRevision.size());
 		handler.handle(currentCommitId, refactoringsAtRevision);
 
 		return refactoringsAtRevision;
 	}
 
 	private void populateWithGitHubAPI(String cloneURL, String currentCommitId,
-			Map<String, String> filesBefore, Map<String, String> filesCurrent, Map<String, String> renamedFilesHint,
-			Set<String> repositoryDirectoriesBefore, Set<String> repositoryDirectoriesCurrent) throws IOException, InterruptedException {
+			SourceFileStore filesBefore, SourceFileStore filesCurrent, Map<String, String> renamedFilesHint,
+			Set<String> repositoryDirectoriesBefore, Set<String> repositoryDirectoriesCurrent) throws IOException, InterruptedException, RefactoringMinerTimedOutException {
 		logger.info("Processing {} {} ...", cloneURL, currentCommitId);
 		GHRepository repository = getGitHubRepository(cloneURL);
 		List<GHCommit.File> commitFiles = new ArrayList<>();
 		GHCommit currentCommit = new GHRepositoryWrapper(repository).getCommit(currentCommitId, commitFiles);
 		final String parentCommitId = currentCommit.getParents().get(0).getSHA1();
 		Set<String> deletedAndRenamedFileParentDirectories = ConcurrentHashMap.newKeySet();
-		ExecutorService pool = Executors.newFixedThreadPool(commitFiles.size());
+		List<CompletableFuture<Void>> downloads = new ArrayList<>();
+		MiningScope.ChangeFilter changeFilter = scope != null ? changeFilter(commitFiles) : null;
 		for (GHCommit.File commitFile : commitFiles) {
+			Deadline.check();
 			String fileName = commitFile.getFileName();
-			if (commitFile.getFileName().endsWith(".java")) {
+			if (commitFile.getFileName().endsWith(".java") && isInScope(commitFile, changeFilter)) {
 				if (commitFile.getStatus().equals("modified")) {
-					Runnable r = () -> {
-						try {
-							URL currentRawURL = commitFile.getRawUrl();
-							InputStream currentRawFileInputStream = currentRawURL.openStream();
-							String currentRawFile = IOUtils.toString(currentRawFileInputStream);
-							String rawURLInParentCommit = currentRawURL.toString().replace(currentCommitId, parentCommitId);
-							InputStream parentRawFileInputStream = new URL(rawURLInParentCommit).openStream();
-							String parentRawFile = IOUtils.toString(parentRawFileInputStream);
-							filesBefore.put(fileName, parentRawFile);
-							filesCurrent.put(fileName, currentRawFile);
-						}
-						catch(IOException e) {
-							e.printStackTrace();
-						}
-					};
-					pool.submit(r);
+					URL currentRawURL = commitFile.getRawUrl();
+					URL parentRawURL = new URL(currentRawURL.toString().replace(currentCommitId, parentCommitId));
+					downloads.add(rawFileFetcher.fetch(currentRawURL).thenAcceptBoth(rawFileFetcher.fetch(parentRawURL), (currentRawFile, parentRawFile) -> {
+						filesBefore.put(fileName, parentRawFile);
+						filesCurrent.put(fileName, currentRawFile);
+					}));
 				}
 				else if (commitFile.getStatus().equals("added")) {
-					Runnable r = () -> {
-						try {
-							URL currentRawURL = commitFile.getRawUrl();
-							InputStream currentRawFileInputStream = currentRawURL.openStream();
-							String currentRawFile = IOUtils.toString(currentRawFileInputStream);
-							filesCurrent.put(fileName, currentRawFile);
-						}
-						catch(IOException e) {
-							e.printStackTrace();
-						}
-					};
-					pool.submit(r);
+					downloads.add(rawFileFetcher.fetch(commitFile.getRawUrl()).thenAccept(currentRawFile -> {
+						filesCurrent.put(fileName, currentRawFile);
+					}));
 				}
 				else if (commitFile.getStatus().equals("removed")) {
-					Runnable r = () -> {
-						try {
-							URL rawURL = commitFile.getRawUrl();
-							InputStream rawFileInputStream = rawURL.openStream();
-							String rawFile = IOUtils.toString(rawFileInputStream);
-							filesBefore.put(fileName, rawFile);
-							if(fileName.contains("/")) {
-								deletedAndRenamedFileParentDirectories.add(fileName.substring(0, fileName.lastIndexOf("/")));
-							}
-						}
-						catch(IOException e) {
-							e.printStackTrace();
+					downloads.add(rawFileFetcher.fetch(commitFile.getRawUrl()).thenAccept(rawFile -> {
+						filesBefore.put(fileName, rawFile);
+						if(fileName.contains("/")) {
+							deletedAndRenamedFileParentDirectories.add(fileName.substring(0, fileName.lastIndexOf("/")));
 						}
-					};
-					pool.submit(r);
+					}));
 				}
 				else if (commitFile.getStatus().equals("renamed")) {
-					Runnable r = () -> {
-						try {
-							String previousFilename = commitFile.getPreviousFilename();
-							URL currentRawURL = commitFile.getRawUrl();
-							InputStream currentRawFileInputStream = currentRawURL.openStream();
-							String currentRawFile = IOUtils.toString(currentRawFileInputStream);
-							String rawURLInParentCommit = currentRawURL.toString().replace(currentCommitId, parentCommitId).replace(fileName, previousFilename);
-							InputStream parentRawFileInputStream = new URL(rawURLInParentCommit).openStream();
-							String parentRawFile = IOUtils.toString(parentRawFileInputStream);
-							filesBefore.put(previousFilename, parentRawFile);
-							filesCurrent.put(fileName, currentRawFile);
-							renamedFilesHint.put(previousFilename, fileName);
-							if(previousFilename.contains("/")) {
-								deletedAndRenamedFileParentDirectories.add(previousFilename.substring(0, previousFilename.lastIndexOf("/")));
-							}
+					String previousFilename = commitFile.getPreviousFilename();
+					URL currentRawURL = commitFile.getRawUrl();
+					URL parentRawURL = new URL(currentRawURL.toString().replace(currentCommitId, parentCommitId).replace(fileName, previousFilename));
+					downloads.add(rawFileFetcher.fetch(currentRawURL).thenAcceptBoth(rawFileFetcher.fetch(parentRawURL), (currentRawFile, parentRawFile) -> {
+						filesBefore.put(previousFilename, parentRawFile);
+						filesCurrent.put(fileName, currentRawFile);
+						renamedFilesHint.put(previousFilename, fileName);
+						if(previousFilename.contains("/")) {
+							deletedAndRenamedFileParentDirectories.add(previousFilename.substring(0, previousFilename.lastIndexOf("/")));
 						}
-						catch(IOException e) {
-							e.printStackTrace();
-						}
-					};
-					pool.submit(r);
+					}));
 				}
 			}
 		}
-		pool.shutdown();
-		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		for (CompletableFuture<Void> download : downloads) {
+			try {
+				download.get(Deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+			}
+			catch(ExecutionException e) {
+				logger.warn(String.format("Could not download a file of commit %s", currentCommitId), e.getCause());
+			}
+			catch(TimeoutException e) {
+				throw new RefactoringMinerTimedOutException();
+			}
+		}
 		repositoryDirectories(currentCommit.getTree(), "", repositoryDirectoriesCurrent, deletedAndRenamedFileParentDirectories);
 		repositoryDirectoriesCurrent.addAll(deletedAndRenamedFileParentDirectories);
 		//allRepositoryDirectories(currentCommit.getTree(), "", repositoryDirectoriesCurrent);
@@ -727,8 +956,9 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 		//allRepositoryDirectories(parentCommit.getTree(), "", repositoryDirectoriesBefore);
 	}
 
-	private void repositoryDirectories(GHTree tree, String pathFromRoot, Set<String> repositoryDirectories, Set<String> targetPaths) throws IOException {
+	private void repositoryDirectories(GHTree tree, String pathFromRoot, Set<String> repositoryDirectories, Set<String> targetPaths) throws IOException, RefactoringMinerTimedOutException {
 		for(GHTreeEntry entry : tree.getTree()) {
+			Deadline.check();
 			String path = null;
 			if(pathFromRoot.equals("")) {
 				path = entry.getPath();
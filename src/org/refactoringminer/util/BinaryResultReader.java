@@ -0,0 +1,285 @@
+package org.refactoringminer.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.refactoringminer.api.DetachedRefactoring;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * Reads the commits written by {@link BinaryResultWriter} one at a time.
+ * The refactorings are read as {@link DetachedRefactoring} objects, and the commits recorded with an error as commits without refactorings.
+ */
+public class BinaryResultReader implements Closeable {
+	private final InputStream in;
+	private final RefactoringType[] refactoringTypes;
+	private final CodeElementType[] codeElementTypes;
+	private final List<String> stringPool = new ArrayList<String>();
+	private boolean finished;
+
+	public static class Commit {
+		private final String repository;
+		private final String commitId;
+		private final List<Refactoring> refactorings;
+		private final String errorType;
+		private final String error;
+
+		private Commit(String repository, String commitId, List<Refactoring> refactorings, String errorType, String error) {
+			this.repository = repository;
+			this.commitId = commitId;
+			this.refactorings = refactorings;
+			this.errorType = errorType;
+			this.error = error;
+		}
+
+		public String getRepository() {
+			return repository;
+		}
+
+		public String getCommitId() {
+			return commitId;
+		}
+
+		public List<Refactoring> getRefactorings() {
+			return refactorings;
+		}
+
+		/**
+		 * @return the class name of the exception recorded with {@link BinaryResultWriter#writeError(String, String, String, String)}, or null if the commit was analyzed
+		 */
+		public String getErrorType() {
+			return errorType;
+		}
+
+		/**
+		 * @return the message recorded with {@link BinaryResultWriter#writeError(String, String, String, String)}, or null if the commit was analyzed
+		 */
+		public String getError() {
+			return error;
+		}
+	}
+
+	/**
+	 * @param in the stream to read from, which is closed when the reader is closed
+	 */
+	public BinaryResultReader(InputStream in) throws IOException {
+		this.in = new BufferedInputStream(in, 64 * 1024);
+		byte[] magic = new byte[BinaryResultWriter.MAGIC.length];
+		for(int i=0; i<magic.length; i++) {
+			magic[i] = (byte)readByte();
+		}
+		if(!Arrays.equals(magic, BinaryResultWriter.MAGIC)) {
+			throw new IOException("Not a binary result file");
+		}
+		int version = readByte();
+		if(version != BinaryResultWriter.VERSION) {
+			throw new IOException("Unsupported binary result version " + version);
+		}
+		this.refactoringTypes = new RefactoringType[readVarint()];
+		for(int i=0; i<refactoringTypes.length; i++) {
+			String name = readString();
+			try {
+				refactoringTypes[i] = RefactoringType.valueOf(name);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Unknown refactoring type " + name);
+			}
+		}
+		this.codeElementTypes = new CodeElementType[readVarint()];
+		for(int i=0; i<codeElementTypes.length; i++) {
+			String name = readString();
+			try {
+				codeElementTypes[i] = CodeElementType.valueOf(name);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Unknown code element type " + name);
+			}
+		}
+	}
+
+	/**
+	 * @return the next commit, or null if all commits have been read
+	 */
+	public Commit readCommit() throws IOException {
+		if(finished) {
+			return null;
+		}
+		int record = readByte();
+		if(record == BinaryResultWriter.END) {
+			finished = true;
+			return null;
+		}
+		if(record == BinaryResultWriter.ERROR) {
+			String repository = readPooledString();
+			String commitId = readString();
+			String errorType = readPooledString();
+			String error = readString();
+			return new Commit(repository, commitId, Collections.<Refactoring>emptyList(), errorType, error != null ? error : "");
+		}
+		if(record != BinaryResultWriter.COMMIT) {
+			throw new IOException("Unexpected record " + record);
+		}
+		String repository = readPooledString();
+		String commitId = readString();
+		int refactoringCount = readVarint();
+		List<Refactoring> refactorings = new ArrayList<Refactoring>(refactoringCount);
+		for(int i=0; i<refactoringCount; i++) {
+			RefactoringType refactoringType = refactoringTypes[readVarint()];
+			String name = readPooledString();
+			String description = readString();
+			List<CodeRange> leftSide = readCodeRanges();
+			List<CodeRange> rightSide = readCodeRanges();
+			Set<ImmutablePair<String, String>> involvedClassesBefore = readInvolvedClasses();
+			Set<ImmutablePair<String, String>> involvedClassesAfter = readInvolvedClasses();
+			refactorings.add(new DetachedRefactoring(refactoringType, name, description,
+					leftSide, rightSide, involvedClassesBefore, involvedClassesAfter));
+		}
+		return new Commit(repository, commitId, refactorings, null, null);
+	}
+
+	/**
+	 * Converts the commits read from the stream to JSON. Each commit has the {@code repository}, {@code sha1} and
+	 * {@code url} properties of the command line output, but its refactorings are in the schema of {@link Refactoring#toJSON()}
+	 * ({@code type}, {@code description}, {@code leftSideLocations} and {@code rightSideLocations}), not in the schema of
+	 * {@code RMinerUtils.getJsonForRelevant} used by the command line, which needs model objects that the binary format does not keep.
+	 * The commits recorded with an error are left out, like in the command line output.
+	 */
+	public static void toJSON(InputStream in, Appendable out) throws IOException {
+		try (BinaryResultReader reader = new BinaryResultReader(in)) {
+			out.append("{").append("\n");
+			out.append("\"").append("commits").append("\"").append(": ");
+			out.append("[").append("\n");
+			int commitCount = 0;
+			for(Commit commit = reader.readCommit(); commit != null; commit = reader.readCommit()) {
+				if(commit.error != null) {
+					continue;
+				}
+				if(commitCount > 0) {
+					out.append(",").append("\n");
+				}
+				String url = GitHistoryRefactoringMinerImpl.extractCommitURL(commit.repository, commit.commitId);
+				out.append("{").append("\n");
+				out.append("\t").append("\"").append("repository").append("\"").append(": ").append("\"").append(commit.repository).append("\"").append(",").append("\n");
+				out.append("\t").append("\"").append("sha1").append("\"").append(": ").append("\"").append(commit.commitId).append("\"").append(",").append("\n");
+				out.append("\t").append("\"").append("url").append("\"").append(": ").append("\"").append(url).append("\"").append(",").append("\n");
+				out.append("\t").append("\"").append("refactorings").append("\"").append(": ");
+				out.append("[");
+				for(int i=0; i<commit.refactorings.size(); i++) {
+					if(i > 0) {
+						out.append(",").append("\n");
+					}
+					commit.refactorings.get(i).toJSON(out);
+				}
+				out.append("\n");
+				out.append("]").append("\n");
+				out.append("}");
+				commitCount++;
+			}
+			out.append("]").append("\n");
+			out.append("}");
+		}
+	}
+
+	private List<CodeRange> readCodeRanges() throws IOException {
+		int count = readVarint();
+		List<CodeRange> codeRanges = new ArrayList<CodeRange>(count);
+		for(int i=0; i<count; i++) {
+			String filePath = readPooledString();
+			int startLine = readSignedVarint();
+			int endLine = startLine + readSignedVarint();
+			int startColumn = readSignedVarint();
+			int endColumn = readSignedVarint();
+			int codeElementType = readVarint();
+			CodeRange codeRange = new CodeRange(filePath, startLine, endLine, startColumn, endColumn,
+					codeElementType > 0 ? codeElementTypes[codeElementType - 1] : null);
+			codeRange.setDescription(readPooledString());
+			codeRange.setCodeElement(readPooledString());
+			codeRanges.add(codeRange);
+		}
+		return codeRanges;
+	}
+
+	private Set<ImmutablePair<String, String>> readInvolvedClasses() throws IOException {
+		int count = readVarint();
+		Set<ImmutablePair<String, String>> involvedClasses = new LinkedHashSet<ImmutablePair<String, String>>();
+		for(int i=0; i<count; i++) {
+			String filePath = readPooledString();
+			String className = readPooledString();
+			involvedClasses.add(new ImmutablePair<String, String>(filePath, className));
+		}
+		return involvedClasses;
+	}
+
+	private String readPooledString() throws IOException {
+		int reference = readVarint();
+		if(reference == BinaryResultWriter.NULL_STRING) {
+			return null;
+		}
+		if(reference == BinaryResultWriter.NEW_STRING) {
+			String s = readString();
+			stringPool.add(s);
+			return s;
+		}
+		return stringPool.get(reference - 2);
+	}
+
+	private String readString() throws IOException {
+		int length = readVarint();
+		if(length == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length - 1];
+		int offset = 0;
+		while(offset < bytes.length) {
+			int read = in.read(bytes, offset, bytes.length - offset);
+			if(read < 0) {
+				throw new EOFException();
+			}
+			offset += read;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int readSignedVarint() throws IOException {
+		int value = readVarint();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private int readVarint() throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7) {
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private int readByte() throws IOException {
+		int b = in.read();
+		if(b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,174 @@
+package org.refactoringminer.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringHandler;
+import org.refactoringminer.api.RefactoringType;
+
+import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.diff.CodeRange;
+
+/**
+ * Writes the refactorings of each analyzed commit in a compact binary format, which {@link BinaryResultReader} reads back.
+ * <p>
+ * The file starts with the names of the refactoring and code element types, so that their ordinals can be stored
+ * for each refactoring and code range. Repositories, file paths, class names and other strings that repeat across
+ * refactorings are written once and then referred to by their index in a string pool, and all numbers are varints.
+ * The string pool is built while writing, so commits can be written and read one at a time.
+ * A commit that could not be analyzed can be recorded with {@link #writeError(String, String, String, String)} instead.
+ */
+public class BinaryResultWriter extends RefactoringHandler implements Closeable {
+	static final byte[] MAGIC = {'R', 'M', 'B'};
+	static final int VERSION = 1;
+	static final int END = 0;
+	static final int COMMIT = 1;
+	static final int ERROR = 2;
+	static final int NULL_STRING = 0;
+	static final int NEW_STRING = 1;
+
+	private final OutputStream out;
+	private final String repository;
+	private final Map<String, Integer> stringPool = new HashMap<String, Integer>();
+
+	/**
+	 * @param out the stream to write to, which is closed when the writer is closed
+	 * @param repository the clone URL of the repository recorded with the commits passed to {@link #handle(String, List)}
+	 */
+	public BinaryResultWriter(OutputStream out, String repository) throws IOException {
+		this.out = new BufferedOutputStream(out, 64 * 1024);
+		this.repository = repository;
+		this.out.write(MAGIC);
+		this.out.write(VERSION);
+		RefactoringType[] refactoringTypes = RefactoringType.values();
+		writeVarint(refactoringTypes.length);
+		for(RefactoringType refactoringType : refactoringTypes) {
+			writeString(refactoringType.name());
+		}
+		CodeElementType[] codeElementTypes = CodeElementType.values();
+		writeVarint(codeElementTypes.length);
+		for(CodeElementType codeElementType : codeElementTypes) {
+			writeString(codeElementType.name());
+		}
+	}
+
+	@Override
+	public void handle(String commitId, List<Refactoring> refactorings) {
+		try {
+			writeCommit(repository, commitId, refactorings);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void writeCommit(String repository, String commitId, List<Refactoring> refactorings) throws IOException {
+		out.write(COMMIT);
+		writePooledString(repository);
+		writeString(commitId);
+		writeVarint(refactorings.size());
+		for(Refactoring refactoring : refactorings) {
+			writeVarint(refactoring.getRefactoringType().ordinal());
+			writePooledString(refactoring.getName());
+			writeString(refactoring.toString());
+			writeCodeRanges(refactoring.leftSide());
+			writeCodeRanges(refactoring.rightSide());
+			writeInvolvedClasses(refactoring.getInvolvedClassesBeforeRefactoring());
+			writeInvolvedClasses(refactoring.getInvolvedClassesAfterRefactoring());
+		}
+	}
+
+	/**
+	 * Records that the commit could not be analyzed, which is read back as a commit with an error and no refactorings.
+	 * @param errorType the class name of the exception that stopped the analysis
+	 */
+	public void writeError(String repository, String commitId, String errorType, String message) throws IOException {
+		out.write(ERROR);
+		writePooledString(repository);
+		writeString(commitId);
+		writePooledString(errorType);
+		writeString(message);
+	}
+
+	/**
+	 * Writes the buffered commits to the underlying stream, so that a reader on the other end of a pipe can read them.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	private void writeCodeRanges(List<CodeRange> codeRanges) throws IOException {
+		writeVarint(codeRanges.size());
+		for(CodeRange codeRange : codeRanges) {
+			writePooledString(codeRange.getFilePath());
+			writeSignedVarint(codeRange.getStartLine());
+			writeSignedVarint(codeRange.getEndLine() - codeRange.getStartLine());
+			writeSignedVarint(codeRange.getStartColumn());
+			writeSignedVarint(codeRange.getEndColumn());
+			CodeElementType codeElementType = codeRange.getCodeElementType();
+			writeVarint(codeElementType != null ? codeElementType.ordinal() + 1 : 0);
+			writePooledString(codeRange.getDescription());
+			writePooledString(codeRange.getCodeElement());
+		}
+	}
+
+	private void writeInvolvedClasses(Set<ImmutablePair<String, String>> involvedClasses) throws IOException {
+		writeVarint(involvedClasses.size());
+		for(ImmutablePair<String, String> involvedClass : involvedClasses) {
+			writePooledString(involvedClass.getLeft());
+			writePooledString(involvedClass.getRight());
+		}
+	}
+
+	private void writePooledString(String s) throws IOException {
+		if(s == null) {
+			writeVarint(NULL_STRING);
+			return;
+		}
+		Integer index = stringPool.get(s);
+		if(index != null) {
+			writeVarint(index + 2);
+		}
+		else {
+			stringPool.put(s, stringPool.size());
+			writeVarint(NEW_STRING);
+			writeString(s);
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		if(s == null) {
+			writeVarint(0);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarint(bytes.length + 1);
+		out.write(bytes);
+	}
+
+	private void writeSignedVarint(int value) throws IOException {
+		writeVarint((value << 1) ^ (value >> 31));
+	}
+
+	private void writeVarint(int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	public void close() throws IOException {
+		out.write(END);
+		out.close();
+	}
+}
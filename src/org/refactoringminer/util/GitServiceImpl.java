@@ -2,9 +2,11 @@ package org.refactoringminer.util;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -33,16 +35,35 @@ import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.refactoringminer.api.Churn;
+import org.refactoringminer.api.CommitChangeSet;
 import org.refactoringminer.api.GitService;
+import org.refactoringminer.api.MiningScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class GitServiceImpl implements GitService {
 
+	public static final String RENAME_DETECTION_METRIC = "refactoringminer_rename_detection_seconds";
+	public static final String EXACT_RENAMES_METRIC = "refactoringminer_renames_total{detection=\"exact\"}";
+	public static final String SIMILARITY_RENAMES_METRIC = "refactoringminer_renames_total{detection=\"similarity\"}";
+	public static final String RENAME_LIMIT_EXCEEDED_METRIC = "refactoringminer_rename_limit_exceeded_total";
 	private static final String REMOTE_REFS_PREFIX = "refs/remotes/origin/";
+	//the minimum similarity score of a file pair reported as a rename
+	private static final int RENAME_SCORE = 80;
 	Logger logger = LoggerFactory.getLogger(GitServiceImpl.class);
+	private Metrics metrics = Metrics.getSharedInstance();
 
 	DefaultCommitsFilter commitsFilter = new DefaultCommitsFilter();
+	private int renameLimit = -1;
+
+	/**
+	 * Sets the maximum number of added or deleted Java files for which similarity-based rename detection
+	 * is performed in {@link #fileTreeDiff}. Files with identical content are always paired, regardless of the limit.
+	 * A negative value uses the limit configured in the repository ({@code diff.renameLimit}).
+	 */
+	public void setRenameLimit(int renameLimit) {
+		this.renameLimit = renameLimit;
+	}
 	
 	@Override
 	public Repository cloneIfNotExists(String projectPath, String cloneUrl/*, String branch*/) throws Exception {
@@ -286,6 +307,23 @@ public class GitServiceImpl implements GitService {
 	}
 
 	public void fileTreeDiff(Repository repository, RevCommit currentCommit, List<String> javaFilesBefore, List<String> javaFilesCurrent, Map<String, String> renamedFilesHint) throws Exception {
+		fileTreeDiff(repository, currentCommit, javaFilesBefore, javaFilesCurrent, renamedFilesHint, null);
+	}
+
+	@Override
+	public void fileTreeDiff(Repository repository, RevCommit currentCommit, List<String> javaFilesBefore, List<String> javaFilesCurrent, Map<String, String> renamedFilesHint, MiningScope scope) throws Exception {
+		CommitChangeSet changeSet = changeSet(repository, currentCommit, scope, false);
+		javaFilesBefore.addAll(changeSet.getFilesBefore());
+		javaFilesCurrent.addAll(changeSet.getFilesCurrent());
+		renamedFilesHint.putAll(changeSet.getRenamedFilesHint());
+	}
+
+	@Override
+	public CommitChangeSet changeSet(Repository repository, RevCommit currentCommit, MiningScope scope, boolean computeChurn) throws Exception {
+		List<String> javaFilesBefore = new ArrayList<String>();
+		List<String> javaFilesCurrent = new ArrayList<String>();
+		Map<String, String> renamedFilesHint = new HashMap<String, String>();
+		Churn churn = computeChurn ? new Churn(0, 0) : null;
         if (currentCommit.getParentCount() > 0) {
         	ObjectId oldTree = currentCommit.getParent(0).getTree();
 	        ObjectId newTree = currentCommit.getTree();
@@ -294,31 +332,115 @@ public class GitServiceImpl implements GitService {
         	tw.addTree(oldTree);
         	tw.addTree(newTree);
 
-        	final RenameDetector rd = new RenameDetector(repository);
-        	rd.setRenameScore(80);
-        	rd.addAll(DiffEntry.scan(tw));
-
-        	for (DiffEntry diff : rd.compute(tw.getObjectReader(), null)) {
+        	//only the added and deleted java files are rename candidates
+        	List<DiffEntry> diffs = new ArrayList<DiffEntry>();
+        	List<DiffEntry> added = new ArrayList<DiffEntry>();
+        	List<DiffEntry> deleted = new ArrayList<DiffEntry>();
+        	for (DiffEntry diff : DiffEntry.scan(tw)) {
         		ChangeType changeType = diff.getChangeType();
-        		String oldPath = diff.getOldPath();
-        		String newPath = diff.getNewPath();
-        		if (changeType != ChangeType.ADD) {
-	        		if (isJavafile(oldPath)) {
-	        			javaFilesBefore.add(oldPath);
-	        		}
-	        	}
-        		if (changeType != ChangeType.DELETE) {
-	        		if (isJavafile(newPath)) {
-	        			javaFilesCurrent.add(newPath);
-	        		}
+        		if (changeType == ChangeType.ADD && isJavafile(diff.getNewPath())) {
+        			added.add(diff);
+        		}
+        		else if (changeType == ChangeType.DELETE && isJavafile(diff.getOldPath())) {
+        			deleted.add(diff);
         		}
-        		if (changeType == ChangeType.RENAME && diff.getScore() >= rd.getRenameScore()) {
-        			if (isJavafile(oldPath) && isJavafile(newPath)) {
-        				renamedFilesHint.put(oldPath, newPath);
+        		else {
+        			diffs.add(diff);
+        		}
+        	}
+
+        	MiningScope.ChangeFilter changeFilter = null;
+        	if (scope != null) {
+        		List<String> addedPaths = new ArrayList<String>();
+        		for (DiffEntry addedFile : added) {
+        			addedPaths.add(addedFile.getNewPath());
+        		}
+        		List<String> deletedPaths = new ArrayList<String>();
+        		for (DiffEntry deletedFile : deleted) {
+        			deletedPaths.add(deletedFile.getOldPath());
+        		}
+        		changeFilter = scope.changeFilter(addedPaths, deletedPaths);
+        	}
+
+        	long start = System.nanoTime();
+        	int exactRenames = 0;
+        	int similarityRenames = 0;
+        	boolean overRenameLimit = false;
+        	if (!added.isEmpty() && !deleted.isEmpty()) {
+        		final RenameDetector rd = new RenameDetector(repository);
+        		rd.setRenameScore(RENAME_SCORE);
+        		if (renameLimit >= 0) {
+        			rd.setRenameLimit(renameLimit);
+        		}
+        		rd.addAll(added);
+        		rd.addAll(deleted);
+        		//files moved without changes are paired by blob id before the limit applies, and when the limit is exceeded
+        		//the remaining files are reported as added and deleted, and class moves are still detected from the models
+        		for (DiffEntry diff : rd.compute(tw.getObjectReader(), null)) {
+        			if (diff.getChangeType() == ChangeType.RENAME && diff.getScore() >= RENAME_SCORE) {
+        				if (diff.getOldId().equals(diff.getNewId())) {
+        					exactRenames++;
+        				}
+        				else {
+        					similarityRenames++;
+        				}
         			}
+        			diffs.add(diff);
+        		}
+        		overRenameLimit = rd.isOverRenameLimit();
+        	}
+        	else {
+        		diffs.addAll(added);
+        		diffs.addAll(deleted);
+        	}
+        	long elapsedNanos = System.nanoTime() - start;
+        	metrics.recordNanos(RENAME_DETECTION_METRIC, elapsedNanos);
+        	metrics.add(EXACT_RENAMES_METRIC, exactRenames);
+        	metrics.add(SIMILARITY_RENAMES_METRIC, similarityRenames);
+        	if (overRenameLimit) {
+        		metrics.increment(RENAME_LIMIT_EXCEEDED_METRIC);
+        		logger.info("Rename limit exceeded at commit {} ({} added, {} deleted), skipped similarity-based rename detection",
+        				currentCommit.getId().getName(), added.size(), deleted.size());
+        	}
+        	logger.debug("Rename detection at commit {} took {} ms: {} exact renames, {} similarity renames, {} added and {} deleted candidates",
+        			currentCommit.getId().getName(), elapsedNanos / 1000000, exactRenames, similarityRenames, added.size(), deleted.size());
+
+        	List<DiffEntry> javaDiffs = new ArrayList<DiffEntry>();
+        	for (DiffEntry diff : diffs) {
+        		ChangeType changeType = diff.getChangeType();
+        		String oldPath = changeType != ChangeType.ADD ? diff.getOldPath() : null;
+        		String newPath = changeType != ChangeType.DELETE ? diff.getNewPath() : null;
+        		boolean rename = changeType == ChangeType.RENAME && diff.getScore() >= RENAME_SCORE;
+        		boolean javaFile = addFilePair(oldPath, newPath, rename, javaFilesBefore, javaFilesCurrent, renamedFilesHint, changeFilter);
+        		//files analyzed only as the context of moves across the scope boundary do not count towards the churn
+        		if (javaFile && (scope == null || (oldPath != null && scope.contains(oldPath)) || (newPath != null && scope.contains(newPath)))) {
+        			javaDiffs.add(diff);
         		}
         	}
+        	if (computeChurn) {
+        		churn = churn(repository, javaDiffs);
+        	}
         }
+        return new CommitChangeSet(javaFilesBefore, javaFilesCurrent, renamedFilesHint, churn);
+	}
+
+	private boolean addFilePair(String oldPath, String newPath, boolean rename, List<String> javaFilesBefore, List<String> javaFilesCurrent, Map<String, String> renamedFilesHint, MiningScope.ChangeFilter changeFilter) {
+		if (changeFilter != null && !changeFilter.accepts(oldPath, newPath)) {
+			return false;
+		}
+		boolean javaFile = false;
+		if (oldPath != null && isJavafile(oldPath)) {
+			javaFilesBefore.add(oldPath);
+			javaFile = true;
+		}
+		if (newPath != null && isJavafile(newPath)) {
+			javaFilesCurrent.add(newPath);
+			javaFile = true;
+		}
+		if (rename && isJavafile(oldPath) && isJavafile(newPath)) {
+			renamedFilesHint.put(oldPath, newPath);
+		}
+		return javaFile;
 	}
 
 	private boolean isJavafile(String path) {
@@ -335,32 +457,35 @@ public class GitServiceImpl implements GitService {
         	tw.addTree(oldTree);
         	tw.addTree(newTree);
         	
-        	List<DiffEntry> diffs = DiffEntry.scan(tw);
-        	DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
-    		diffFormatter.setRepository(repository);
-    		diffFormatter.setContext(0);
-    		
-        	int addedLines = 0;
-    		int deletedLines = 0;
-        	for (DiffEntry entry : diffs) {
-    			FileHeader header = diffFormatter.toFileHeader(entry);
-            	List<? extends HunkHeader> hunks = header.getHunks();
-            	for (HunkHeader hunkHeader : hunks) {
-            		for (Edit edit : hunkHeader.toEditList()) {
-    					if (edit.getType() == Type.INSERT) {
-    						addedLines += edit.getLengthB();
-    					} else if (edit.getType() == Type.DELETE) {
-    						deletedLines += edit.getLengthA();
-    					} else if (edit.getType() == Type.REPLACE) {
-    						deletedLines += edit.getLengthA();
-    						addedLines += edit.getLengthB();
-    					}
-    				}
-            	}
-        	}
-        	diffFormatter.close();
-        	return new Churn(addedLines, deletedLines);
+        	return churn(repository, DiffEntry.scan(tw));
 		}
 		return null;
 	}
+
+	private Churn churn(Repository repository, List<DiffEntry> diffs) throws IOException {
+		DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+		diffFormatter.setRepository(repository);
+		diffFormatter.setContext(0);
+
+		int addedLines = 0;
+		int deletedLines = 0;
+		for (DiffEntry entry : diffs) {
+			FileHeader header = diffFormatter.toFileHeader(entry);
+			List<? extends HunkHeader> hunks = header.getHunks();
+			for (HunkHeader hunkHeader : hunks) {
+				for (Edit edit : hunkHeader.toEditList()) {
+					if (edit.getType() == Type.INSERT) {
+						addedLines += edit.getLengthB();
+					} else if (edit.getType() == Type.DELETE) {
+						deletedLines += edit.getLengthA();
+					} else if (edit.getType() == Type.REPLACE) {
+						deletedLines += edit.getLengthA();
+						addedLines += edit.getLengthB();
+					}
+				}
+			}
+		}
+		diffFormatter.close();
+		return new Churn(addedLines, deletedLines);
+	}
 }
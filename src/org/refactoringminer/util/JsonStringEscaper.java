@@ -0,0 +1,58 @@
+package org.refactoringminer.util;
+
+import java.io.IOException;
+
+/**
+ * Appends the contents of JSON string values without building intermediate strings.
+ * The escaping is the same as {@code JsonStringEncoder.quoteAsString}: quotes, backslashes and control characters
+ * are escaped, and all other characters are appended as they are.
+ */
+public class JsonStringEscaper {
+	private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+
+	public static void appendEscaped(Appendable out, CharSequence s) throws IOException {
+		int length = s.length();
+		int start = 0;
+		for(int i=0; i<length; i++) {
+			char c = s.charAt(i);
+			if(c >= 0x20 && c != '"' && c != '\\') {
+				continue;
+			}
+			if(i > start) {
+				out.append(s, start, i);
+			}
+			appendEscape(out, c);
+			start = i + 1;
+		}
+		if(start < length) {
+			out.append(s, start, length);
+		}
+	}
+
+	private static void appendEscape(Appendable out, char c) throws IOException {
+		out.append('\\');
+		switch(c) {
+		case '"':
+		case '\\':
+			out.append(c);
+			break;
+		case '\b':
+			out.append('b');
+			break;
+		case '\t':
+			out.append('t');
+			break;
+		case '\f':
+			out.append('f');
+			break;
+		case '\n':
+			out.append('n');
+			break;
+		case '\r':
+			out.append('r');
+			break;
+		default:
+			out.append("u00").append(HEX_CHARS[c >> 4]).append(HEX_CHARS[c & 0xF]);
+		}
+	}
+}
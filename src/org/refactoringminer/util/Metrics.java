@@ -0,0 +1,246 @@
+package org.refactoringminer.util;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters, gauges and latency histograms of the mining process, without any dependency on a metrics library.
+ * <p>
+ * Metric names follow the Prometheus conventions, and may end with labels, as in {@code name{label="value"}}.
+ * The current values are read with {@link #snapshot()}, or written in the Prometheus text format with {@link #writeText(Appendable)}.
+ */
+public class Metrics {
+	//upper bounds of the histogram buckets in milliseconds, the last bucket being unbounded
+	private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 60000, 120000};
+	private static final Metrics sharedInstance = new Metrics();
+
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+	private final Map<String, LongSupplier> registeredCounters = new ConcurrentHashMap<String, LongSupplier>();
+	private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<String, LongSupplier>();
+	private final Map<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * @return the metrics shared by all the miners and servers of the process
+	 */
+	public static Metrics getSharedInstance() {
+		return sharedInstance;
+	}
+
+	public void increment(String name) {
+		add(name, 1);
+	}
+
+	public void add(String name, long value) {
+		counters.computeIfAbsent(name, n -> new LongAdder()).add(value);
+	}
+
+	/**
+	 * Registers a counter kept by another component, whose value is read when a snapshot is taken and must only increase.
+	 * It replaces any counter registered with the same name.
+	 */
+	public void registerCounter(String name, LongSupplier value) {
+		registeredCounters.put(name, value);
+	}
+
+	/**
+	 * Registers a value that is read when a snapshot is taken, replacing any gauge with the same name.
+	 */
+	public void registerGauge(String name, LongSupplier value) {
+		gauges.put(name, value);
+	}
+
+	public void recordNanos(String name, long nanos) {
+		histograms.computeIfAbsent(name, n -> new Histogram()).record(nanos);
+	}
+
+	public Snapshot snapshot() {
+		Map<String, Long> counterValues = new TreeMap<String, Long>();
+		for(Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+			counterValues.put(entry.getKey(), entry.getValue().sum());
+		}
+		for(Map.Entry<String, LongSupplier> entry : registeredCounters.entrySet()) {
+			counterValues.put(entry.getKey(), entry.getValue().getAsLong());
+		}
+		Map<String, Long> gaugeValues = new TreeMap<String, Long>();
+		for(Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+			gaugeValues.put(entry.getKey(), entry.getValue().getAsLong());
+		}
+		Map<String, HistogramSnapshot> histogramValues = new TreeMap<String, HistogramSnapshot>();
+		for(Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			histogramValues.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return new Snapshot(counterValues, gaugeValues, histogramValues);
+	}
+
+	/**
+	 * Writes a snapshot of the metrics in the Prometheus text exposition format, with the latencies in seconds.
+	 */
+	public void writeText(Appendable out) throws IOException {
+		Snapshot snapshot = snapshot();
+		String previousName = null;
+		for(Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+			previousName = writeType(out, entry.getKey(), "counter", previousName);
+			out.append(entry.getKey()).append(' ').append(String.valueOf(entry.getValue())).append('\n');
+		}
+		for(Map.Entry<String, Long> entry : snapshot.getGauges().entrySet()) {
+			previousName = writeType(out, entry.getKey(), "gauge", previousName);
+			out.append(entry.getKey()).append(' ').append(String.valueOf(entry.getValue())).append('\n');
+		}
+		for(Map.Entry<String, HistogramSnapshot> entry : snapshot.getHistograms().entrySet()) {
+			previousName = writeType(out, entry.getKey(), "histogram", previousName);
+			String name = baseName(entry.getKey());
+			String labels = entry.getKey().substring(name.length());
+			HistogramSnapshot histogram = entry.getValue();
+			long cumulativeCount = 0;
+			for(int i=0; i<histogram.bucketCounts.length; i++) {
+				cumulativeCount += histogram.bucketCounts[i];
+				String bound = i < BUCKET_BOUNDS_MILLIS.length ? String.valueOf(BUCKET_BOUNDS_MILLIS[i] / 1000.0) : "+Inf";
+				out.append(name).append("_bucket").append(withLabel(labels, "le=\"" + bound + "\"")).append(' ').append(String.valueOf(cumulativeCount)).append('\n');
+			}
+			out.append(name).append("_sum").append(labels).append(' ').append(String.valueOf(histogram.getSumNanos() / 1e9)).append('\n');
+			out.append(name).append("_count").append(labels).append(' ').append(String.valueOf(histogram.getCount())).append('\n');
+		}
+	}
+
+	private static String writeType(Appendable out, String metric, String type, String previousName) throws IOException {
+		String name = baseName(metric);
+		if(!name.equals(previousName)) {
+			out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		}
+		return name;
+	}
+
+	private static String baseName(String metric) {
+		int labelsStart = metric.indexOf('{');
+		return labelsStart == -1 ? metric : metric.substring(0, labelsStart);
+	}
+
+	private static String withLabel(String labels, String label) {
+		if(labels.isEmpty()) {
+			return "{" + label + "}";
+		}
+		return labels.substring(0, labels.length() - 1) + "," + label + "}";
+	}
+
+	private static class Histogram {
+		private final LongAdder[] bucketCounts = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+		private final LongAdder sumNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private Histogram() {
+			for(int i=0; i<bucketCounts.length; i++) {
+				bucketCounts[i] = new LongAdder();
+			}
+		}
+
+		private void record(long nanos) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+			int bucket = 0;
+			while(bucket < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+				bucket++;
+			}
+			bucketCounts[bucket].increment();
+			sumNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		private HistogramSnapshot snapshot() {
+			long[] counts = new long[bucketCounts.length];
+			for(int i=0; i<counts.length; i++) {
+				counts[i] = bucketCounts[i].sum();
+			}
+			return new HistogramSnapshot(counts, sumNanos.sum(), maxNanos.get());
+		}
+	}
+
+	public static class Snapshot {
+		private final Map<String, Long> counters;
+		private final Map<String, Long> gauges;
+		private final Map<String, HistogramSnapshot> histograms;
+
+		private Snapshot(Map<String, Long> counters, Map<String, Long> gauges, Map<String, HistogramSnapshot> histograms) {
+			this.counters = Collections.unmodifiableMap(counters);
+			this.gauges = Collections.unmodifiableMap(gauges);
+			this.histograms = Collections.unmodifiableMap(histograms);
+		}
+
+		public Map<String, Long> getCounters() {
+			return counters;
+		}
+
+		public Map<String, Long> getGauges() {
+			return gauges;
+		}
+
+		public Map<String, HistogramSnapshot> getHistograms() {
+			return histograms;
+		}
+
+		/**
+		 * @return the value of a counter, or 0 if nothing was counted with its name
+		 */
+		public long getCounter(String name) {
+			return counters.getOrDefault(name, 0L);
+		}
+
+		/**
+		 * @return the histogram with the given name, or null if nothing was recorded with its name
+		 */
+		public HistogramSnapshot getHistogram(String name) {
+			return histograms.get(name);
+		}
+	}
+
+	public static class HistogramSnapshot {
+		private final long[] bucketCounts;
+		private final long count;
+		private final long sumNanos;
+		private final long maxNanos;
+
+		private HistogramSnapshot(long[] bucketCounts, long sumNanos, long maxNanos) {
+			this.bucketCounts = bucketCounts;
+			long count = 0;
+			for(long bucketCount : bucketCounts) {
+				count += bucketCount;
+			}
+			this.count = count;
+			this.sumNanos = sumNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSumNanos() {
+			return sumNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * @return the upper bound in milliseconds of the bucket containing the given percentile (0-100) of the recorded latencies,
+		 * or the maximum latency if the percentile is in the unbounded bucket
+		 */
+		public long getPercentileMillis(double percentile) {
+			long rank = (long)Math.ceil(count * percentile / 100);
+			long cumulativeCount = 0;
+			for(int i=0; i<BUCKET_BOUNDS_MILLIS.length; i++) {
+				cumulativeCount += bucketCounts[i];
+				if(cumulativeCount >= rank) {
+					return BUCKET_BOUNDS_MILLIS[i];
+				}
+			}
+			return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+		}
+	}
+}
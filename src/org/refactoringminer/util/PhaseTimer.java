@@ -0,0 +1,91 @@
+package org.refactoringminer.util;
+
+/**
+ * Measures how the wall-clock time of the analysis of a commit is divided among the phases of the detection.
+ * <p>
+ * The timer of a commit is bound to the thread analyzing it, so that the code of each phase only needs to call
+ * {@link #switchTo(Phase)}, without passing the timer around. The calls have no effect on threads without a timer.
+ */
+public class PhaseTimer {
+	public enum Phase {
+		//reading the files of both sides, and pairing the files moved without changes
+		BLOB_LOADING("blob_loading"),
+		PARSING("parsing"),
+		CLASS_MATCHING("class_matching"),
+		BODY_MAPPING("body_mapping"),
+		POST_PROCESSING("post_processing"),
+		OUTPUT("output");
+
+		private final String metricLabel;
+
+		private Phase(String metricLabel) {
+			this.metricLabel = metricLabel;
+		}
+
+		public String getMetricLabel() {
+			return metricLabel;
+		}
+	}
+
+	public static final String PHASE_METRIC = "refactoringminer_phase_seconds";
+	public static final String COMMIT_METRIC = "refactoringminer_commit_seconds";
+	private static final ThreadLocal<PhaseTimer> currentTimer = new ThreadLocal<PhaseTimer>();
+
+	private final long[] elapsedNanos = new long[Phase.values().length];
+	private final long startNanos;
+	private Phase phase;
+	private long phaseStartNanos;
+
+	private PhaseTimer() {
+		this.startNanos = System.nanoTime();
+		this.phaseStartNanos = startNanos;
+	}
+
+	/**
+	 * Starts the timer of a commit on the current thread, replacing any previous timer of the thread.
+	 */
+	public static PhaseTimer start() {
+		PhaseTimer timer = new PhaseTimer();
+		currentTimer.set(timer);
+		return timer;
+	}
+
+	/**
+	 * Attributes the time from now on to the given phase, or to no phase if it is null.
+	 * @return the previous phase, so that a nested phase can switch back to it when it ends
+	 */
+	public static Phase switchTo(Phase phase) {
+		PhaseTimer timer = currentTimer.get();
+		if(timer == null) {
+			return null;
+		}
+		Phase previousPhase = timer.phase;
+		long now = System.nanoTime();
+		if(previousPhase != null) {
+			timer.elapsedNanos[previousPhase.ordinal()] += now - timer.phaseStartNanos;
+		}
+		timer.phase = phase;
+		timer.phaseStartNanos = now;
+		return previousPhase;
+	}
+
+	/**
+	 * Ends the current phase, removes the timer from the thread, and records the time of each phase that ran and the total time of the commit.
+	 */
+	public void stop(Metrics metrics) {
+		if(currentTimer.get() == this) {
+			switchTo(null);
+			currentTimer.remove();
+		}
+		for(Phase phase : Phase.values()) {
+			if(elapsedNanos[phase.ordinal()] > 0) {
+				metrics.recordNanos(PHASE_METRIC + "{phase=\"" + phase.getMetricLabel() + "\"}", elapsedNanos[phase.ordinal()]);
+			}
+		}
+		metrics.recordNanos(COMMIT_METRIC, System.nanoTime() - startNanos);
+	}
+
+	public long getElapsedNanos(Phase phase) {
+		return elapsedNanos[phase.ordinal()];
+	}
+}
@@ -0,0 +1,179 @@
+package org.refactoringminer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Downloads raw files on a pool of threads shared by all the commits analyzed in the process.
+ * <p>
+ * The number of downloads running at the same time is bounded in total and for each host, and the downloads
+ * exceeding the limit of their host wait in a queue without occupying a thread. Concurrent requests for the same
+ * URL share a single download.
+ */
+public class RawFileFetcher {
+	private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+	private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 16;
+	private static final int TIMEOUT_MILLIS = 60 * 1000;
+	private static final RawFileFetcher sharedInstance = new RawFileFetcher(DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_REQUESTS_PER_HOST);
+
+	private final ExecutorService pool;
+	private final int maxRequestsPerHost;
+	private final Map<String, Host> hosts = new HashMap<String, Host>();
+	private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<String, CompletableFuture<byte[]>>();
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong failureCount = new AtomicLong();
+	private final AtomicLong bytesFetched = new AtomicLong();
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicInteger queuedCount = new AtomicInteger();
+
+	private static class Host {
+		private int activeRequests;
+		private final Deque<Runnable> pendingRequests = new ArrayDeque<Runnable>();
+	}
+
+	public RawFileFetcher(int maxConcurrentRequests, int maxRequestsPerHost) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), r -> {
+					Thread thread = new Thread(r, "raw-file-fetcher-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		pool.allowCoreThreadTimeOut(true);
+		this.pool = pool;
+		this.maxRequestsPerHost = maxRequestsPerHost;
+	}
+
+	/**
+	 * @return the fetcher shared by all the miners of the process
+	 */
+	public static RawFileFetcher getSharedInstance() {
+		return sharedInstance;
+	}
+
+	/**
+	 * @return a future completed with the contents of the URL, or completed exceptionally with the IOException of the download
+	 */
+	public CompletableFuture<byte[]> fetch(URL url) {
+		String key = url.toString();
+		CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+		CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+		if(existing != null) {
+			coalescedCount.incrementAndGet();
+			return existing;
+		}
+		future.whenComplete((contents, e) -> inFlight.remove(key, future));
+		schedule(url.getHost(), () -> download(url, future));
+		return future;
+	}
+
+	private void schedule(String hostName, Runnable request) {
+		Host host;
+		synchronized (hosts) {
+			host = hosts.computeIfAbsent(hostName, h -> new Host());
+			if(host.activeRequests >= maxRequestsPerHost) {
+				host.pendingRequests.add(request);
+				queuedCount.incrementAndGet();
+				return;
+			}
+			host.activeRequests++;
+		}
+		submit(host, request);
+	}
+
+	private void submit(Host host, Runnable request) {
+		pool.execute(() -> {
+			try {
+				request.run();
+			}
+			finally {
+				Runnable next;
+				synchronized (hosts) {
+					next = host.pendingRequests.poll();
+					if(next == null) {
+						host.activeRequests--;
+					}
+				}
+				if(next != null) {
+					queuedCount.decrementAndGet();
+					submit(host, next);
+				}
+			}
+		});
+	}
+
+	private void download(URL url, CompletableFuture<byte[]> future) {
+		requestCount.incrementAndGet();
+		activeCount.incrementAndGet();
+		try {
+			URLConnection connection = url.openConnection();
+			connection.setConnectTimeout(TIMEOUT_MILLIS);
+			connection.setReadTimeout(TIMEOUT_MILLIS);
+			try (InputStream in = connection.getInputStream()) {
+				byte[] contents = IOUtils.toByteArray(in);
+				bytesFetched.addAndGet(contents.length);
+				future.complete(contents);
+			}
+		}
+		catch(IOException | RuntimeException e) {
+			failureCount.incrementAndGet();
+			future.completeExceptionally(e);
+		}
+		finally {
+			activeCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the number of downloads started
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * @return the number of fetches that shared the download of an earlier fetch of the same URL
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+
+	public long getBytesFetched() {
+		return bytesFetched.get();
+	}
+
+	/**
+	 * @return the number of downloads in progress
+	 */
+	public int getActiveCount() {
+		return activeCount.get();
+	}
+
+	/**
+	 * @return the number of downloads waiting for their host to be below its limit
+	 */
+	public int getQueuedCount() {
+		return queuedCount.get();
+	}
+}
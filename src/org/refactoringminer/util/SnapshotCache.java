@@ -0,0 +1,253 @@
+package org.refactoringminer.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A directory of downloaded repository archives, and of the small metadata files describing their commits,
+ * bounded in total size. When the size is exceeded, the least recently used files are deleted, except for the
+ * archives that are open. The files of a commit are read straight from its archive, which is never extracted.
+ * <p>
+ * The size is tracked only for the files added by this cache, so a directory must not be shared by several caches or processes.
+ */
+public class SnapshotCache {
+	private static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+	private static final int TIMEOUT_MILLIS = 60 * 1000;
+	private static final String ARCHIVE_EXTENSION = ".zip";
+	private static SnapshotCache sharedInstance;
+
+	private final Logger logger = LoggerFactory.getLogger(SnapshotCache.class);
+	private final File directory;
+	private final long maxSize;
+	private long size;
+	//file names in access order, with their sizes
+	private final LinkedHashMap<String, Long> files = new LinkedHashMap<String, Long>(16, 0.75f, true);
+	private final Map<String, Integer> openArchives = new HashMap<String, Integer>();
+	private final Map<String, Object> downloadLocks = new ConcurrentHashMap<String, Object>();
+
+	public SnapshotCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		directory.mkdirs();
+		File[] existingFiles = directory.listFiles(File::isFile);
+		if(existingFiles != null) {
+			Arrays.sort(existingFiles, Comparator.comparingLong(File::lastModified));
+			for(File file : existingFiles) {
+				files.put(file.getName(), file.length());
+				size += file.length();
+			}
+		}
+	}
+
+	/**
+	 * @return the cache shared by all the miners of the process, in a directory of the temporary directory that is
+	 * named after the process id and deleted when the process exits
+	 */
+	public static synchronized SnapshotCache getSharedInstance() {
+		if(sharedInstance == null) {
+			File directory = new File(System.getProperty("java.io.tmpdir"), "refactoringminer-snapshots-" + ProcessHandle.current().pid());
+			sharedInstance = new SnapshotCache(directory, DEFAULT_MAX_SIZE);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(directory)));
+		}
+		return sharedInstance;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Opens the archive of a commit, downloading it if it is not in the cache.
+	 * The archive is not evicted until the returned snapshot is closed.
+	 */
+	public Snapshot open(String commitId, String downloadLink) throws IOException {
+		String fileName = commitId + ARCHIVE_EXTENSION;
+		File archive = new File(directory, fileName);
+		Object downloadLock = downloadLocks.computeIfAbsent(fileName, f -> new Object());
+		try {
+			synchronized (downloadLock) {
+				boolean cached;
+				synchronized (this) {
+					cached = files.get(fileName) != null && archive.exists();
+					if(cached) {
+						openArchives.merge(fileName, 1, Integer::sum);
+					}
+				}
+				if(cached) {
+					archive.setLastModified(System.currentTimeMillis());
+				}
+				else {
+					logger.info(String.format("Downloading archive %s", downloadLink));
+					File download = File.createTempFile(commitId, ".download", directory);
+					try {
+						FileUtils.copyURLToFile(new URL(downloadLink), download, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+						Files.move(download.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					}
+					finally {
+						download.delete();
+					}
+					synchronized (this) {
+						openArchives.merge(fileName, 1, Integer::sum);
+						add(fileName, archive.length());
+					}
+				}
+			}
+		}
+		finally {
+			downloadLocks.remove(fileName, downloadLock);
+		}
+		try {
+			return new Snapshot(fileName, archive);
+		}
+		catch(IOException e) {
+			//a corrupt archive is deleted, so that it is downloaded again
+			release(fileName);
+			remove(fileName);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the contents of a metadata file, or null if it is not in the cache
+	 */
+	public byte[] getMetadata(String name) throws IOException {
+		File file = new File(directory, name);
+		synchronized (this) {
+			if(files.get(name) == null || !file.exists()) {
+				return null;
+			}
+		}
+		file.setLastModified(System.currentTimeMillis());
+		try {
+			return FileUtils.readFileToByteArray(file);
+		}
+		catch(FileNotFoundException e) {
+			//evicted in the meantime
+			return null;
+		}
+	}
+
+	public void putMetadata(String name, byte[] contents) throws IOException {
+		File file = new File(directory, name);
+		File temp = File.createTempFile(name, ".tmp", directory);
+		try {
+			FileUtils.writeByteArrayToFile(temp, contents);
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			temp.delete();
+		}
+		synchronized (this) {
+			add(name, contents.length);
+		}
+	}
+
+	private void add(String fileName, long fileSize) {
+		Long previousSize = files.put(fileName, fileSize);
+		if(previousSize != null) {
+			size -= previousSize;
+		}
+		size += fileSize;
+		evict();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+		while(size > maxSize && iterator.hasNext()) {
+			Map.Entry<String, Long> entry = iterator.next();
+			String fileName = entry.getKey();
+			if(!openArchives.containsKey(fileName)) {
+				File file = new File(directory, fileName);
+				if(file.delete() || !file.exists()) {
+					iterator.remove();
+					size -= entry.getValue();
+				}
+			}
+		}
+	}
+
+	private synchronized void remove(String fileName) {
+		if(!openArchives.containsKey(fileName) && files.containsKey(fileName)) {
+			File file = new File(directory, fileName);
+			if(file.delete() || !file.exists()) {
+				size -= files.remove(fileName);
+			}
+		}
+	}
+
+	private synchronized void release(String fileName) {
+		int count = openArchives.get(fileName) - 1;
+		if(count == 0) {
+			openArchives.remove(fileName);
+			evict();
+		}
+		else {
+			openArchives.put(fileName, count);
+		}
+	}
+
+	/**
+	 * An open repository archive.
+	 */
+	public class Snapshot implements Closeable {
+		private final String fileName;
+		private final ZipFile zipFile;
+		private final String rootFolder;
+
+		private Snapshot(String fileName, File archive) throws IOException {
+			this.fileName = fileName;
+			this.zipFile = new ZipFile(archive);
+			//the archives of GitHub and Bitbucket keep all files in a single root folder named after the repository and commit
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			String firstEntry = entries.hasMoreElements() ? entries.nextElement().getName() : "";
+			this.rootFolder = firstEntry.contains("/") ? firstEntry.substring(0, firstEntry.indexOf("/") + 1) : "";
+		}
+
+		/**
+		 * @param filePath the path of the file in the repository
+		 */
+		public byte[] read(String filePath) throws IOException {
+			ZipEntry entry = zipFile.getEntry(rootFolder + filePath);
+			if(entry == null || entry.isDirectory()) {
+				throw new FileNotFoundException(filePath + " not found in archive " + fileName);
+			}
+			try (InputStream in = zipFile.getInputStream(entry)) {
+				return IOUtils.toByteArray(in);
+			}
+		}
+
+		public void close() throws IOException {
+			try {
+				zipFile.close();
+			}
+			finally {
+				release(fileName);
+			}
+		}
+	}
+}
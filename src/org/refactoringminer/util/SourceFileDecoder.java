@@ -0,0 +1,35 @@
+package org.refactoringminer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Decodes source files directly into the character arrays given to the Java parser,
+ * using the platform default charset as {@code IOUtils.toString} does.
+ */
+public class SourceFileDecoder {
+
+	public static char[] decode(byte[] bytes) {
+		CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		char[] chars = new char[(int)Math.ceil(bytes.length * (double)decoder.maxCharsPerByte())];
+		CharBuffer out = CharBuffer.wrap(chars);
+		decoder.decode(ByteBuffer.wrap(bytes), out, true);
+		decoder.flush(out);
+		//ASCII content in UTF-8 or a single-byte charset fills the array exactly, so no copy is made
+		return out.position() == chars.length ? chars : Arrays.copyOf(chars, out.position());
+	}
+
+	public static char[] decode(InputStream inputStream) throws IOException {
+		return decode(IOUtils.toByteArray(inputStream));
+	}
+}
@@ -0,0 +1,101 @@
+package org.refactoringminer.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The contents of the files on one side of a commit, kept encoded as they are stored in the repository.
+ * Source files are mostly ASCII, so the bytes take half the memory of the decoded characters.
+ * Each file is decoded by {@link SourceFileDecoder} only when it is parsed, and is released right after.
+ */
+public class SourceFileStore {
+	private final Map<String, byte[]> contents;
+
+	/**
+	 * Creates a store that keeps the files in the order they were first added.
+	 */
+	public SourceFileStore() {
+		this.contents = new LinkedHashMap<String, byte[]>();
+	}
+
+	private SourceFileStore(Map<String, byte[]> contents) {
+		this.contents = contents;
+	}
+
+	/**
+	 * Creates a store that files can be added to from multiple threads, without any particular order.
+	 */
+	public static SourceFileStore concurrent() {
+		return new SourceFileStore(new ConcurrentHashMap<String, byte[]>());
+	}
+
+	/**
+	 * Reserves the position of a file in the iteration order, for stores filled out of order.
+	 * The file has no contents until it is {@link #put(String, byte[]) put}.
+	 */
+	public void reserve(String filePath) {
+		contents.put(filePath, new byte[0]);
+	}
+
+	public void put(String filePath, byte[] encodedContents) {
+		contents.put(filePath, encodedContents);
+	}
+
+	/**
+	 * Adds a file with the same contents as a file of another store, without copying them.
+	 */
+	public void putSame(String filePath, SourceFileStore other, String otherFilePath) {
+		contents.put(filePath, other.contents.get(otherFilePath));
+	}
+
+	public List<String> getFilePaths() {
+		return new ArrayList<String>(contents.keySet());
+	}
+
+	public boolean sameContents(String filePath, SourceFileStore other, String otherFilePath) {
+		byte[] encodedContents = contents.get(filePath);
+		byte[] otherEncodedContents = other.contents.get(otherFilePath);
+		return encodedContents != null && otherEncodedContents != null &&
+				(encodedContents == otherEncodedContents || Arrays.equals(encodedContents, otherEncodedContents));
+	}
+
+	public void remove(String filePath) {
+		contents.remove(filePath);
+	}
+
+	/**
+	 * Removes the file from the store.
+	 * @return the decoded contents of the file, or null if the store does not contain it
+	 */
+	public char[] release(String filePath) {
+		byte[] encodedContents = contents.remove(filePath);
+		return encodedContents != null ? SourceFileDecoder.decode(encodedContents) : null;
+	}
+
+	/**
+	 * Empties the store one file at a time: each file is {@link #release(String) released} when the iterator returns it,
+	 * so that only the file being parsed is held decoded.
+	 * @return the paths and decoded contents of the files, in the order of {@link #getFilePaths()}
+	 */
+	public Iterator<Map.Entry<String, char[]>> releaseAll() {
+		Iterator<String> filePaths = getFilePaths().iterator();
+		return new Iterator<Map.Entry<String, char[]>>() {
+			@Override
+			public boolean hasNext() {
+				return filePaths.hasNext();
+			}
+
+			@Override
+			public Map.Entry<String, char[]> next() {
+				String filePath = filePaths.next();
+				return new AbstractMap.SimpleImmutableEntry<String, char[]>(filePath, release(filePath));
+			}
+		};
+	}
+}